@@ -0,0 +1,84 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.benchmark;
+
+import com.espressif.provisioning.ESPConstants;
+import com.espressif.provisioning.Session;
+import com.espressif.provisioning.security.Security;
+import com.espressif.provisioning.transport.SimulatedTransport;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helper to establish sessions with simulated device, used in benchmark setup.
+ */
+final class BenchmarkSessions {
+
+    static final String POP = "abcd1234";
+    static final String USER_NAME = "wifiprov";
+    static final String PASSWORD = "abcd1234";
+
+    private BenchmarkSessions() {
+    }
+
+    static SimulatedTransport createTransport(ESPConstants.SecurityType securityType, int sec2PatchVersion) {
+        return new SimulatedTransport.Builder()
+                .setSecurityType(securityType)
+                .setSec2PatchVersion(sec2PatchVersion)
+                .setProofOfPossession(POP)
+                .setSec2Credentials(USER_NAME, PASSWORD)
+                .build();
+    }
+
+    /**
+     * Perform handshake with the device and wait for it to complete.
+     *
+     * @throws IllegalStateException If session could not be established.
+     */
+    static Session establish(SimulatedTransport transport, Security security) throws InterruptedException {
+
+        final Session session = new Session(transport, security);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Exception[] error = new Exception[1];
+
+        session.init(null, new Session.SessionListener() {
+
+            @Override
+            public void OnSessionEstablished() {
+                latch.countDown();
+            }
+
+            @Override
+            public void OnSessionEstablishFailed(Exception e) {
+                error[0] = e;
+                latch.countDown();
+            }
+        });
+
+        if (!latch.await(30, TimeUnit.SECONDS) || error[0] != null) {
+            throw new IllegalStateException("Session could not be established", error[0]);
+        }
+        return session;
+    }
+
+    static byte[] payload(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+}
@@ -0,0 +1,96 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.benchmark;
+
+import com.espressif.provisioning.srp6a.BigIntegerUtils;
+import com.espressif.provisioning.utils.HexEncoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BigIntegerUtils and HexEncoder conversions.
+ * Payload size is in bytes, 384 bytes is the size of 3072 bit SRP6a values.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class EncodingBenchmark {
+
+    @Param({"32", "64", "384", "1024"})
+    public int payloadSize;
+
+    private byte[] bytes;
+    private byte[] key;
+    private BigInteger bigInteger;
+    private String hex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        bytes = new byte[payloadSize];
+        new SecureRandom().nextBytes(bytes);
+        // Leading byte is non zero as per RFC2945 format.
+        bytes[0] |= (byte) 0x80;
+        key = BenchmarkSessions.payload(32);
+        bigInteger = BigIntegerUtils.bigIntegerFromBytes(bytes);
+        hex = HexEncoder.byteArrayToHexString(bytes);
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerFromBytes() {
+        return BigIntegerUtils.bigIntegerFromBytes(bytes);
+    }
+
+    @Benchmark
+    public byte[] bigIntegerToBytes() {
+        return BigIntegerUtils.bigIntegerToBytes(bigInteger);
+    }
+
+    @Benchmark
+    public String bigIntegerToHex() {
+        return BigIntegerUtils.toHex(bigInteger);
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerFromHex() {
+        return BigIntegerUtils.fromHex(hex);
+    }
+
+    @Benchmark
+    public String byteArrayToHexString() {
+        return HexEncoder.byteArrayToHexString(bytes);
+    }
+
+    @Benchmark
+    public byte[] hexStringToByteArray() {
+        return HexEncoder.hexStringToByteArray(hex);
+    }
+
+    @Benchmark
+    public byte[] xor() {
+        return HexEncoder.xor(bytes, key);
+    }
+}
@@ -0,0 +1,111 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.benchmark;
+
+import com.espressif.provisioning.ESPConstants;
+import com.espressif.provisioning.security.Security2;
+import com.espressif.provisioning.srp6a.BigIntegerUtils;
+import com.espressif.provisioning.srp6a.ClientSRP6Routines;
+import com.espressif.provisioning.srp6a.SRP6ClientCredentials;
+import com.espressif.provisioning.srp6a.SRP6ClientSession;
+import com.espressif.provisioning.srp6a.SRP6CryptoParams;
+import com.espressif.provisioning.srp6a.SRP6Exception;
+import com.espressif.provisioning.srp6a.SRP6ServerSession;
+import com.espressif.provisioning.srp6a.SRP6VerifierGenerator;
+import com.espressif.provisioning.srp6a.XRoutineWithUserIdentity;
+import com.espressif.provisioning.transport.SimulatedTransport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Security 2 handshake with 3072 bit SRP6a parameters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class HandshakeBenchmark {
+
+    private SimulatedTransport transport;
+    private BigInteger salt;
+    private byte[] saltBytes;
+    private BigInteger verifier;
+    private SRP6ServerSession server;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        transport = BenchmarkSessions.createTransport(ESPConstants.SecurityType.SECURITY_2, 1);
+
+        SRP6CryptoParams params = SRP6CryptoParams.getInstance(3072, "SHA-512");
+        SRP6VerifierGenerator verifierGenerator = new SRP6VerifierGenerator(params);
+        verifierGenerator.setXRoutine(new XRoutineWithUserIdentity());
+        salt = BigIntegerUtils.bigIntegerFromBytes(verifierGenerator.generateRandomSalt(16));
+        saltBytes = BigIntegerUtils.bigIntegerToBytes(salt);
+        verifier = verifierGenerator.generateVerifier(salt, BenchmarkSessions.USER_NAME, BenchmarkSessions.PASSWORD);
+    }
+
+    /**
+     * Device side step 1 does not depend on the client, so it is done before every invocation.
+     */
+    @Setup(Level.Invocation)
+    public void setupServer() {
+        SRP6CryptoParams params = SRP6CryptoParams.getInstance(3072, "SHA-512");
+        server = new SRP6ServerSession(params);
+        server.setClientEvidenceRoutine(new ClientSRP6Routines(params.getMessageDigestInstance()));
+        server.step1(BenchmarkSessions.USER_NAME, salt, verifier);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        transport.close();
+    }
+
+    /**
+     * Client steps 1 to 3 of SRP6a, as done by Security2.
+     * Device side step 2 (verification of client proof) is included.
+     */
+    @Benchmark
+    public BigInteger srp6ClientSession() throws SRP6Exception {
+
+        SRP6ClientSession client = new SRP6ClientSession();
+        client.step1(BenchmarkSessions.USER_NAME, BenchmarkSessions.PASSWORD);
+        BigInteger clientPublicKey = client.getClientPublicKey(SRP6CryptoParams.getInstance(3072, "SHA-512"));
+        SRP6ClientCredentials credentials = client.step2_for_client_evidence(SRP6CryptoParams.getInstance(3072, "SHA-512"),
+                salt, server.getPublicServerValue(), saltBytes);
+        client.step3(server.step2(clientPublicKey, credentials.M1));
+        return client.K;
+    }
+
+    /**
+     * Complete Security2 session establishment over simulated transport without latency,
+     * including protobuf encoding and device side of the handshake.
+     */
+    @Benchmark
+    public Security2 security2Session() throws InterruptedException {
+        Security2 security = new Security2(BenchmarkSessions.USER_NAME, BenchmarkSessions.PASSWORD, 1);
+        BenchmarkSessions.establish(transport, security);
+        return security;
+    }
+}
@@ -0,0 +1,111 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.benchmark;
+
+import com.espressif.provisioning.srp6a.SRP6CryptoParams;
+import com.espressif.provisioning.srp6a.SRP6Routines;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modular exponentiation heavy SRP6a routines with 3072 bit parameters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class SRP6RoutinesBenchmark {
+
+    private SRP6Routines routines;
+    private SRP6CryptoParams params;
+    private BigInteger k;
+    private BigInteger x;
+    private BigInteger u;
+    private BigInteger a;
+    private BigInteger b;
+    private BigInteger v;
+    private BigInteger A;
+    private BigInteger B;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SecureRandom random = new SecureRandom();
+        routines = new SRP6Routines();
+        params = SRP6CryptoParams.getInstance(3072, "SHA-512");
+        // Build the table outside of the measurement
+        params.gModPow(BigInteger.ONE);
+        MessageDigest digest = params.getMessageDigestInstance();
+
+        k = routines.computeK(digest, params.N, params.g);
+        x = new BigInteger(512, random);
+        v = routines.computeVerifier(params.N, params.g, x);
+        a = routines.generatePrivateValue(params.N, random);
+        b = routines.generatePrivateValue(params.N, random);
+        A = routines.computePublicClientValue(params.N, params.g, a);
+        B = routines.computePublicServerValue(params.N, params.g, k, v, b);
+        u = routines.computeU(params.getMessageDigestInstance(), params.N, A, B);
+    }
+
+    @Benchmark
+    public BigInteger computePublicClientValue() {
+        return routines.computePublicClientValue(params.N, params.g, a);
+    }
+
+    @Benchmark
+    public BigInteger computePublicClientValueFixedBase() {
+        return routines.computePublicClientValue(params, a);
+    }
+
+    @Benchmark
+    public BigInteger computeClientSessionKey() {
+        return routines.computeSessionKey(params.N, params.g, k, x, u, a, B);
+    }
+
+    @Benchmark
+    public BigInteger computeClientSessionKeyFixedBase() {
+        return routines.computeSessionKey(params, x, u, a, B);
+    }
+
+    @Benchmark
+    public BigInteger computePublicServerValueFixedBase() {
+        return routines.computePublicServerValue(params, v, b);
+    }
+
+    @Benchmark
+    public BigInteger computeServerSessionKey() {
+        return routines.computeSessionKey(params.N, v, u, A, b);
+    }
+
+    @Benchmark
+    public BigInteger computeK() {
+        return routines.computeK(params.getMessageDigestInstance(), params.N, params.g);
+    }
+
+    @Benchmark
+    public SRP6CryptoParams getCryptoParams() {
+        return SRP6CryptoParams.getInstance(3072, "SHA-512");
+    }
+}
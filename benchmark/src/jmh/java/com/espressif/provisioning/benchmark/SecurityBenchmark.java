@@ -0,0 +1,163 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.benchmark;
+
+import com.espressif.provisioning.ESPConstants;
+import com.espressif.provisioning.security.Security1;
+import com.espressif.provisioning.security.Security2;
+import com.espressif.provisioning.transport.SimulatedTransport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encryption and decryption of established sessions for different payload sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SecurityBenchmark {
+
+    @State(Scope.Thread)
+    public static class Security1State {
+
+        @Param({"16", "64", "256", "1024", "4096"})
+        public int payloadSize;
+
+        Security1 security;
+        SimulatedTransport transport;
+        byte[] payload;
+
+        @Setup(Level.Trial)
+        public void setup() throws InterruptedException {
+            transport = BenchmarkSessions.createTransport(ESPConstants.SecurityType.SECURITY_1, 0);
+            security = new Security1(BenchmarkSessions.POP);
+            BenchmarkSessions.establish(transport, security);
+            payload = BenchmarkSessions.payload(payloadSize);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            transport.close();
+        }
+    }
+
+    /**
+     * Security 2 session with patch version 1, every message is encrypted with new nonce.
+     */
+    @State(Scope.Thread)
+    public static class Security2EncryptState {
+
+        @Param({"16", "64", "256", "1024", "4096"})
+        public int payloadSize;
+
+        Security2 security;
+        SimulatedTransport transport;
+        byte[] payload;
+        ByteBuffer input;
+        ByteBuffer output;
+
+        @Setup(Level.Trial)
+        public void setup() throws InterruptedException {
+            transport = BenchmarkSessions.createTransport(ESPConstants.SecurityType.SECURITY_2, 1);
+            security = new Security2(BenchmarkSessions.USER_NAME, BenchmarkSessions.PASSWORD, 1);
+            BenchmarkSessions.establish(transport, security);
+            payload = BenchmarkSessions.payload(payloadSize);
+            input = ByteBuffer.wrap(payload);
+            output = ByteBuffer.allocate(payloadSize + 16);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            transport.close();
+        }
+    }
+
+    /**
+     * Security 2 session with patch version 0, so that the same message can be decrypted repeatedly.
+     * Message is encrypted once by the session itself, as encryption and decryption use the same key and nonce.
+     */
+    @State(Scope.Thread)
+    public static class Security2DecryptState {
+
+        @Param({"16", "64", "256", "1024", "4096"})
+        public int payloadSize;
+
+        Security2 security;
+        SimulatedTransport transport;
+        byte[] encryptedPayload;
+        ByteBuffer input;
+        ByteBuffer output;
+
+        @Setup(Level.Trial)
+        public void setup() throws InterruptedException {
+            transport = BenchmarkSessions.createTransport(ESPConstants.SecurityType.SECURITY_2, 0);
+            security = new Security2(BenchmarkSessions.USER_NAME, BenchmarkSessions.PASSWORD, 0);
+            BenchmarkSessions.establish(transport, security);
+            encryptedPayload = security.encrypt(BenchmarkSessions.payload(payloadSize));
+            input = ByteBuffer.wrap(encryptedPayload);
+            output = ByteBuffer.allocate(payloadSize);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            transport.close();
+        }
+    }
+
+    @Benchmark
+    public byte[] security1Encrypt(Security1State state) {
+        return state.security.encrypt(state.payload);
+    }
+
+    @Benchmark
+    public byte[] security1Decrypt(Security1State state) {
+        return state.security.decrypt(state.payload);
+    }
+
+    @Benchmark
+    public byte[] security2Encrypt(Security2EncryptState state) {
+        return state.security.encrypt(state.payload);
+    }
+
+    @Benchmark
+    public byte[] security2Decrypt(Security2DecryptState state) {
+        return state.security.decrypt(state.encryptedPayload);
+    }
+
+    @Benchmark
+    public int security2EncryptBuffer(Security2EncryptState state) {
+        state.input.rewind();
+        state.output.clear();
+        return state.security.encrypt(state.input, state.output);
+    }
+
+    @Benchmark
+    public int security2DecryptBuffer(Security2DecryptState state) {
+        state.input.rewind();
+        state.output.clear();
+        return state.security.decrypt(state.input, state.output);
+    }
+}
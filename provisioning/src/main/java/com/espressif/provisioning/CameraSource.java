@@ -45,9 +45,9 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 // Note: This requires Google Play Services 8.1 or higher, due to using indirect byte buffers for
 // storing images.
@@ -92,6 +92,15 @@ public class CameraSource {
      */
     private static final float ASPECT_RATIO_TOLERANCE = 0.01f;
 
+    /**
+     * Four frame buffers are needed for working with the camera:
+     * <p/>
+     * one for the frame that is currently being executed upon in doing detection,
+     * one for the next pending frame to process immediately upon completing detection,
+     * two for the frames that the camera uses to populate future preview images.
+     */
+    private static final int PREVIEW_BUFFER_COUNT = 4;
+
     @StringDef({
         Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE,
         Camera.Parameters.FOCUS_MODE_CONTINUOUS_VIDEO,
@@ -155,11 +164,11 @@ public class CameraSource {
     private FrameProcessingRunnable mFrameProcessor;
 
     /**
-     * Map to convert between a byte array, received from the camera, and its associated byte
-     * buffer.  We use byte buffers internally because this is a more efficient way to call into
-     * native code later (avoids a potential copy).
+     * Preview buffers given to the camera, with their associated byte buffers.  We use byte buffers
+     * internally because this is a more efficient way to call into native code later (avoids a
+     * potential copy).  It is created when the camera is opened.
      */
-    private Map<byte[], ByteBuffer> mBytesToByteBuffer = new HashMap<>();
+    private volatile PreviewBufferRing mPreviewBuffers;
 
     //==============================================================================================
     // Builder
@@ -409,8 +418,8 @@ public class CameraSource {
                 mProcessingThread = null;
             }
 
-            // clear the buffer to prevent oom exceptions
-            mBytesToByteBuffer.clear();
+            // clear the buffers to prevent oom exceptions
+            mPreviewBuffers = null;
 
             if (mCamera != null) {
                 mCamera.stopPreview();
@@ -451,6 +460,23 @@ public class CameraSource {
         return mFacing;
     }
 
+    /**
+     * Returns number of preview frames which were not sent to the detector, because detector was
+     * still busy with an earlier frame when a newer frame was received.
+     */
+    public long getDroppedFrameCount() {
+        PreviewBufferRing previewBuffers = mPreviewBuffers;
+        return previewBuffers == null ? 0 : previewBuffers.getDroppedFrameCount();
+    }
+
+    /**
+     * Returns number of preview frames sent to the detector since the camera was started.
+     */
+    public long getProcessedFrameCount() {
+        PreviewBufferRing previewBuffers = mPreviewBuffers;
+        return previewBuffers == null ? 0 : previewBuffers.getProcessedFrameCount();
+    }
+
     public int doZoom(float scale) {
         synchronized (mCameraLock) {
             if (mCamera == null) {
@@ -801,16 +827,12 @@ public class CameraSource {
 
         camera.setParameters(parameters);
 
-        // Four frame buffers are needed for working with the camera:
-        //
-        //   one for the frame that is currently being executed upon in doing detection
-        //   one for the next pending frame to process immediately upon completing detection
-        //   two for the frames that the camera uses to populate future preview images
+        PreviewBufferRing previewBuffers = new PreviewBufferRing(PREVIEW_BUFFER_COUNT, getPreviewBufferSize(mPreviewSize));
+        mPreviewBuffers = previewBuffers;
         camera.setPreviewCallbackWithBuffer(new CameraPreviewCallback());
-        camera.addCallbackBuffer(createPreviewBuffer(mPreviewSize));
-        camera.addCallbackBuffer(createPreviewBuffer(mPreviewSize));
-        camera.addCallbackBuffer(createPreviewBuffer(mPreviewSize));
-        camera.addCallbackBuffer(createPreviewBuffer(mPreviewSize));
+        for (int i = 0; i < PREVIEW_BUFFER_COUNT; i++) {
+            camera.addCallbackBuffer(previewBuffers.array(i));
+        }
 
         return camera;
     }
@@ -1023,32 +1045,136 @@ public class CameraSource {
     }
 
     /**
-     * Creates one buffer for the camera preview callback.  The size of the buffer is based off of
-     * the camera preview size and the format of the camera image.
-     *
-     * @return a new preview buffer of the appropriate size for the current camera settings
+     * Returns size of one buffer for the camera preview callback.  The size of the buffer is based
+     * off of the camera preview size and the format of the camera image.
      */
-    private byte[] createPreviewBuffer(Size previewSize) {
+    private static int getPreviewBufferSize(Size previewSize) {
         int bitsPerPixel = ImageFormat.getBitsPerPixel(ImageFormat.NV21);
         long sizeInBits = previewSize.getHeight() * previewSize.getWidth() * bitsPerPixel;
-        int bufferSize = (int) Math.ceil(sizeInBits / 8.0d) + 1;
-
-        //
-        // NOTICE: This code only works when using play services v. 8.1 or higher.
-        //
-
-        // Creating the byte array this way and wrapping it, as opposed to using .allocate(),
-        // should guarantee that there will be an array to work with.
-        byte[] byteArray = new byte[bufferSize];
-        ByteBuffer buffer = ByteBuffer.wrap(byteArray);
-        if (!buffer.hasArray() || (buffer.array() != byteArray)) {
-            // I don't think that this will ever happen.  But if it does, then we wouldn't be
-            // passing the preview content to the underlying detector later.
-            throw new IllegalStateException("Failed to create valid buffer for camera source.");
+        return (int) Math.ceil(sizeInBits / 8.0d) + 1;
+    }
+
+    /**
+     * Fixed set of preview buffers, created once when the camera is opened.  Buffers are referred
+     * by index, so the frame handoff does not need any map lookup.
+     * <p/>
+     * Camera thread is the only producer and frame processing thread is the only consumer.  The
+     * most recent frame is handed over through a single atomic exchange of its index, so neither
+     * thread blocks on a lock.
+     */
+    private static class PreviewBufferRing {
+        static final int NO_FRAME = -1;
+
+        private final byte[][] mArrays;
+        private final ByteBuffer[] mBuffers;
+
+        // Written by the producer before the frame is published, read by the consumer after it is
+        // taken.  The atomic exchange orders these accesses.
+        private final int[] mFrameIds;
+        private final long[] mTimestamps;
+
+        private final AtomicInteger mPendingIndex = new AtomicInteger(NO_FRAME);
+
+        // Each counter is written only by one thread.
+        private volatile long mDroppedFrames;
+        private volatile long mProcessedFrames;
+
+        PreviewBufferRing(int count, int bufferSize) {
+            mArrays = new byte[count][];
+            mBuffers = new ByteBuffer[count];
+            mFrameIds = new int[count];
+            mTimestamps = new long[count];
+
+            //
+            // NOTICE: This code only works when using play services v. 8.1 or higher.
+            //
+
+            for (int i = 0; i < count; i++) {
+                // Creating the byte array this way and wrapping it, as opposed to using .allocate(),
+                // should guarantee that there will be an array to work with.
+                byte[] byteArray = new byte[bufferSize];
+                ByteBuffer buffer = ByteBuffer.wrap(byteArray);
+                if (!buffer.hasArray() || (buffer.array() != byteArray)) {
+                    // I don't think that this will ever happen.  But if it does, then we wouldn't be
+                    // passing the preview content to the underlying detector later.
+                    throw new IllegalStateException("Failed to create valid buffer for camera source.");
+                }
+                mArrays[i] = byteArray;
+                mBuffers[i] = buffer;
+            }
+        }
+
+        byte[] array(int index) {
+            return mArrays[index];
+        }
+
+        ByteBuffer buffer(int index) {
+            return mBuffers[index];
+        }
+
+        int frameId(int index) {
+            return mFrameIds[index];
+        }
+
+        long timestamp(int index) {
+            return mTimestamps[index];
+        }
+
+        /**
+         * Returns index of the buffer, compared by identity, or NO_FRAME if the array is not one of
+         * the buffers.  There are only few buffers, so this is a short scan without hashing.
+         */
+        int indexOf(byte[] data) {
+            for (int i = 0; i < mArrays.length; i++) {
+                if (mArrays[i] == data) {
+                    return i;
+                }
+            }
+            return NO_FRAME;
         }
 
-        mBytesToByteBuffer.put(byteArray, buffer);
-        return byteArray;
+        /**
+         * Called by the producer to make the frame pending.  Returns index of the previous pending
+         * frame, which was not taken by the consumer and is dropped, or NO_FRAME.
+         */
+        int publish(int index, int frameId, long timestamp) {
+            mFrameIds[index] = frameId;
+            mTimestamps[index] = timestamp;
+            int dropped = mPendingIndex.getAndSet(index);
+            if (dropped != NO_FRAME) {
+                mDroppedFrames++;
+            }
+            return dropped;
+        }
+
+        /**
+         * Called by the producer when the camera gives a buffer which is not part of this ring.
+         */
+        void onFrameSkipped() {
+            mDroppedFrames++;
+        }
+
+        /**
+         * Called by the consumer to take the pending frame.  Returns its index or NO_FRAME.
+         */
+        int take() {
+            return mPendingIndex.getAndSet(NO_FRAME);
+        }
+
+        /**
+         * Called by the consumer after the frame is sent to the detector.
+         */
+        void onFrameProcessed() {
+            mProcessedFrames++;
+        }
+
+        long getDroppedFrameCount() {
+            return mDroppedFrames;
+        }
+
+        long getProcessedFrameCount() {
+            return mProcessedFrames;
+        }
     }
 
     //==============================================================================================
@@ -1079,14 +1205,11 @@ public class CameraSource {
         private Detector<?> mDetector;
         private long mStartTimeMillis = SystemClock.elapsedRealtime();
 
-        // This lock guards all of the member variables below.
-        private final Object mLock = new Object();
-        private boolean mActive = true;
+        private volatile boolean mActive = true;
+        private volatile Thread mConsumerThread;
 
-        // These pending variables hold the state associated with the new frame awaiting processing.
-        private long mPendingTimeMillis;
+        // Frame ID is only used by the camera thread.
         private int mPendingFrameId = 0;
-        private ByteBuffer mPendingFrameData;
 
         FrameProcessingRunnable(Detector<?> detector) {
             mDetector = detector;
@@ -1104,51 +1227,56 @@ public class CameraSource {
         }
 
         /**
-         * Marks the runnable as active/not active.  Signals any blocked threads to continue.
+         * Marks the runnable as active/not active.  Signals the processing thread to continue.
          */
         void setActive(boolean active) {
-            synchronized (mLock) {
-                mActive = active;
-                mLock.notifyAll();
+            mActive = active;
+            Thread consumerThread = mConsumerThread;
+            if (consumerThread != null) {
+                LockSupport.unpark(consumerThread);
             }
         }
 
         /**
-         * Sets the frame data received from the camera.  This adds the previous unused frame buffer
-         * (if present) back to the camera, and keeps a pending reference to the frame data for
-         * future use.
+         * Sets the frame data received from the camera.  This makes the frame pending and adds the
+         * previous pending frame buffer (if it was not taken for processing) back to the camera.
          */
         void setNextFrame(byte[] data, Camera camera) {
-            synchronized (mLock) {
-                if (mPendingFrameData != null) {
-                    camera.addCallbackBuffer(mPendingFrameData.array());
-                    mPendingFrameData = null;
-                }
+            PreviewBufferRing previewBuffers = mPreviewBuffers;
+            if (previewBuffers == null) {
+                return;
+            }
 
-                if (!mBytesToByteBuffer.containsKey(data)) {
-                    Log.d(TAG,
-                        "Skipping frame.  Could not find ByteBuffer associated with the image " +
-                        "data from the camera.");
-                    return;
-                }
+            int index = previewBuffers.indexOf(data);
+            if (index == PreviewBufferRing.NO_FRAME) {
+                previewBuffers.onFrameSkipped();
+                Log.d(TAG,
+                    "Skipping frame.  Could not find ByteBuffer associated with the image " +
+                    "data from the camera.");
+                return;
+            }
 
-                // Timestamp and frame ID are maintained here, which will give downstream code some
-                // idea of the timing of frames received and when frames were dropped along the way.
-                mPendingTimeMillis = SystemClock.elapsedRealtime() - mStartTimeMillis;
-                mPendingFrameId++;
-                mPendingFrameData = mBytesToByteBuffer.get(data);
+            // Timestamp and frame ID are maintained here, which will give downstream code some
+            // idea of the timing of frames received and when frames were dropped along the way.
+            mPendingFrameId++;
+            long pendingTimeMillis = SystemClock.elapsedRealtime() - mStartTimeMillis;
+            int droppedIndex = previewBuffers.publish(index, mPendingFrameId, pendingTimeMillis);
+            if (droppedIndex != PreviewBufferRing.NO_FRAME) {
+                camera.addCallbackBuffer(previewBuffers.array(droppedIndex));
+            }
 
-                // Notify the processor thread if it is waiting on the next frame (see below).
-                mLock.notifyAll();
+            // Wake up the processor thread if it is waiting on the next frame (see below).
+            Thread consumerThread = mConsumerThread;
+            if (consumerThread != null) {
+                LockSupport.unpark(consumerThread);
             }
         }
 
         /**
          * As long as the processing thread is active, this executes detection on frames
          * continuously.  The next pending frame is either immediately available or hasn't been
-         * received yet.  Once it is available, we transfer the frame info to local variables and
-         * run detection on that frame.  It immediately loops back for the next frame without
-         * pausing.
+         * received yet.  Once it is available, we take it and run detection on that frame.  It
+         * immediately loops back for the next frame without pausing.
          * <p/>
          * If detection takes longer than the time in between new frames from the camera, this will
          * mean that this loop will run without ever waiting on a frame, avoiding any context
@@ -1159,56 +1287,47 @@ public class CameraSource {
          */
         @Override
         public void run() {
-            Frame outputFrame;
-            ByteBuffer data;
-
-            while (true) {
-                synchronized (mLock) {
-                    while (mActive && (mPendingFrameData == null)) {
-                        try {
-                            // Wait for the next frame to be received from the camera, since we
-                            // don't have it yet.
-                            mLock.wait();
-                        } catch (InterruptedException e) {
-                            Log.d(TAG, "Frame processing loop terminated.", e);
+            mConsumerThread = Thread.currentThread();
+            PreviewBufferRing previewBuffers = mPreviewBuffers;
+
+            try {
+                while (mActive && previewBuffers != null) {
+
+                    int index = previewBuffers.take();
+
+                    if (index == PreviewBufferRing.NO_FRAME) {
+                        // Wait for the next frame to be received from the camera, since we don't
+                        // have it yet.  A frame published before parking makes park return at once.
+                        LockSupport.park(this);
+                        if (Thread.interrupted()) {
+                            Log.d(TAG, "Frame processing loop terminated.");
                             return;
                         }
+                        continue;
                     }
 
-                    if (!mActive) {
-                        // Exit the loop once this camera source is stopped or released.  We check
-                        // this here, immediately after the wait() above, to handle the case where
-                        // setActive(false) had been called, triggering the termination of this
-                        // loop.
-                        return;
-                    }
-
-                    outputFrame = new Frame.Builder()
-                            .setImageData(mPendingFrameData, mPreviewSize.getWidth(),
+                    Frame outputFrame = new Frame.Builder()
+                            .setImageData(previewBuffers.buffer(index), mPreviewSize.getWidth(),
                                     mPreviewSize.getHeight(), ImageFormat.NV21)
-                            .setId(mPendingFrameId)
-                            .setTimestampMillis(mPendingTimeMillis)
+                            .setId(previewBuffers.frameId(index))
+                            .setTimestampMillis(previewBuffers.timestamp(index))
                             .setRotation(mRotation)
                             .build();
 
-                    // Hold onto the frame data locally, so that we can use this for detection
-                    // below.  We need to clear mPendingFrameData to ensure that this buffer isn't
-                    // recycled back to the camera before we are done using that data.
-                    data = mPendingFrameData;
-                    mPendingFrameData = null;
-                }
-
-                // The code below needs to run outside of synchronization, because this will allow
-                // the camera to add pending frame(s) while we are running detection on the current
-                // frame.
-
-                try {
-                    mDetector.receiveFrame(outputFrame);
-                } catch (Throwable t) {
-                    Log.e(TAG, "Exception thrown from receiver.", t);
-                } finally {
-                    mCamera.addCallbackBuffer(data.array());
+                    // The camera can add pending frame(s) while we are running detection on the
+                    // current frame.  This buffer is owned by this thread till it is given back
+                    // to the camera below.
+                    try {
+                        mDetector.receiveFrame(outputFrame);
+                    } catch (Throwable t) {
+                        Log.e(TAG, "Exception thrown from receiver.", t);
+                    } finally {
+                        previewBuffers.onFrameProcessed();
+                        mCamera.addCallbackBuffer(previewBuffers.array(index));
+                    }
                 }
+            } finally {
+                mConsumerThread = null;
             }
         }
     }
@@ -0,0 +1,119 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning;
+
+import android.os.Bundle;
+
+import com.espressif.provisioning.listeners.DeviceConnectionListener;
+
+import org.greenrobot.eventbus.EventBus;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Delivers connection events of a device to its {@link DeviceConnectionListener}.
+ * <p>
+ * Events are also posted to EventBus as {@link DeviceConnectionEvent}, unless it is disabled.
+ */
+public class DeviceConnectionNotifier {
+
+    private volatile DeviceConnectionListener listener;
+    private volatile Executor executor;
+    private volatile boolean isEventBusEnabled = true;
+
+    /**
+     * This method is used to set listener for connection events.
+     *
+     * @param listener Connection listener, null to remove the listener.
+     * @param executor Executor on which listener is called. If it is null, listener is called on the thread which
+     *                 reports the event (e.g. Bluetooth binder thread).
+     */
+    public void setListener(DeviceConnectionListener listener, Executor executor) {
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    /**
+     * This method is used to enable / disable posting of events to EventBus. It is enabled by default.
+     *
+     * @param enable False to deliver events only to the listener.
+     */
+    public void setEventBusEnabled(boolean enable) {
+        this.isEventBusEnabled = enable;
+    }
+
+    /**
+     * This method is used to deliver connection event.
+     *
+     * @param eventType     One of ESPConstants.EVENT_DEVICE_* values.
+     * @param deviceAddress Address of BLE device, added in data of EventBus event. It can be null.
+     */
+    public void notifyEvent(final short eventType, String deviceAddress) {
+
+        final DeviceConnectionListener connectionListener = listener;
+
+        if (connectionListener != null) {
+
+            Runnable dispatchTask = new Runnable() {
+
+                @Override
+                public void run() {
+                    dispatchEvent(connectionListener, eventType);
+                }
+            };
+
+            Executor listenerExecutor = executor;
+            if (listenerExecutor == null) {
+                dispatchTask.run();
+            } else {
+                try {
+                    listenerExecutor.execute(dispatchTask);
+                } catch (RejectedExecutionException e) {
+                    dispatchTask.run();
+                }
+            }
+        }
+
+        if (isEventBusEnabled) {
+
+            DeviceConnectionEvent event = new DeviceConnectionEvent(eventType);
+            if (deviceAddress != null) {
+                Bundle data = new Bundle();
+                data.putString(ESPConstants.KEY_DEVICE_ADDRESS, deviceAddress);
+                event.setData(data);
+            }
+            EventBus.getDefault().post(event);
+        }
+    }
+
+    private static void dispatchEvent(DeviceConnectionListener listener, short eventType) {
+
+        switch (eventType) {
+
+            case ESPConstants.EVENT_DEVICE_CONNECTED:
+                listener.onDeviceConnected();
+                break;
+
+            case ESPConstants.EVENT_DEVICE_CONNECTION_FAILED:
+                listener.onDeviceConnectionFailed();
+                break;
+
+            case ESPConstants.EVENT_DEVICE_DISCONNECTED:
+                listener.onDeviceDisconnected();
+                break;
+        }
+    }
+}
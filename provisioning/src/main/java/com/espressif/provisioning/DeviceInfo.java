@@ -0,0 +1,277 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class holds version information of the device, received from "proto-ver" endpoint.
+ * <p>
+ * It is parsed once per connection and is immutable. Known capabilities are kept as bits,
+ * which can be checked directly with {@link #hasCapability(int)}.
+ * <p>
+ * Example of version info : {"prov":{"ver":"v1.1","sec_ver":2,"sec_patch_ver":1,"cap":["wifi_scan"]}}
+ */
+public final class DeviceInfo {
+
+    private static final String TAG = "Espressif::" + DeviceInfo.class.getSimpleName();
+
+    public static final String CAPABILITY_NO_POP = "no_pop";
+    public static final String CAPABILITY_NO_SEC = "no_sec";
+    public static final String CAPABILITY_WIFI_SCAN = "wifi_scan";
+    public static final String CAPABILITY_THREAD_SCAN = "thread_scan";
+    public static final String CAPABILITY_THREAD_PROV = "thread_prov";
+
+    public static final int CAPABILITY_BIT_NO_POP = 1;
+    public static final int CAPABILITY_BIT_NO_SEC = 1 << 1;
+    public static final int CAPABILITY_BIT_WIFI_SCAN = 1 << 2;
+    public static final int CAPABILITY_BIT_THREAD_SCAN = 1 << 3;
+    public static final int CAPABILITY_BIT_THREAD_PROV = 1 << 4;
+
+    public static final int VERSION_NOT_AVAILABLE = -1;
+
+    private static final String KEY_PROV = "prov";
+    private static final String KEY_VERSION = "ver";
+    private static final String KEY_SEC_VERSION = "sec_ver";
+    private static final String KEY_SEC_PATCH_VERSION = "sec_patch_ver";
+    private static final String KEY_CAPABILITIES = "cap";
+
+    private static final HashMap<String, Integer> CAPABILITY_BITS = new HashMap<>();
+
+    static {
+        CAPABILITY_BITS.put(CAPABILITY_NO_POP, CAPABILITY_BIT_NO_POP);
+        CAPABILITY_BITS.put(CAPABILITY_NO_SEC, CAPABILITY_BIT_NO_SEC);
+        CAPABILITY_BITS.put(CAPABILITY_WIFI_SCAN, CAPABILITY_BIT_WIFI_SCAN);
+        CAPABILITY_BITS.put(CAPABILITY_THREAD_SCAN, CAPABILITY_BIT_THREAD_SCAN);
+        CAPABILITY_BITS.put(CAPABILITY_THREAD_PROV, CAPABILITY_BIT_THREAD_PROV);
+    }
+
+    private final String versionInfo;
+    private final String version;
+    private final int securityVersion;
+    private final int securityPatchVersion;
+    private final int capabilityBits;
+    private final Set<String> otherCapabilities;
+    private final List<String> capabilities;
+    private final Map<String, String> customFields;
+
+    private DeviceInfo(String versionInfo, String version, int securityVersion, int securityPatchVersion,
+                       List<String> capabilities, Map<String, String> customFields) {
+
+        this.versionInfo = versionInfo;
+        this.version = version;
+        this.securityVersion = securityVersion;
+        this.securityPatchVersion = securityPatchVersion;
+        this.capabilities = Collections.unmodifiableList(capabilities);
+        this.customFields = Collections.unmodifiableMap(customFields);
+
+        int bits = 0;
+        Set<String> others = new HashSet<>();
+
+        for (String capability : capabilities) {
+            int bit = getCapabilityBit(capability);
+            if (bit != 0) {
+                bits |= bit;
+            } else {
+                others.add(capability);
+            }
+        }
+        this.capabilityBits = bits;
+        this.otherCapabilities = others;
+    }
+
+    /**
+     * This method is used to parse version information received from the device.
+     * If data is not valid JSON, returned object has no version and capabilities, as in case of older firmware.
+     *
+     * @param versionInfo Data received from "proto-ver" endpoint.
+     * @return Returns parsed device information.
+     */
+    public static DeviceInfo parse(String versionInfo) {
+
+        String version = null;
+        int securityVersion = VERSION_NOT_AVAILABLE;
+        int securityPatchVersion = VERSION_NOT_AVAILABLE;
+        ArrayList<String> capabilities = new ArrayList<>();
+        HashMap<String, String> customFields = new HashMap<>();
+
+        if (versionInfo == null) {
+            return new DeviceInfo(null, null, securityVersion, securityPatchVersion, capabilities, customFields);
+        }
+
+        try {
+            JSONObject jsonObject = new JSONObject(versionInfo);
+            Iterator<String> keys = jsonObject.keys();
+
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (!KEY_PROV.equals(key)) {
+                    customFields.put(key, jsonObject.get(key).toString());
+                }
+            }
+
+            JSONObject provInfo = jsonObject.getJSONObject(KEY_PROV);
+            version = provInfo.getString(KEY_VERSION);
+
+            if (provInfo.has(KEY_SEC_VERSION)) {
+                securityVersion = provInfo.optInt(KEY_SEC_VERSION);
+            }
+            if (provInfo.has(KEY_SEC_PATCH_VERSION)) {
+                securityPatchVersion = provInfo.optInt(KEY_SEC_PATCH_VERSION);
+            }
+
+            JSONArray capabilityArray = provInfo.optJSONArray(KEY_CAPABILITIES);
+
+            if (capabilityArray != null) {
+                for (int i = 0; i < capabilityArray.length(); i++) {
+                    capabilities.add(capabilityArray.getString(i));
+                }
+            }
+        } catch (JSONException e) {
+            e.printStackTrace();
+            Log.d(TAG, "Capabilities JSON not available.");
+        }
+
+        Log.d(TAG, "Device Version : " + version + ", Capabilities : " + capabilities);
+        return new DeviceInfo(versionInfo, version, securityVersion, securityPatchVersion, capabilities, customFields);
+    }
+
+    /**
+     * This method is used to get raw version information, as received from the device.
+     *
+     * @return Returns version information JSON string.
+     */
+    public String getVersionInfo() {
+        return versionInfo;
+    }
+
+    /**
+     * This method is used to get provisioning version of the device (e.g. "v1.1").
+     *
+     * @return Returns version or null if it is not available.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * This method is used to check whether version info has valid "prov" information.
+     * Older firmware may not have "proto-ver" endpoint or may send other data on it.
+     *
+     * @return Returns true if provisioning version is available.
+     */
+    public boolean hasProvisioningInfo() {
+        return version != null;
+    }
+
+    /**
+     * This method is used to check whether device has sent its security version. Older firmware does not send it.
+     *
+     * @return Returns true if security version is available.
+     */
+    public boolean hasSecurityVersion() {
+        return securityVersion != VERSION_NOT_AVAILABLE;
+    }
+
+    /**
+     * @return Returns security version of the device or VERSION_NOT_AVAILABLE.
+     */
+    public int getSecurityVersion() {
+        return securityVersion;
+    }
+
+    /**
+     * @return Returns security patch version of the device or VERSION_NOT_AVAILABLE.
+     */
+    public int getSecurityPatchVersion() {
+        return securityPatchVersion;
+    }
+
+    /**
+     * This method is used to check whether device has given known capabilities.
+     *
+     * @param capabilityBits Capability bits, e.g. CAPABILITY_BIT_WIFI_SCAN. Bits can be combined to check multiple capabilities.
+     * @return Returns true if device has all given capabilities.
+     */
+    public boolean hasCapability(int capabilityBits) {
+        return capabilityBits != 0 && (this.capabilityBits & capabilityBits) == capabilityBits;
+    }
+
+    /**
+     * This method is used to check whether device has given capability.
+     * Use {@link #hasCapability(int)} for known capabilities.
+     *
+     * @param capability Capability name, e.g. CAPABILITY_WIFI_SCAN.
+     * @return Returns true if device has the capability.
+     */
+    public boolean hasCapability(String capability) {
+
+        int bit = getCapabilityBit(capability);
+        if (bit != 0) {
+            return (capabilityBits & bit) != 0;
+        }
+        return otherCapabilities.contains(capability);
+    }
+
+    /**
+     * @return Returns bits of known capabilities of the device.
+     */
+    public int getCapabilityBits() {
+        return capabilityBits;
+    }
+
+    /**
+     * @return Returns unmodifiable list of capabilities, in the order sent by the device.
+     */
+    public List<String> getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * This method is used to get custom field sent by the device application along with "prov" information.
+     *
+     * @param key Key of the field.
+     * @return Returns JSON string value of the field or null if it is not available.
+     */
+    public String getCustomField(String key) {
+        return customFields.get(key);
+    }
+
+    /**
+     * @return Returns unmodifiable map of custom fields with their JSON string values.
+     */
+    public Map<String, String> getCustomFields() {
+        return customFields;
+    }
+
+    private static int getCapabilityBit(String capability) {
+
+        Integer bit = CAPABILITY_BITS.get(capability);
+        return bit == null ? 0 : bit;
+    }
+}
@@ -45,12 +45,16 @@ public class ESPConstants {
     public static final String HANDLER_PROTO_VER = "proto-ver";
     public static final String HANDLER_PROV_SESSION = "prov-session";
     public static final String HANDLER_PROV_CONFIG = "prov-config";
+    public static final String HANDLER_PROV_CTRL = "prov-ctrl";
 
     // Event types
     public static final short EVENT_DEVICE_CONNECTED = 1;
     public static final short EVENT_DEVICE_CONNECTION_FAILED = 2;
     public static final short EVENT_DEVICE_DISCONNECTED = 3;
 
+    // Key of BLE device address in data of device connection event
+    public static final String KEY_DEVICE_ADDRESS = "device_address";
+
     // Constants for WiFi Security values (As per proto files)
     public static final short WIFI_OPEN = 0;
     public static final short WIFI_WEP = 1;
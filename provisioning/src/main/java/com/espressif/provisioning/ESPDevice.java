@@ -14,12 +14,11 @@
 
 package com.espressif.provisioning;
 
-import static java.lang.Thread.sleep;
-
 import android.Manifest;
 import android.bluetooth.BluetoothDevice;
 import android.content.Context;
 import android.net.ConnectivityManager;
+import android.net.LinkProperties;
 import android.net.Network;
 import android.net.NetworkCapabilities;
 import android.net.NetworkRequest;
@@ -31,34 +30,50 @@ import android.net.wifi.WifiNetworkSpecifier;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
 import androidx.annotation.RequiresPermission;
 
+import com.espressif.provisioning.listeners.BleLinkListener;
+import com.espressif.provisioning.listeners.DeviceConnectionListener;
 import com.espressif.provisioning.listeners.ProvisionListener;
 import com.espressif.provisioning.listeners.ResponseListener;
 import com.espressif.provisioning.listeners.WiFiScanListener;
+import com.espressif.provisioning.metrics.ProvisioningMetrics;
+import com.espressif.provisioning.metrics.ProvisioningPhase;
+import com.espressif.provisioning.security.HandshakePrecomputer;
 import com.espressif.provisioning.security.Security;
 import com.espressif.provisioning.security.Security0;
 import com.espressif.provisioning.security.Security1;
 import com.espressif.provisioning.security.Security2;
 import com.espressif.provisioning.transport.BLETransport;
+import com.espressif.provisioning.transport.BleLinkProfile;
 import com.espressif.provisioning.transport.SoftAPTransport;
+import com.espressif.provisioning.transport.SoftApReadinessDetector;
 import com.espressif.provisioning.transport.Transport;
 import com.espressif.provisioning.utils.MessengeHelper;
+import com.espressif.provisioning.utils.PollScheduler;
 import com.google.protobuf.InvalidProtocolBufferException;
 
-import org.greenrobot.eventbus.EventBus;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 import espressif.Constants;
 import espressif.NetworkConfig;
@@ -73,17 +88,30 @@ public class ESPDevice {
 
     private static final String TAG = "ESP:" + ESPDevice.class.getSimpleName();
 
+    private static final int DEFAULT_SCAN_PAGE_SIZE = 4;
+    private static final int MAX_SCAN_PAGE_SIZE = 16;
+    // Max encoded size of one scan result entry and overhead of scan result response, in bytes.
+    private static final int SCAN_RESULT_ENTRY_SIZE = 60;
+    private static final int SCAN_RESULT_OVERHEAD = 32;
+
+    private static ScheduledExecutorService defaultExecutor;
+
     private Context context;
     private Handler handler;
+    private ScheduledExecutorService executor;
+    private PollScheduler statusPoller;
+    private long statusPollTimeout = PollScheduler.DEFAULT_TIMEOUT;
 
-    private Session session;
+    private volatile Session session;
     private Security security;
     private Transport transport;
     private int secPatchVersion;
 
-    private WiFiScanListener wifiScanListener;
-    private ProvisionListener provisionListener;
-    private ResponseListener responseListener;
+    // Network scan and provisioning in progress. Only one of each can run at a time, as they share state of the device.
+    private ScanOperation scanOperation;
+    private ProvisionOperation provisionOperation;
+    // Listeners waiting for the session handshake in progress.
+    private final ArrayList<ResponseListener> sessionInitListeners = new ArrayList<>();
 
     // Transport & security type must be set before session init.
     private ESPConstants.TransportType transportType;
@@ -91,11 +119,13 @@ public class ESPDevice {
 
     private String proofOfPossession = "";
     private String userName = "";
-    private String versionInfo;
+    private DeviceInfo deviceInfo;
     private int totalCount;
     private int startIndex;
+    private int scanPageSize;
+    private int scanPageSizeLimit = MAX_SCAN_PAGE_SIZE;
     private ArrayList<WiFiAccessPoint> wifiApList;
-    private ArrayList<String> deviceCapabilities = new ArrayList<>();
+    private HashMap<String, WiFiAccessPoint> wifiApIndex;
     private BluetoothDevice bluetoothDevice;
     private WiFiAccessPoint wifiDevice;
     private String primaryServiceUuid;
@@ -103,6 +133,8 @@ public class ESPDevice {
     private WifiManager wifiManager;
     private ConnectivityManager connectivityManager;
     private ConnectivityManager.NetworkCallback networkCallback;
+    private SoftApReadinessDetector softApDetector;
+    private final DeviceConnectionNotifier connectionNotifier = new DeviceConnectionNotifier();
 
     public ESPDevice(Context context, ESPConstants.TransportType transportType, ESPConstants.SecurityType securityType) {
 
@@ -117,6 +149,7 @@ public class ESPDevice {
 
             case TRANSPORT_BLE:
                 transport = new BLETransport(context);
+                ((BLETransport) transport).setConnectionNotifier(connectionNotifier);
                 break;
 
             case TRANSPORT_SOFTAP:
@@ -131,6 +164,8 @@ public class ESPDevice {
     @RequiresPermission(allOf = {Manifest.permission.CHANGE_WIFI_STATE, Manifest.permission.ACCESS_WIFI_STATE, Manifest.permission.ACCESS_NETWORK_STATE, Manifest.permission.ACCESS_FINE_LOCATION})
     public void connectToDevice() {
 
+        HandshakePrecomputer.getInstance().prepare(securityType);
+
         switch (transportType) {
 
             case TRANSPORT_BLE:
@@ -154,11 +189,12 @@ public class ESPDevice {
     public void connectBLEDevice(BluetoothDevice bluetoothDevice, String primaryServiceUuid) {
 
         if (transport instanceof BLETransport) {
+            HandshakePrecomputer.getInstance().prepare(securityType);
             deviceName = bluetoothDevice.getName();
             ((BLETransport) transport).connect(bluetoothDevice, UUID.fromString(primaryServiceUuid));
         } else {
             Log.e(TAG, "Trying to connect device with wrong transport.");
-            EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+            connectionNotifier.notifyEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED, null);
         }
     }
 
@@ -170,13 +206,14 @@ public class ESPDevice {
 
         if (transport instanceof SoftAPTransport) {
 
+            HandshakePrecomputer.getInstance().prepare(securityType);
             enableOnlyWifiNetwork();
             deviceConnectionReqCount = 0;
             getCapabilitiesFromDevice();
 
         } else {
             Log.e(TAG, "Trying to connect device with wrong transport.");
-            EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+            connectionNotifier.notifyEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED, null);
         }
     }
 
@@ -213,7 +250,25 @@ public class ESPDevice {
 
                     Log.e(TAG, "Network is available - 1");
                     connectivityManager.bindProcessToNetwork(network);
-                    getCapabilitiesFromDevice();
+                    getSoftApDetector().start(network, new SoftApReadinessDetector.ReadinessListener() {
+
+                        @Override
+                        public boolean onDeviceReady() {
+                            getCapabilitiesFromDevice();
+                            return true;
+                        }
+
+                        @Override
+                        public void onDeviceNotReachable() {
+                            handler.post(wifiConnectionFailedTask);
+                        }
+                    });
+                }
+
+                @Override
+                public void onLinkPropertiesChanged(@NonNull Network network, @NonNull LinkProperties linkProperties) {
+                    super.onLinkPropertiesChanged(network, linkProperties);
+                    getSoftApDetector().onLinkPropertiesChanged(network, linkProperties);
                 }
 
                 @Override
@@ -245,6 +300,13 @@ public class ESPDevice {
 
                     Log.e(TAG, "Network is available - 2");
                     connectivityManager.bindProcessToNetwork(network);
+                    getSoftApDetector().onNetworkAvailable(network);
+                }
+
+                @Override
+                public void onLinkPropertiesChanged(@NonNull Network network, @NonNull LinkProperties linkProperties) {
+                    super.onLinkPropertiesChanged(network, linkProperties);
+                    getSoftApDetector().onLinkPropertiesChanged(network, linkProperties);
                 }
 
                 @Override
@@ -300,12 +362,11 @@ public class ESPDevice {
 
                 Log.d(TAG, "Connect to network : " + netId);
                 wifiManager.enableNetwork(netId, true);
-                scheduleWiFiConnectionFailure();
-                checkDeviceConnection(ssid);
+                checkDeviceConnection(ssid, SystemClock.elapsedRealtime() + SoftApReadinessDetector.DEFAULT_DEADLINE);
 
             } else {
                 Log.e(TAG, "Failed to add network");
-                EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+                connectionNotifier.notifyEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED, null);
             }
         }
     }
@@ -319,8 +380,13 @@ public class ESPDevice {
         if (transport instanceof BLETransport) {
             ((BLETransport) transport).disconnect();
         }
+        stopStatusPolling();
+        if (softApDetector != null) {
+            softApDetector.cancel();
+        }
         session = null;
         disableOnlyWifiNetwork();
+        failOperations(new RuntimeException("Device disconnected"));
     }
 
     public void refreshServicesOfBleDevice() {
@@ -330,6 +396,49 @@ public class ESPDevice {
         }
     }
 
+    /**
+     * This method is used to receive connection events of this device directly, instead of subscribing to
+     * DeviceConnectionEvent of EventBus, which is posted for all devices.
+     *
+     * @param listener Connection listener, null to remove the listener.
+     * @param executor Executor on which listener is called. If it is null, listener is called on the thread
+     *                 which reports the event.
+     */
+    public void setConnectionListener(DeviceConnectionListener listener, Executor executor) {
+        connectionNotifier.setListener(listener, executor);
+    }
+
+    /**
+     * This method is used to enable / disable posting of DeviceConnectionEvent to EventBus for this device.
+     * It is enabled by default.
+     *
+     * @param enable False to deliver connection events only to the connection listener.
+     */
+    public void setEventBusEnabled(boolean enable) {
+        connectionNotifier.setEventBusEnabled(enable);
+    }
+
+    /**
+     * This method is used to set executor on which delayed device requests (like polling of provisioning status) are scheduled.
+     * Devices provisioned together can share an executor instead of blocking a thread while waiting.
+     * By default, single executor shared by all devices is used.
+     *
+     * @param executor Executor to schedule device requests.
+     */
+    public void setExecutor(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * This method is used to set max time to wait for the device to connect with the network after applying config.
+     * Provisioning is failed if device is still connecting after this time.
+     *
+     * @param timeoutMs Timeout in milliseconds.
+     */
+    public void setProvisioningTimeout(long timeoutMs) {
+        this.statusPollTimeout = timeoutMs;
+    }
+
     /**
      * This method is used to set Proof Of Possession.
      *
@@ -382,13 +491,48 @@ public class ESPDevice {
      */
     public String getVersionInfo() {
 
+        DeviceInfo info = getDeviceInfo();
+        return info == null ? null : info.getVersionInfo();
+    }
+
+    /**
+     * This method is used to get version information of the device, parsed once when device is connected.
+     *
+     * @return Returns device information or null if device is not connected yet.
+     */
+    public DeviceInfo getDeviceInfo() {
+
         if (transport instanceof BLETransport) {
-            return ((BLETransport) transport).versionInfo;
+            return ((BLETransport) transport).getDeviceInfo();
         } else {
-            return versionInfo;
+            return deviceInfo;
         }
     }
 
+    /**
+     * This method is used to check whether device has given capability.
+     *
+     * @param capability Capability name, e.g. DeviceInfo.CAPABILITY_WIFI_SCAN.
+     * @return Returns true if device has the capability.
+     */
+    public boolean hasCapability(String capability) {
+
+        DeviceInfo info = getDeviceInfo();
+        return info != null && info.hasCapability(capability);
+    }
+
+    /**
+     * This method is used to check whether device has given known capabilities.
+     *
+     * @param capabilityBits Capability bits, e.g. DeviceInfo.CAPABILITY_BIT_WIFI_SCAN.
+     * @return Returns true if device has all given capabilities.
+     */
+    public boolean hasCapability(int capabilityBits) {
+
+        DeviceInfo info = getDeviceInfo();
+        return info != null && info.hasCapability(capabilityBits);
+    }
+
     /**
      * This method is used to set device name.
      *
@@ -414,11 +558,11 @@ public class ESPDevice {
      */
     public ArrayList<String> getDeviceCapabilities() {
 
-        if (transport instanceof BLETransport) {
-            return ((BLETransport) transport).deviceCapabilities;
-        } else {
-            return deviceCapabilities;
+        DeviceInfo info = getDeviceInfo();
+        if (info == null) {
+            return new ArrayList<>();
         }
+        return new ArrayList<>(info.getCapabilities());
     }
 
     /**
@@ -449,6 +593,76 @@ public class ESPDevice {
         securityType = secType;
     }
 
+    /**
+     * This method is used to set max number of networks requested from the device in one request of network scan list.
+     * Actual number of networks per request is decided from transport type and negotiated MTU but it will not exceed this limit.
+     *
+     * @param limit Max number of networks per request.
+     */
+    public void setScanPageSizeLimit(int limit) {
+        scanPageSizeLimit = Math.max(1, limit);
+    }
+
+    /**
+     * This method is used to receive responses of BLE device through notifications / indications, if device supports it.
+     * It avoids a read request after every write. It must be called before connecting the device.
+     * Note : It is applicable only for BLE transport.
+     *
+     * @param enable True to enable notifications.
+     */
+    public void setBleNotificationEnabled(boolean enable) {
+
+        if (transport instanceof BLETransport) {
+            ((BLETransport) transport).setNotificationEnabled(enable);
+        }
+    }
+
+    /**
+     * This method is used to send payloads larger than the negotiated MTU with reliable writes.
+     * Data echoed by the device is verified before the write is executed.
+     * Note : It is applicable only for BLE transport.
+     *
+     * @param enable True to enable reliable writes.
+     */
+    public void setBleReliableWriteEnabled(boolean enable) {
+
+        if (transport instanceof BLETransport) {
+            ((BLETransport) transport).setReliableWriteEnabled(enable);
+        }
+    }
+
+    /**
+     * This method is used to cache GATT endpoints and version info of BLE device, so that reconnection to
+     * the same device can skip descriptor reads and start session setup directly.
+     * Use GattEndpointCache to remove entry of a device, e.g. after its firmware update.
+     * Note : It is applicable only for BLE transport.
+     *
+     * @param enable True to enable endpoint cache.
+     */
+    public void setBleEndpointCacheEnabled(boolean enable) {
+
+        if (transport instanceof BLETransport) {
+            ((BLETransport) transport).setEndpointCacheEnabled(enable);
+        }
+    }
+
+    /**
+     * This method is used to set connection parameters of BLE link. Bulk parameters of the profile are used
+     * while session is established and data is exchanged with the device, idle parameters are used while
+     * device is connecting to the network.
+     * Note : It is applicable only for BLE transport.
+     *
+     * @param profile  Link profile, e.g. BleLinkProfile.PERFORMANCE. Null to use default connection parameters.
+     * @param listener Listener to receive requested / updated link parameters, it can be null.
+     */
+    public void setBleLinkProfile(BleLinkProfile profile, BleLinkListener listener) {
+
+        if (transport instanceof BLETransport) {
+            ((BLETransport) transport).setLinkListener(listener);
+            ((BLETransport) transport).setLinkProfile(profile);
+        }
+    }
+
     /**
      * This method is used to get Wi-Fi access point.
      *
@@ -500,13 +714,17 @@ public class ESPDevice {
 
     /**
      * Send scan command to device to get available Wi-Fi access points.
+     * Scan fails with IllegalStateException if other scan of the device is in progress.
      *
      * @param wifiScanListener WiFiScanListener to get callbacks of scanning networks.
      */
     public void scanNetworks(final WiFiScanListener wifiScanListener) {
 
         Log.d(TAG, "Send Wi-Fi scan command to device");
-        this.wifiScanListener = wifiScanListener;
+        final ScanOperation operation = startScanOperation(wifiScanListener);
+        if (operation == null) {
+            return;
+        }
 
         if (session == null || !session.isEstablished()) {
 
@@ -514,31 +732,33 @@ public class ESPDevice {
 
                 @Override
                 public void onSuccess(byte[] returnData) {
-                    startNetworkScan();
+                    startNetworkScan(operation);
                 }
 
                 @Override
                 public void onFailure(Exception e) {
                     e.printStackTrace();
-                    if (wifiScanListener != null) {
-                        wifiScanListener.onWiFiScanFailed(new RuntimeException("Failed to create session."));
-                    }
+                    operation.onWiFiScanFailed(new RuntimeException("Failed to create session."));
                 }
             });
         } else {
-            startNetworkScan();
+            startNetworkScan(operation);
         }
     }
 
     /**
      * Send scan command to device to get available Thread networks.
+     * Scan fails with IllegalStateException if other scan of the device is in progress.
      *
      * @param wifiScanListener WiFiScanListener to get callbacks of scanning networks.
      */
     public void scanThreadNetworks(final WiFiScanListener wifiScanListener) {
 
         Log.d(TAG, "Send Thread scan command to device");
-        this.wifiScanListener = wifiScanListener;
+        final ScanOperation operation = startScanOperation(wifiScanListener);
+        if (operation == null) {
+            return;
+        }
 
         if (session == null || !session.isEstablished()) {
 
@@ -546,19 +766,17 @@ public class ESPDevice {
 
                 @Override
                 public void onSuccess(byte[] returnData) {
-                    startThreadNetworkScan();
+                    startThreadNetworkScan(operation);
                 }
 
                 @Override
                 public void onFailure(Exception e) {
                     e.printStackTrace();
-                    if (wifiScanListener != null) {
-                        wifiScanListener.onWiFiScanFailed(new RuntimeException("Failed to create session."));
-                    }
+                    operation.onWiFiScanFailed(new RuntimeException("Failed to create session."));
                 }
             });
         } else {
-            startThreadNetworkScan();
+            startThreadNetworkScan(operation);
         }
     }
 
@@ -571,8 +789,6 @@ public class ESPDevice {
      */
     public void sendDataToCustomEndPoint(final String path, final byte[] data, final ResponseListener listener) {
 
-        this.responseListener = listener;
-
         if (session == null || !session.isEstablished()) {
 
             initSession(new ResponseListener() {
@@ -585,8 +801,8 @@ public class ESPDevice {
                 @Override
                 public void onFailure(Exception e) {
                     e.printStackTrace();
-                    if (responseListener != null) {
-                        responseListener.onFailure(e);
+                    if (listener != null) {
+                        listener.onFailure(e);
                     }
                 }
             });
@@ -597,6 +813,7 @@ public class ESPDevice {
 
     /**
      * Send Wi-Fi credentials to device for provisioning.
+     * Provisioning fails with IllegalStateException if the device is being provisioned already.
      *
      * @param ssid              SSID of the Wi-Fi which is to be configure in device.
      * @param passphrase        Password of the Wi-Fi which is to be configure in device.
@@ -604,7 +821,10 @@ public class ESPDevice {
      */
     public void provision(final String ssid, final String passphrase, final ProvisionListener provisionListener) {
 
-        this.provisionListener = provisionListener;
+        final ProvisionOperation operation = startProvisionOperation(provisionListener);
+        if (operation == null) {
+            return;
+        }
 
         if (session == null || !session.isEstablished()) {
 
@@ -612,32 +832,34 @@ public class ESPDevice {
 
                 @Override
                 public void onSuccess(byte[] returnData) {
-                    sendWiFiConfig(ssid, passphrase, provisionListener);
+                    sendWiFiConfig(ssid, passphrase, operation);
                 }
 
                 @Override
                 public void onFailure(Exception e) {
                     e.printStackTrace();
                     disableOnlyWifiNetwork();
-                    if (provisionListener != null) {
-                        provisionListener.createSessionFailed(new RuntimeException("Failed to create session."));
-                    }
+                    operation.createSessionFailed(new RuntimeException("Failed to create session."));
                 }
             });
         } else {
-            sendWiFiConfig(ssid, passphrase, provisionListener);
+            sendWiFiConfig(ssid, passphrase, operation);
         }
     }
 
     /**
      * Send Thread credentials to device for provisioning.
+     * Provisioning fails with IllegalStateException if the device is being provisioned already.
      *
      * @param activeDataset     Thread dataset of a thread network which is to be configure in device.
      * @param provisionListener Listener for provisioning callbacks.
      */
     public void provision(final String activeDataset, final ProvisionListener provisionListener) {
 
-        this.provisionListener = provisionListener;
+        final ProvisionOperation operation = startProvisionOperation(provisionListener);
+        if (operation == null) {
+            return;
+        }
 
         if (session == null || !session.isEstablished()) {
 
@@ -645,71 +867,391 @@ public class ESPDevice {
 
                 @Override
                 public void onSuccess(byte[] returnData) {
-                    sendThreadConfig(activeDataset, provisionListener);
+                    sendThreadConfig(activeDataset, operation);
                 }
 
                 @Override
                 public void onFailure(Exception e) {
                     e.printStackTrace();
                     disableOnlyWifiNetwork();
-                    if (provisionListener != null) {
-                        provisionListener.createSessionFailed(new RuntimeException("Failed to create session."));
-                    }
+                    operation.createSessionFailed(new RuntimeException("Failed to create session."));
                 }
             });
         } else {
-            sendThreadConfig(activeDataset, provisionListener);
+            sendThreadConfig(activeDataset, operation);
         }
     }
 
-    public void initSession(final ResponseListener listener) {
+    /**
+     * This method is used to establish session with the device.
+     *
+     * @return Future which is completed when session is established.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<Void> initSessionAsync() {
+        return initSessionAsync(null);
+    }
 
-        try {
-            JSONObject jsonObject = new JSONObject(getVersionInfo());
-            JSONObject provInfo = jsonObject.getJSONObject("prov");
-            deviceCapabilities = getDeviceCapabilities();
-            Log.d(TAG, "Capabilities : " + deviceCapabilities);
-            if (deviceCapabilities != null && deviceCapabilities.contains("no_pop")) {
-                proofOfPossession = "";
-            }
-
-            String deviceVersion = provInfo.getString("ver");
-            Log.d(TAG, "Device Version : " + deviceVersion);
-            Log.d(TAG, "sec_ver value : " + provInfo.optInt("sec_ver"));
-            Log.d(TAG, "Has sec_ver key : " + provInfo.has("sec_ver"));
-            Log.d(TAG, "Has sec_patch_ver key : " + provInfo.has("sec_patch_ver"));
-            Log.d(TAG, "POP : " + proofOfPossession);
-            
-            if (provInfo.has("sec_ver")) {
-
-                int serVer = provInfo.optInt("sec_ver");
-                Log.d(TAG, "Security Version : " + serVer);
-
-                switch (serVer) {
-                    case 0:
-                        securityType = ESPConstants.SecurityType.SECURITY_0;
-                        break;
-                    case 1:
-                        securityType = ESPConstants.SecurityType.SECURITY_1;
-                        break;
-                    case 2:
-                    default:
-                        securityType = ESPConstants.SecurityType.SECURITY_2;
-                        if (provInfo.has("sec_patch_ver")) {
-                            secPatchVersion = provInfo.optInt("sec_patch_ver");
-                            Log.d(TAG, "Security Patch Version : " + secPatchVersion);
-                        }
-                        break;
+    /**
+     * This method is used to establish session with the device.
+     *
+     * @param executor Executor on which future is completed. If it is null, future is completed on callback thread.
+     * @return Future which is completed when session is established.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<Void> initSessionAsync(final Executor executor) {
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        initSession(new ResponseListener() {
+
+            @Override
+            public void onSuccess(byte[] returnData) {
+                completeFuture(future, null, null, executor);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                completeFuture(future, null, e, executor);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * This method is used to scan Wi-Fi networks available to the device.
+     *
+     * @return Future which is completed with list of Wi-Fi networks.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<ArrayList<WiFiAccessPoint>> scanNetworksAsync() {
+        return scanNetworksAsync(null);
+    }
+
+    /**
+     * This method is used to scan Wi-Fi networks available to the device.
+     *
+     * @param executor Executor on which future is completed. If it is null, future is completed on callback thread.
+     * @return Future which is completed with list of Wi-Fi networks.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<ArrayList<WiFiAccessPoint>> scanNetworksAsync(final Executor executor) {
+
+        CompletableFuture<ArrayList<WiFiAccessPoint>> future = new CompletableFuture<>();
+        scanNetworks(getScanListener(future, executor));
+        return future;
+    }
+
+    /**
+     * This method is used to scan Thread networks available to the device.
+     *
+     * @return Future which is completed with list of Thread networks.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<ArrayList<WiFiAccessPoint>> scanThreadNetworksAsync() {
+        return scanThreadNetworksAsync(null);
+    }
+
+    /**
+     * This method is used to scan Thread networks available to the device.
+     *
+     * @param executor Executor on which future is completed. If it is null, future is completed on callback thread.
+     * @return Future which is completed with list of Thread networks.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<ArrayList<WiFiAccessPoint>> scanThreadNetworksAsync(final Executor executor) {
+
+        CompletableFuture<ArrayList<WiFiAccessPoint>> future = new CompletableFuture<>();
+        scanThreadNetworks(getScanListener(future, executor));
+        return future;
+    }
+
+    /**
+     * This method is used to send data to custom endpoint of the device.
+     *
+     * @param path Custom endpoint path.
+     * @param data Data to be sent.
+     * @return Future which is completed with response of the device.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<byte[]> sendAsync(String path, byte[] data) {
+        return sendAsync(path, data, null);
+    }
+
+    /**
+     * This method is used to send data to custom endpoint of the device.
+     *
+     * @param path     Custom endpoint path.
+     * @param data     Data to be sent.
+     * @param executor Executor on which future is completed. If it is null, future is completed on callback thread.
+     * @return Future which is completed with response of the device.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<byte[]> sendAsync(String path, byte[] data, final Executor executor) {
+
+        final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        sendDataToCustomEndPoint(path, data, new ResponseListener() {
+
+            @Override
+            public void onSuccess(byte[] returnData) {
+                completeFuture(future, returnData, null, executor);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                completeFuture(future, null, e, executor);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * This method is used to provision the device with Wi-Fi credentials.
+     * Cancelling the future (or completing it with timeout) stops polling of provisioning status.
+     *
+     * @param ssid       Wi-Fi SSID.
+     * @param passphrase Wi-Fi Password.
+     * @return Future which is completed when device is connected to the Wi-Fi network.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<Void> provisionAsync(String ssid, String passphrase) {
+        return provisionAsync(ssid, passphrase, null);
+    }
+
+    /**
+     * This method is used to provision the device with Wi-Fi credentials.
+     * Cancelling the future (or completing it with timeout) stops polling of provisioning status.
+     *
+     * @param ssid       Wi-Fi SSID.
+     * @param passphrase Wi-Fi Password.
+     * @param executor   Executor on which future is completed. If it is null, future is completed on callback thread.
+     * @return Future which is completed when device is connected to the Wi-Fi network.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<Void> provisionAsync(String ssid, String passphrase, Executor executor) {
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        provision(ssid, passphrase, getProvisionListener(future, executor));
+        return future;
+    }
+
+    /**
+     * This method is used to provision the device with Thread network.
+     * Cancelling the future (or completing it with timeout) stops polling of provisioning status.
+     *
+     * @param activeDataset Thread network dataset.
+     * @return Future which is completed when device is attached to the Thread network.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<Void> provisionThreadAsync(String activeDataset) {
+        return provisionThreadAsync(activeDataset, null);
+    }
+
+    /**
+     * This method is used to provision the device with Thread network.
+     * Cancelling the future (or completing it with timeout) stops polling of provisioning status.
+     *
+     * @param activeDataset Thread network dataset.
+     * @param executor      Executor on which future is completed. If it is null, future is completed on callback thread.
+     * @return Future which is completed when device is attached to the Thread network.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public CompletableFuture<Void> provisionThreadAsync(String activeDataset, Executor executor) {
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        provision(activeDataset, getProvisionListener(future, executor));
+        return future;
+    }
+
+    /**
+     * This method is used to complete the future exceptionally with TimeoutException, if it is not completed in given time.
+     * Timeout task runs on executor of the device and it is removed once future is completed.
+     *
+     * @param future    Future returned by async method.
+     * @param timeoutMs Timeout in milliseconds.
+     * @return Same future.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public <T> CompletableFuture<T> withTimeout(final CompletableFuture<T> future, long timeoutMs) {
+
+        ScheduledExecutorService scheduledExecutor = executor;
+        if (scheduledExecutor == null) {
+            scheduledExecutor = getDefaultExecutor();
+        }
+
+        final ScheduledFuture<?> timeoutTask = scheduledExecutor.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                future.completeExceptionally(new TimeoutException("Operation timed out"));
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+
+        future.whenComplete(new BiConsumer<T, Throwable>() {
+
+            @Override
+            public void accept(T result, Throwable throwable) {
+                timeoutTask.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    private WiFiScanListener getScanListener(final CompletableFuture<ArrayList<WiFiAccessPoint>> future, final Executor executor) {
+
+        return new WiFiScanListener() {
+
+            @Override
+            public void onWifiListReceived(ArrayList<WiFiAccessPoint> wifiList) {
+                completeFuture(future, wifiList, null, executor);
+            }
+
+            @Override
+            public void onWiFiScanFailed(Exception e) {
+                completeFuture(future, null, e, executor);
+            }
+        };
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    private ProvisionListener getProvisionListener(final CompletableFuture<Void> future, final Executor executor) {
+
+        final ProvisionListener listener = new ProvisionListener() {
+
+            @Override
+            public void createSessionFailed(Exception e) {
+                completeFuture(future, null, e, executor);
+            }
+
+            @Override
+            public void wifiConfigSent() {
+            }
+
+            @Override
+            public void wifiConfigFailed(Exception e) {
+                completeFuture(future, null, e, executor);
+            }
+
+            @Override
+            public void wifiConfigApplied() {
+            }
+
+            @Override
+            public void wifiConfigApplyFailed(Exception e) {
+                completeFuture(future, null, e, executor);
+            }
+
+            @Override
+            public void provisioningFailedFromDevice(ESPConstants.ProvisionFailureReason failureReason) {
+                completeFuture(future, null, new RuntimeException("Provisioning failed from device : " + failureReason), executor);
+            }
+
+            @Override
+            public void deviceProvisioningSuccess() {
+                completeFuture(future, null, null, executor);
+            }
+
+            @Override
+            public void onProvisioningFailed(Exception e) {
+                completeFuture(future, null, e, executor);
+            }
+        };
+
+        future.whenComplete(new BiConsumer<Void, Throwable>() {
+
+            @Override
+            public void accept(Void result, Throwable throwable) {
+                if (throwable != null) {
+                    // e.g. Future is cancelled or timed out.
+                    cancelProvisionOperation(listener);
                 }
-            } else {
-                Log.e(TAG, "Older firmware as Sec version not found.");
-                if (securityType == ESPConstants.SecurityType.SECURITY_2) {
-                    securityType = ESPConstants.SecurityType.SECURITY_1;
+            }
+        });
+        return listener;
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    private static <T> void completeFuture(final CompletableFuture<T> future, final T result, final Exception e, Executor executor) {
+
+        Runnable completion = new Runnable() {
+
+            @Override
+            public void run() {
+                if (e == null) {
+                    future.complete(result);
+                } else {
+                    future.completeExceptionally(e);
                 }
             }
-        } catch (JSONException e) {
-            e.printStackTrace();
-            Log.d(TAG, "Capabilities JSON not available.");
+        };
+
+        if (executor == null) {
+            completion.run();
+            return;
+        }
+
+        try {
+            executor.execute(completion);
+        } catch (RejectedExecutionException rejectedException) {
+            completion.run();
+        }
+    }
+
+    public void initSession(final ResponseListener listener) {
+
+        synchronized (sessionInitListeners) {
+            sessionInitListeners.add(listener);
+            if (sessionInitListeners.size() > 1) {
+                Log.d(TAG, "Session init is already in progress");
+                return;
+            }
+        }
+
+        setBleLinkMode(BleLinkProfile.LinkMode.BULK);
+
+        DeviceInfo info = getDeviceInfo();
+        if (info == null) {
+            info = DeviceInfo.parse(null);
+        }
+        Log.d(TAG, "Capabilities : " + info.getCapabilities());
+        if (info.hasCapability(DeviceInfo.CAPABILITY_BIT_NO_POP)) {
+            proofOfPossession = "";
+        }
+
+        Log.d(TAG, "Device Version : " + info.getVersion());
+        Log.d(TAG, "POP : " + proofOfPossession);
+
+        if (!info.hasProvisioningInfo()) {
+            Log.d(TAG, "Capabilities JSON not available.");
+
+        } else if (info.hasSecurityVersion()) {
+
+            int serVer = info.getSecurityVersion();
+            Log.d(TAG, "Security Version : " + serVer);
+
+            switch (serVer) {
+                case 0:
+                    securityType = ESPConstants.SecurityType.SECURITY_0;
+                    break;
+                case 1:
+                    securityType = ESPConstants.SecurityType.SECURITY_1;
+                    break;
+                case 2:
+                default:
+                    securityType = ESPConstants.SecurityType.SECURITY_2;
+                    if (info.getSecurityPatchVersion() != DeviceInfo.VERSION_NOT_AVAILABLE) {
+                        secPatchVersion = info.getSecurityPatchVersion();
+                        Log.d(TAG, "Security Patch Version : " + secPatchVersion);
+                    }
+                    break;
+            }
+        } else {
+            Log.e(TAG, "Older firmware as Sec version not found.");
+            if (securityType == ESPConstants.SecurityType.SECURITY_2) {
+                securityType = ESPConstants.SecurityType.SECURITY_1;
+            }
         }
 
         try {
@@ -732,27 +1274,63 @@ public class ESPDevice {
             }
 
             session = new Session(transport, security);
+            session.setDeviceId(getDeviceId());
 
             session.init(null, new Session.SessionListener() {
 
                 @Override
                 public void OnSessionEstablished() {
-                    listener.onSuccess(null);
+                    notifySessionInitListeners(null);
                 }
 
                 @Override
                 public void OnSessionEstablishFailed(Exception e) {
-                    listener.onFailure(e);
+                    invalidateEndpointCache();
+                    notifySessionInitListeners(e);
                 }
             });
         } catch (Exception e) {
             e.printStackTrace();
-            listener.onFailure(e);
+            invalidateEndpointCache();
+            notifySessionInitListeners(e);
+        }
+    }
+
+    /**
+     * Cached version info of BLE device can be stale after firmware update, so it is read again on next connection.
+     */
+    private void invalidateEndpointCache() {
+
+        if (transport instanceof BLETransport) {
+            ((BLETransport) transport).invalidateEndpointCache();
+        }
+    }
+
+    private void notifySessionInitListeners(Exception e) {
+
+        ArrayList<ResponseListener> listeners;
+
+        synchronized (sessionInitListeners) {
+            listeners = new ArrayList<>(sessionInitListeners);
+            sessionInitListeners.clear();
+        }
+
+        for (ResponseListener listener : listeners) {
+            if (listener == null) {
+                continue;
+            }
+            if (e == null) {
+                listener.onSuccess(null);
+            } else {
+                listener.onFailure(e);
+            }
         }
     }
 
     private void sendData(final String path, byte[] data, final ResponseListener listener) {
 
+        setBleLinkMode(BleLinkProfile.LinkMode.BULK);
+
         session.sendDataToDevice(path, data, new ResponseListener() {
 
             @Override
@@ -772,30 +1350,37 @@ public class ESPDevice {
         });
     }
 
-    private void startNetworkScan() {
+    private void startNetworkScan(final WiFiScanListener wifiScanListener) {
 
         totalCount = 0;
         startIndex = 0;
+        scanPageSize = getScanPageSize();
         wifiApList = new ArrayList<>();
+        wifiApIndex = new HashMap<>();
         byte[] scanCommand = MessengeHelper.prepareWiFiScanMsg();
 
+        final long startTime = ProvisioningMetrics.startTimer();
         session.sendDataToDevice(ESPConstants.HANDLER_PROV_SCAN, scanCommand, new ResponseListener() {
 
             @Override
             public void onSuccess(byte[] returnData) {
 
+                recordPhase(ProvisioningPhase.SCAN_START, startTime, true);
                 processStartScanResponse(returnData);
 
+                final long statusStartTime = ProvisioningMetrics.startTimer();
                 byte[] getScanStatusCmd = MessengeHelper.prepareGetWiFiScanStatusMsg();
                 session.sendDataToDevice(ESPConstants.HANDLER_PROV_SCAN, getScanStatusCmd, new ResponseListener() {
 
                     @Override
                     public void onSuccess(byte[] returnData) {
-                        processWifiStatusResponse(returnData);
+                        recordPhase(ProvisioningPhase.SCAN_STATUS, statusStartTime, true);
+                        processWifiStatusResponse(returnData, wifiScanListener);
                     }
 
                     @Override
                     public void onFailure(Exception e) {
+                        recordPhase(ProvisioningPhase.SCAN_STATUS, statusStartTime, false);
                         e.printStackTrace();
                         if (wifiScanListener != null) {
                             wifiScanListener.onWiFiScanFailed(new RuntimeException("Failed to send Wi-Fi scan command."));
@@ -806,6 +1391,7 @@ public class ESPDevice {
 
             @Override
             public void onFailure(Exception e) {
+                recordPhase(ProvisioningPhase.SCAN_START, startTime, false);
                 e.printStackTrace();
                 if (wifiScanListener != null) {
                     wifiScanListener.onWiFiScanFailed(new RuntimeException("Failed to send Wi-Fi scan command."));
@@ -814,31 +1400,38 @@ public class ESPDevice {
         });
     }
 
-    private void startThreadNetworkScan() {
+    private void startThreadNetworkScan(final WiFiScanListener wifiScanListener) {
 
         Log.d(TAG, "Start thread network scan");
         totalCount = 0;
         startIndex = 0;
+        scanPageSize = getScanPageSize();
         wifiApList = new ArrayList<>();
+        wifiApIndex = new HashMap<>();
         byte[] scanCommand = MessengeHelper.prepareThreadScanMsg();
 
+        final long startTime = ProvisioningMetrics.startTimer();
         session.sendDataToDevice(ESPConstants.HANDLER_PROV_SCAN, scanCommand, new ResponseListener() {
 
             @Override
             public void onSuccess(byte[] returnData) {
 
+                recordPhase(ProvisioningPhase.SCAN_START, startTime, true);
                 processStartThreadScanResponse(returnData);
 
+                final long statusStartTime = ProvisioningMetrics.startTimer();
                 byte[] getScanStatusCmd = MessengeHelper.prepareGetThreadScanStatusMsg();
                 session.sendDataToDevice(ESPConstants.HANDLER_PROV_SCAN, getScanStatusCmd, new ResponseListener() {
 
                     @Override
                     public void onSuccess(byte[] returnData) {
-                        processThreadStatusResponse(returnData);
+                        recordPhase(ProvisioningPhase.SCAN_STATUS, statusStartTime, true);
+                        processThreadStatusResponse(returnData, wifiScanListener);
                     }
 
                     @Override
                     public void onFailure(Exception e) {
+                        recordPhase(ProvisioningPhase.SCAN_STATUS, statusStartTime, false);
                         e.printStackTrace();
                         if (wifiScanListener != null) {
                             wifiScanListener.onWiFiScanFailed(new RuntimeException("Failed to send thread scan command."));
@@ -849,6 +1442,7 @@ public class ESPDevice {
 
             @Override
             public void onFailure(Exception e) {
+                recordPhase(ProvisioningPhase.SCAN_START, startTime, false);
                 e.printStackTrace();
                 if (wifiScanListener != null) {
                     wifiScanListener.onWiFiScanFailed(new RuntimeException("Failed to send thread scan command."));
@@ -857,80 +1451,74 @@ public class ESPDevice {
         });
     }
 
-    private void getFullWiFiList() {
+    private void getFullWiFiList(final WiFiScanListener wifiScanListener) {
 
         Log.d(TAG, "Total count : " + totalCount + " and start index is : " + startIndex);
+        int remaining = totalCount - startIndex;
 
-        if (totalCount < 4) {
-
-            getWiFiScanList(0, totalCount);
-
+        if (remaining > 0) {
+            getWiFiScanList(startIndex, Math.min(remaining, scanPageSize), wifiScanListener);
         } else {
-
-            int temp = totalCount - startIndex;
-
-            if (temp > 0) {
-
-                if (temp > 4) {
-                    getWiFiScanList(startIndex, 4);
-                } else {
-                    getWiFiScanList(startIndex, temp);
-                }
-
-            } else {
-                Log.d(TAG, "Nothing to do. Wifi list completed.");
-                completeWifiList();
-            }
+            Log.d(TAG, "Nothing to do. Wifi list completed.");
+            completeWifiList(wifiScanListener);
         }
     }
 
-    private void getFullThreadList() {
+    private void getFullThreadList(final WiFiScanListener wifiScanListener) {
 
         Log.d(TAG, "Total count : " + totalCount + " and start index is : " + startIndex);
+        int remaining = totalCount - startIndex;
 
-        if (totalCount < 4) {
-
-            getThreadScanList(0, totalCount);
-
+        if (remaining > 0) {
+            getThreadScanList(startIndex, Math.min(remaining, scanPageSize), wifiScanListener);
         } else {
+            Log.d(TAG, "Nothing to do. Thread list completed.");
+            completeWifiList(wifiScanListener);
+        }
+    }
 
-            int temp = totalCount - startIndex;
-
-            if (temp > 0) {
+    /**
+     * Number of networks to request from the device in one scan list request.
+     * For BLE, page size is chosen so that response fits in one ATT read.
+     */
+    private int getScanPageSize() {
 
-                if (temp > 4) {
-                    getThreadScanList(startIndex, 4);
-                } else {
-                    getThreadScanList(startIndex, temp);
-                }
+        int pageSize;
 
-            } else {
-                Log.d(TAG, "Nothing to do. Thread list completed.");
-                completeWifiList();
-            }
+        if (transport instanceof BLETransport) {
+            int mtu = ((BLETransport) transport).getMtu();
+            pageSize = Math.max(DEFAULT_SCAN_PAGE_SIZE, (mtu - 1 - SCAN_RESULT_OVERHEAD) / SCAN_RESULT_ENTRY_SIZE);
+        } else {
+            pageSize = MAX_SCAN_PAGE_SIZE;
         }
+        pageSize = Math.min(pageSize, scanPageSizeLimit);
+        Log.d(TAG, "Scan page size : " + pageSize);
+        return pageSize;
     }
 
-    private void getWiFiScanList(int start, int count) {
+    private void getWiFiScanList(int start, int count, final WiFiScanListener wifiScanListener) {
 
         Log.d(TAG, "Getting " + count + " SSIDs");
 
         if (count <= 0) {
-            completeWifiList();
+            completeWifiList(wifiScanListener);
             return;
         }
 
         byte[] data = MessengeHelper.prepareGetWiFiScanListMsg(start, count);
+        final long startTime = ProvisioningMetrics.startTimer();
         session.sendDataToDevice(ESPConstants.HANDLER_PROV_SCAN, data, new ResponseListener() {
 
             @Override
             public void onSuccess(byte[] returnData) {
+                recordPhase(ProvisioningPhase.SCAN_PAGE, startTime, true);
                 Log.d(TAG, "Successfully got SSID list");
-                processGetSSIDs(returnData);
+                processGetSSIDs(returnData, wifiScanListener);
             }
 
             @Override
             public void onFailure(Exception e) {
+                recordPhase(ProvisioningPhase.SCAN_PAGE, startTime, false);
                 e.printStackTrace();
                 if (wifiScanListener != null) {
                     wifiScanListener.onWiFiScanFailed(new RuntimeException("Failed to get Wi-Fi Networks."));
@@ -939,26 +1527,29 @@ public class ESPDevice {
         });
     }
 
-    private void getThreadScanList(int start, int count) {
+    private void getThreadScanList(int start, int count, final WiFiScanListener wifiScanListener) {
 
         Log.d(TAG, "Getting " + count + " Thread networks");
 
         if (count <= 0) {
-            completeWifiList();
+            completeWifiList(wifiScanListener);
             return;
         }
 
         byte[] data = MessengeHelper.prepareGetThreadScanListMsg(start, count);
+        final long startTime = ProvisioningMetrics.startTimer();
         session.sendDataToDevice(ESPConstants.HANDLER_PROV_SCAN, data, new ResponseListener() {
 
             @Override
             public void onSuccess(byte[] returnData) {
+                recordPhase(ProvisioningPhase.SCAN_PAGE, startTime, true);
                 Log.d(TAG, "Successfully got thread networks");
-                processGetThreadNetworks(returnData);
+                processGetThreadNetworks(returnData, wifiScanListener);
             }
 
             @Override
             public void onFailure(Exception e) {
+                recordPhase(ProvisioningPhase.SCAN_PAGE, startTime, false);
                 e.printStackTrace();
                 if (wifiScanListener != null) {
                     wifiScanListener.onWiFiScanFailed(new RuntimeException("Failed to get Thread Networks."));
@@ -967,7 +1558,7 @@ public class ESPDevice {
         });
     }
 
-    private void completeWifiList() {
+    private void completeWifiList(WiFiScanListener wifiScanListener) {
 
         if (wifiScanListener != null) {
             wifiScanListener.onWifiListReceived(wifiApList);
@@ -978,11 +1569,13 @@ public class ESPDevice {
 
         byte[] scanCommand = MessengeHelper.prepareWiFiConfigMsg(ssid, passphrase);
 
+        final long startTime = ProvisioningMetrics.startTimer();
         session.sendDataToDevice(ESPConstants.HANDLER_PROV_CONFIG, scanCommand, new ResponseListener() {
 
             @Override
             public void onSuccess(byte[] returnData) {
 
+                recordPhase(ProvisioningPhase.CONFIG_SEND, startTime, true);
                 Constants.Status status = processWifiConfigResponse(returnData);
                 if (provisionListener != null) {
                     if (status != Constants.Status.Success) {
@@ -993,7 +1586,7 @@ public class ESPDevice {
                 }
 
                 if (status == Constants.Status.Success) {
-                    applyWiFiConfig();
+                    applyWiFiConfig(provisionListener);
                 } else {
                     disableOnlyWifiNetwork();
                 }
@@ -1001,6 +1594,7 @@ public class ESPDevice {
 
             @Override
             public void onFailure(Exception e) {
+                recordPhase(ProvisioningPhase.CONFIG_SEND, startTime, false);
                 e.printStackTrace();
                 disableOnlyWifiNetwork();
                 if (provisionListener != null) {
@@ -1014,11 +1608,13 @@ public class ESPDevice {
 
         byte[] scanCommand = MessengeHelper.prepareThreadConfigMsg(activeDataset);
 
+        final long startTime = ProvisioningMetrics.startTimer();
         session.sendDataToDevice(ESPConstants.HANDLER_PROV_CONFIG, scanCommand, new ResponseListener() {
 
             @Override
             public void onSuccess(byte[] returnData) {
 
+                recordPhase(ProvisioningPhase.CONFIG_SEND, startTime, true);
                 Constants.Status status = processThreadConfigResponse(returnData);
                 if (provisionListener != null) {
                     if (status != Constants.Status.Success) {
@@ -1029,7 +1625,7 @@ public class ESPDevice {
                 }
 
                 if (status == Constants.Status.Success) {
-                    applyThreadConfig();
+                    applyThreadConfig(provisionListener);
                 } else {
                     disableOnlyWifiNetwork();
                 }
@@ -1037,6 +1633,7 @@ public class ESPDevice {
 
             @Override
             public void onFailure(Exception e) {
+                recordPhase(ProvisioningPhase.CONFIG_SEND, startTime, false);
                 e.printStackTrace();
                 disableOnlyWifiNetwork();
                 if (provisionListener != null) {
@@ -1046,15 +1643,17 @@ public class ESPDevice {
         });
     }
 
-    private void applyWiFiConfig() {
+    private void applyWiFiConfig(final ProvisionListener provisionListener) {
 
         byte[] scanCommand = MessengeHelper.prepareApplyWiFiConfigMsg();
 
+        final long startTime = ProvisioningMetrics.startTimer();
         session.sendDataToDevice(ESPConstants.HANDLER_PROV_CONFIG, scanCommand, new ResponseListener() {
 
             @Override
             public void onSuccess(byte[] returnData) {
 
+                recordPhase(ProvisioningPhase.CONFIG_APPLY, startTime, true);
                 Constants.Status status = processApplyConfigResponse(returnData);
 
                 if (status == Constants.Status.Success) {
@@ -1062,12 +1661,7 @@ public class ESPDevice {
                         provisionListener.wifiConfigApplied();
                     }
 
-                    try {
-                        Thread.sleep(2000);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                    pollForWifiConnectionStatus();
+                    startStatusPolling(false, provisionListener);
                 } else {
                     disableOnlyWifiNetwork();
                     if (provisionListener != null) {
@@ -1078,6 +1672,7 @@ public class ESPDevice {
 
             @Override
             public void onFailure(Exception e) {
+                recordPhase(ProvisioningPhase.CONFIG_APPLY, startTime, false);
                 e.printStackTrace();
                 disableOnlyWifiNetwork();
                 if (provisionListener != null) {
@@ -1087,15 +1682,17 @@ public class ESPDevice {
         });
     }
 
-    private void applyThreadConfig() {
+    private void applyThreadConfig(final ProvisionListener provisionListener) {
 
         byte[] scanCommand = MessengeHelper.prepareApplyThreadConfigMsg();
 
+        final long startTime = ProvisioningMetrics.startTimer();
         session.sendDataToDevice(ESPConstants.HANDLER_PROV_CONFIG, scanCommand, new ResponseListener() {
 
             @Override
             public void onSuccess(byte[] returnData) {
 
+                recordPhase(ProvisioningPhase.CONFIG_APPLY, startTime, true);
                 Constants.Status status = processApplyThreadConfigResponse(returnData);
 
                 if (status == Constants.Status.Success) {
@@ -1103,12 +1700,7 @@ public class ESPDevice {
                         provisionListener.wifiConfigApplied();
                     }
 
-                    try {
-                        Thread.sleep(2000);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                    pollForThreadConnectionStatus();
+                    startStatusPolling(true, provisionListener);
                 } else {
                     disableOnlyWifiNetwork();
                     if (provisionListener != null) {
@@ -1119,6 +1711,7 @@ public class ESPDevice {
 
             @Override
             public void onFailure(Exception e) {
+                recordPhase(ProvisioningPhase.CONFIG_APPLY, startTime, false);
                 e.printStackTrace();
                 disableOnlyWifiNetwork();
                 if (provisionListener != null) {
@@ -1128,18 +1721,31 @@ public class ESPDevice {
         });
     }
 
-    private void pollForWifiConnectionStatus() {
+    private void pollForWifiConnectionStatus(final ProvisionListener provisionListener) {
+
+        // Polls run on executor, session can be cleared by disconnectDevice() at any time.
+        final Session currentSession = session;
+        final PollScheduler poller = statusPoller;
+        if (currentSession == null || poller == null || poller.isCancelled()) {
+            return;
+        }
 
         byte[] message = MessengeHelper.prepareGetWiFiConfigStatusMsg();
-        session.sendDataToDevice(ESPConstants.HANDLER_PROV_CONFIG, message, new ResponseListener() {
+        final long startTime = ProvisioningMetrics.startTimer();
+        currentSession.sendDataToDevice(ESPConstants.HANDLER_PROV_CONFIG, message, new ResponseListener() {
 
             @Override
             public void onSuccess(byte[] returnData) {
 
+                recordPhase(ProvisioningPhase.STATUS_POLL, startTime, true);
                 Object[] statuses = processProvisioningStatusResponse(returnData);
                 NetworkConstants.WifiStationState wifiStationState = (NetworkConstants.WifiStationState) statuses[0];
                 NetworkConstants.WifiConnectFailedReason failedReason = (NetworkConstants.WifiConnectFailedReason) statuses[1];
 
+                if (wifiStationState != NetworkConstants.WifiStationState.Connecting) {
+                    poller.cancel();
+                }
+
                 if (wifiStationState == NetworkConstants.WifiStationState.Connected) {
 
                     // Provision success
@@ -1160,15 +1766,8 @@ public class ESPDevice {
 
                 } else if (wifiStationState == NetworkConstants.WifiStationState.Connecting) {
 
-                    try {
-                        sleep(5000);
-                        pollForWifiConnectionStatus();
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                        session = null;
-                        disableOnlyWifiNetwork();
-                        provisionListener.onProvisioningFailed(new RuntimeException("Provisioning Failed"));
-                    }
+                    ProvisioningMetrics.getInstance().recordRetry(getDeviceId(), ProvisioningPhase.STATUS_POLL);
+                    poller.pollAgain();
                 } else {
 
                     if (failedReason == NetworkConstants.WifiConnectFailedReason.AuthError) {
@@ -1189,25 +1788,40 @@ public class ESPDevice {
 
             @Override
             public void onFailure(Exception e) {
+                recordPhase(ProvisioningPhase.STATUS_POLL, startTime, false);
                 e.printStackTrace();
+                poller.cancel();
                 disableOnlyWifiNetwork();
                 provisionListener.onProvisioningFailed(new RuntimeException("Provisioning Failed"));
             }
         });
     }
 
-    private void pollForThreadConnectionStatus() {
+    private void pollForThreadConnectionStatus(final ProvisionListener provisionListener) {
+
+        // Polls run on executor, session can be cleared by disconnectDevice() at any time.
+        final Session currentSession = session;
+        final PollScheduler poller = statusPoller;
+        if (currentSession == null || poller == null || poller.isCancelled()) {
+            return;
+        }
 
         byte[] message = MessengeHelper.prepareGetThreadConfigStatusMsg();
-        session.sendDataToDevice(ESPConstants.HANDLER_PROV_CONFIG, message, new ResponseListener() {
+        final long startTime = ProvisioningMetrics.startTimer();
+        currentSession.sendDataToDevice(ESPConstants.HANDLER_PROV_CONFIG, message, new ResponseListener() {
 
             @Override
             public void onSuccess(byte[] returnData) {
 
+                recordPhase(ProvisioningPhase.STATUS_POLL, startTime, true);
                 Object[] statuses = processThreadProvisioningStatusResponse(returnData);
                 NetworkConstants.ThreadNetworkState threadNetworkState = (NetworkConstants.ThreadNetworkState) statuses[0];
                 NetworkConstants.ThreadAttachFailedReason failedReason = (NetworkConstants.ThreadAttachFailedReason) statuses[1];
 
+                if (threadNetworkState != NetworkConstants.ThreadNetworkState.Attaching) {
+                    poller.cancel();
+                }
+
                 if (threadNetworkState == NetworkConstants.ThreadNetworkState.Attached) {
 
                     // Provision success
@@ -1228,15 +1842,8 @@ public class ESPDevice {
 
                 } else if (threadNetworkState == NetworkConstants.ThreadNetworkState.Attaching) {
 
-                    try {
-                        sleep(5000);
-                        pollForThreadConnectionStatus();
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                        session = null;
-                        disableOnlyWifiNetwork();
-                        provisionListener.onProvisioningFailed(new RuntimeException("Provisioning Failed"));
-                    }
+                    ProvisioningMetrics.getInstance().recordRetry(getDeviceId(), ProvisioningPhase.STATUS_POLL);
+                    poller.pollAgain();
                 } else {
 
                     if (failedReason == NetworkConstants.ThreadAttachFailedReason.DatasetInvalid) {
@@ -1257,7 +1864,9 @@ public class ESPDevice {
 
             @Override
             public void onFailure(Exception e) {
+                recordPhase(ProvisioningPhase.STATUS_POLL, startTime, false);
                 e.printStackTrace();
+                poller.cancel();
                 disableOnlyWifiNetwork();
                 provisionListener.onProvisioningFailed(new RuntimeException("Provisioning Failed"));
             }
@@ -1290,7 +1899,7 @@ public class ESPDevice {
         }
     }
 
-    private void processWifiStatusResponse(byte[] responseData) {
+    private void processWifiStatusResponse(byte[] responseData, WiFiScanListener wifiScanListener) {
 
         Log.d(TAG, "Process Wi-Fi scan status command response");
         try {
@@ -1301,9 +1910,9 @@ public class ESPDevice {
 
             if (scanFinished) {
                 totalCount = response.getResultCount();
-                getFullWiFiList();
-            } else {
-                // TODO Error case
+                getFullWiFiList(wifiScanListener);
+            } else if (wifiScanListener != null) {
+                wifiScanListener.onWiFiScanFailed(new RuntimeException("Wi-Fi scan is not finished."));
             }
 
         } catch (InvalidProtocolBufferException e) {
@@ -1315,7 +1924,7 @@ public class ESPDevice {
         }
     }
 
-    private void processThreadStatusResponse(byte[] responseData) {
+    private void processThreadStatusResponse(byte[] responseData, WiFiScanListener wifiScanListener) {
 
         Log.d(TAG, "Process Thread scan status command response");
         try {
@@ -1326,10 +1935,9 @@ public class ESPDevice {
 
             if (scanFinished) {
                 totalCount = response.getResultCount();
-                getFullThreadList();
-                ;
-            } else {
-                // TODO Error case
+                getFullThreadList(wifiScanListener);
+            } else if (wifiScanListener != null) {
+                wifiScanListener.onWiFiScanFailed(new RuntimeException("Thread scan is not finished."));
             }
 
         } catch (InvalidProtocolBufferException e) {
@@ -1341,7 +1949,7 @@ public class ESPDevice {
         }
     }
 
-    private void processGetSSIDs(byte[] responseData) {
+    private void processGetSSIDs(byte[] responseData, WiFiScanListener wifiScanListener) {
 
         try {
             NetworkScan.NetworkScanPayload payload = NetworkScan.NetworkScanPayload.parseFrom(responseData);
@@ -1354,54 +1962,49 @@ public class ESPDevice {
                 Log.d(TAG, "SSID : " + response.getEntries(i).getSsid().toStringUtf8());
                 String ssid = response.getEntries(i).getSsid().toStringUtf8();
                 int rssi = response.getEntries(i).getRssi();
-                boolean isAvailable = false;
+                WiFiAccessPoint existingAp = wifiApIndex.get(ssid);
 
-                for (int index = 0; index < wifiApList.size(); index++) {
+                if (existingAp != null) {
 
-                    if (ssid.equals(wifiApList.get(index).getWifiName())) {
-
-                        isAvailable = true;
-
-                        if (wifiApList.get(index).getRssi() < rssi) {
-
-                            wifiApList.get(index).setRssi(rssi);
-                        }
-                        break;
+                    if (existingAp.getRssi() < rssi) {
+                        existingAp.setRssi(rssi);
                     }
-                }
-
-                if (!isAvailable) {
+                } else {
 
                     WiFiAccessPoint wifiAp = new WiFiAccessPoint();
                     wifiAp.setWifiName(ssid);
                     wifiAp.setRssi(response.getEntries(i).getRssi());
                     wifiAp.setSecurity(response.getEntries(i).getAuthValue());
                     wifiApList.add(wifiAp);
+                    wifiApIndex.put(ssid, wifiAp);
                 }
 
                 Log.d(TAG, "Size of  list : " + wifiApList.size());
             }
 
-            startIndex = startIndex + 4;
+            startIndex = startIndex + scanPageSize;
 
             int temp = totalCount - startIndex;
 
             if (temp > 0) {
 
-                getFullWiFiList();
+                getFullWiFiList(wifiScanListener);
 
             } else {
 
                 Log.e(TAG, "Wi-Fi LIST Completed");
-                completeWifiList();
+                completeWifiList(wifiScanListener);
             }
         } catch (InvalidProtocolBufferException e) {
 
             e.printStackTrace();
+            if (wifiScanListener != null) {
+                wifiScanListener.onWiFiScanFailed(new RuntimeException("Failed to get Wi-Fi Networks."));
+            }
         }
     }
 
-    private void processGetThreadNetworks(byte[] responseData) {
+    private void processGetThreadNetworks(byte[] responseData, WiFiScanListener wifiScanListener) {
 
         try {
             NetworkScan.NetworkScanPayload payload = NetworkScan.NetworkScanPayload.parseFrom(responseData);
@@ -1414,49 +2017,45 @@ public class ESPDevice {
                 Log.d(TAG, "Network Name : " + response.getEntries(i).getNetworkName());
                 String ssid = response.getEntries(i).getNetworkName();
                 int rssi = response.getEntries(i).getRssi();
-                boolean isAvailable = false;
-
-                for (int index = 0; index < wifiApList.size(); index++) {
+                WiFiAccessPoint existingAp = wifiApIndex.get(ssid);
 
-                    if (ssid.equals(wifiApList.get(index).getWifiName())) {
+                if (existingAp != null) {
 
-                        isAvailable = true;
-
-                        if (wifiApList.get(index).getRssi() < rssi) {
-                            wifiApList.get(index).setRssi(rssi);
-                        }
-                        break;
+                    if (existingAp.getRssi() < rssi) {
+                        existingAp.setRssi(rssi);
                     }
-                }
-
-                if (!isAvailable) {
+                } else {
 
                     WiFiAccessPoint wifiAp = new WiFiAccessPoint();
                     wifiAp.setWifiName(ssid);
                     wifiAp.setRssi(response.getEntries(i).getRssi());
                     wifiAp.setSecurity(0);
                     wifiApList.add(wifiAp);
+                    wifiApIndex.put(ssid, wifiAp);
                 }
 
                 Log.d(TAG, "Size of  list : " + wifiApList.size());
             }
 
-            startIndex = startIndex + 4;
+            startIndex = startIndex + scanPageSize;
 
             int temp = totalCount - startIndex;
 
             if (temp > 0) {
 
-                getFullThreadList();
+                getFullThreadList(wifiScanListener);
 
             } else {
 
                 Log.e(TAG, "Thread LIST Completed");
-                completeWifiList();
+                completeWifiList(wifiScanListener);
             }
         } catch (InvalidProtocolBufferException e) {
 
             e.printStackTrace();
+            if (wifiScanListener != null) {
+                wifiScanListener.onWiFiScanFailed(new RuntimeException("Failed to get Thread Networks."));
+            }
         }
     }
 
@@ -1544,6 +2143,189 @@ public class ESPDevice {
         return new Object[]{threadNetworkState, failedReason};
     }
 
+    private void startStatusPolling(final boolean isThreadNetwork, final ProvisionListener provisionListener) {
+
+        stopStatusPolling();
+
+        ScheduledExecutorService scheduledExecutor = executor;
+        if (scheduledExecutor == null) {
+            scheduledExecutor = getDefaultExecutor();
+        }
+
+        PollScheduler poller = new PollScheduler(scheduledExecutor, new Runnable() {
+
+            @Override
+            public void run() {
+                if (isThreadNetwork) {
+                    pollForThreadConnectionStatus(provisionListener);
+                } else {
+                    pollForWifiConnectionStatus(provisionListener);
+                }
+            }
+        }, new Runnable() {
+
+            @Override
+            public void run() {
+                Log.e(TAG, "Device did not connect to the network in " + statusPollTimeout + " ms");
+                session = null;
+                disableOnlyWifiNetwork();
+                if (provisionListener != null) {
+                    provisionListener.onProvisioningFailed(new RuntimeException("Provisioning timed out"));
+                }
+            }
+        });
+        poller.setTimeout(statusPollTimeout);
+        statusPoller = poller;
+        // Only status is polled while device connects to the network.
+        setBleLinkMode(BleLinkProfile.LinkMode.IDLE);
+        poller.start();
+    }
+
+    private void recordPhase(ProvisioningPhase phase, long startTime, boolean isSuccess) {
+        ProvisioningMetrics.getInstance().recordPhase(getDeviceId(), phase, startTime, isSuccess);
+    }
+
+    /**
+     * Returns Bluetooth address for BLE device and SSID for SoftAP device, used to identify device in metrics.
+     */
+    private String getDeviceId() {
+
+        if (bluetoothDevice != null) {
+            return bluetoothDevice.getAddress();
+        } else if (wifiDevice != null) {
+            return wifiDevice.getWifiName();
+        }
+        return deviceName;
+    }
+
+    private void setBleLinkMode(BleLinkProfile.LinkMode mode) {
+
+        if (transport instanceof BLETransport) {
+            ((BLETransport) transport).setLinkMode(mode);
+        }
+    }
+
+    private void stopStatusPolling() {
+
+        PollScheduler poller = statusPoller;
+        if (poller != null) {
+            poller.cancel();
+        }
+    }
+
+    /**
+     * Starts network scan operation, if no other scan is in progress. Otherwise scan is failed with given listener.
+     *
+     * @return Scan operation or null if other scan is in progress.
+     */
+    private ScanOperation startScanOperation(WiFiScanListener listener) {
+
+        synchronized (this) {
+            if (scanOperation == null) {
+                scanOperation = new ScanOperation(listener);
+                return scanOperation;
+            }
+        }
+
+        Log.e(TAG, "Network scan is already in progress");
+        if (listener != null) {
+            listener.onWiFiScanFailed(new IllegalStateException("Network scan is already in progress."));
+        }
+        return null;
+    }
+
+    private synchronized boolean finishScanOperation(ScanOperation operation) {
+
+        if (scanOperation != operation) {
+            return false;
+        }
+        scanOperation = null;
+        return true;
+    }
+
+    /**
+     * Starts provisioning operation, if device is not being provisioned already. Otherwise provisioning is failed
+     * with given listener.
+     *
+     * @return Provisioning operation or null if other provisioning is in progress.
+     */
+    private ProvisionOperation startProvisionOperation(ProvisionListener listener) {
+
+        synchronized (this) {
+            if (provisionOperation == null) {
+                provisionOperation = new ProvisionOperation(listener);
+                return provisionOperation;
+            }
+        }
+
+        Log.e(TAG, "Provisioning is already in progress");
+        if (listener != null) {
+            listener.onProvisioningFailed(new IllegalStateException("Provisioning is already in progress."));
+        }
+        return null;
+    }
+
+    private synchronized boolean isProvisionOperation(ProvisionOperation operation) {
+        return provisionOperation == operation;
+    }
+
+    private synchronized boolean finishProvisionOperation(ProvisionOperation operation) {
+
+        if (provisionOperation != operation) {
+            return false;
+        }
+        provisionOperation = null;
+        return true;
+    }
+
+    /**
+     * Stops provisioning started with given listener without any callback, if it is still in progress.
+     */
+    private void cancelProvisionOperation(ProvisionListener listener) {
+
+        synchronized (this) {
+            if (provisionOperation == null || provisionOperation.listener != listener) {
+                return;
+            }
+            provisionOperation = null;
+        }
+        stopStatusPolling();
+    }
+
+    private void failOperations(Exception e) {
+
+        ScanOperation scan;
+        ProvisionOperation provision;
+
+        synchronized (this) {
+            scan = scanOperation;
+            provision = provisionOperation;
+        }
+
+        if (scan != null) {
+            scan.onWiFiScanFailed(e);
+        }
+        if (provision != null) {
+            provision.onProvisioningFailed(e);
+        }
+    }
+
+    private static synchronized ScheduledExecutorService getDefaultExecutor() {
+
+        if (defaultExecutor == null) {
+            defaultExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ESPDevice");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultExecutor;
+    }
+
     private int deviceConnectionReqCount = 0;
 
     @RequiresPermission(Manifest.permission.ACCESS_NETWORK_STATE)
@@ -1601,6 +2383,7 @@ public class ESPDevice {
             Log.d(TAG, "Connecting to device");
             deviceConnectionReqCount++;
             String tempData = "ESP";
+            final long startTime = ProvisioningMetrics.startTimer();
 
             transport.sendConfigData(ESPConstants.HANDLER_PROTO_VER, tempData.getBytes(), new ResponseListener() {
 
@@ -1608,44 +2391,26 @@ public class ESPDevice {
                 @Override
                 public void onSuccess(byte[] returnData) {
 
+                    recordPhase(ProvisioningPhase.PROTO_VER, startTime, true);
                     String data = new String(returnData, StandardCharsets.UTF_8);
                     Log.d(TAG, "Value : " + data);
-                    versionInfo = data;
-                    deviceCapabilities = new ArrayList<>();
-
-                    try {
-                        JSONObject jsonObject = new JSONObject(data);
-                        JSONObject provInfo = jsonObject.getJSONObject("prov");
-
-                        String versionInfo = provInfo.getString("ver");
-                        Log.d(TAG, "Device Version : " + versionInfo);
-
-                        JSONArray capabilities = provInfo.getJSONArray("cap");
-
-                        for (int i = 0; i < capabilities.length(); i++) {
-                            String cap = capabilities.getString(i);
-                            deviceCapabilities.add(cap);
-                        }
-                        Log.d(TAG, "Capabilities : " + deviceCapabilities);
-
-                    } catch (JSONException e) {
-                        e.printStackTrace();
-                        Log.d(TAG, "Capabilities JSON not available.");
-                    }
+                    deviceInfo = DeviceInfo.parse(data);
                     deviceName = fetchWiFiSSID();
                     handler.removeCallbacks(wifiConnectionFailedTask);
-                    EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTED));
+                    connectionNotifier.notifyEvent(ESPConstants.EVENT_DEVICE_CONNECTED, null);
                 }
 
                 @Override
                 public void onFailure(Exception e) {
                     e.printStackTrace();
+                    recordPhase(ProvisioningPhase.PROTO_VER, startTime, false);
 
                     if (deviceConnectionReqCount == 3) {
 
                         handler.removeCallbacks(getCapabilitiesTask);
                         sendDeviceConnectionFailure();
                     } else {
+                        ProvisioningMetrics.getInstance().recordRetry(getDeviceId(), ProvisioningPhase.PROTO_VER);
                         getCapabilitiesFromDevice();
                     }
                 }
@@ -1661,7 +2426,7 @@ public class ESPDevice {
             handler.removeCallbacks(getCapabilitiesTask);
             handler.removeCallbacks(deviceConnectionFailedTask);
             Log.e(TAG, "deviceConnectionFailedTask");
-            EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+            connectionNotifier.notifyEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED, null);
         }
     };
 
@@ -1675,11 +2440,6 @@ public class ESPDevice {
         handler.postDelayed(getCapabilitiesTask, 100);
     }
 
-    private void scheduleWiFiConnectionFailure() {
-        Log.e(TAG, "Schedule wifiConnectionFailedTask");
-        handler.postDelayed(wifiConnectionFailedTask, 12000);
-    }
-
     @RequiresPermission(allOf = {Manifest.permission.ACCESS_NETWORK_STATE, Manifest.permission.ACCESS_WIFI_STATE})
     private String fetchWiFiSSID() {
 
@@ -1699,53 +2459,161 @@ public class ESPDevice {
         @Override
         public void run() {
 
-            handler.removeCallbacks(task);
+            if (softApDetector != null) {
+                softApDetector.cancel();
+            }
             Log.e(TAG, "wifiConnectionFailedTask");
-            EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+            connectionNotifier.notifyEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED, null);
         }
     };
 
-    private class FetchNetworkName implements Runnable {
+    private synchronized SoftApReadinessDetector getSoftApDetector() {
 
-        private String ssid;
+        if (softApDetector == null) {
 
-        FetchNetworkName(String ssid) {
-            this.ssid = ssid;
+            ScheduledExecutorService scheduledExecutor = executor;
+            if (scheduledExecutor == null) {
+                scheduledExecutor = getDefaultExecutor();
+            }
+            softApDetector = new SoftApReadinessDetector(scheduledExecutor, ESPConstants.DEFAULT_WIFI_BASE_URL);
         }
+        return softApDetector;
+    }
 
-        @Override
-        @RequiresPermission(allOf = {Manifest.permission.ACCESS_NETWORK_STATE, Manifest.permission.ACCESS_WIFI_STATE})
-        public void run() {
+    /**
+     * Waits till HTTP server of the device is reachable and then checks that phone is connected with given SSID.
+     * If the server is reachable on other network, device is probed again with backoff of the detector.
+     * Connection failure is sent if device is not reachable till the deadline.
+     */
+    private void checkDeviceConnection(final String ssid, final long deadline) {
+
+        SoftApReadinessDetector detector = getSoftApDetector();
+        detector.setDeadline(Math.max(0, deadline - SystemClock.elapsedRealtime()));
+        detector.start(null, new SoftApReadinessDetector.ReadinessListener() {
 
-            String networkName = fetchWiFiSSID();
-            Log.d(TAG, "Fetch SSID : " + networkName);
-            Log.d(TAG, "SSID : " + ssid);
+            @Override
+            @RequiresPermission(allOf = {Manifest.permission.ACCESS_NETWORK_STATE, Manifest.permission.ACCESS_WIFI_STATE})
+            public boolean onDeviceReady() {
 
-            if (!TextUtils.isEmpty(ssid) && !TextUtils.isEmpty(networkName) && ssid.equals(networkName)) {
+                String networkName = fetchWiFiSSID();
+                Log.d(TAG, "Fetch SSID : " + networkName);
+                Log.d(TAG, "SSID : " + ssid);
 
-                try {
-                    Thread.sleep(2500);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+                if (TextUtils.isEmpty(ssid) || TextUtils.isEmpty(networkName) || !ssid.equals(networkName)) {
+                    // Reachable address belongs to other network, wait for device network.
+                    return false;
                 }
-                Log.e(TAG, "Removed wifiConnectionFailedTask");
-                handler.removeCallbacks(wifiConnectionFailedTask);
-                deviceName = ssid;
-                getCapabilitiesFromDevice();
 
-            } else {
+                handler.post(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        deviceName = ssid;
+                        getCapabilitiesFromDevice();
+                    }
+                });
+                return true;
+            }
+
+            @Override
+            public void onDeviceNotReachable() {
+                handler.post(wifiConnectionFailedTask);
+            }
+        });
+    }
+
+    /**
+     * Network scan in progress. Result is delivered to the listener only once and only if scan is not finished already
+     * (e.g. failed because device is disconnected).
+     */
+    private class ScanOperation implements WiFiScanListener {
+
+        private final WiFiScanListener listener;
+
+        ScanOperation(WiFiScanListener listener) {
+            this.listener = listener;
+        }
 
-                handler.removeCallbacks(task);
-                checkDeviceConnection(ssid);
+        @Override
+        public void onWifiListReceived(ArrayList<WiFiAccessPoint> wifiList) {
+            if (finishScanOperation(this) && listener != null) {
+                listener.onWifiListReceived(wifiList);
+            }
+        }
+
+        @Override
+        public void onWiFiScanFailed(Exception e) {
+            if (finishScanOperation(this) && listener != null) {
+                listener.onWiFiScanFailed(e);
             }
         }
     }
 
-    FetchNetworkName task;
+    /**
+     * Provisioning in progress. Callbacks are delivered to the listener until provisioning succeeds or fails.
+     */
+    private class ProvisionOperation implements ProvisionListener {
+
+        private final ProvisionListener listener;
 
-    private void checkDeviceConnection(String ssid) {
+        ProvisionOperation(ProvisionListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void createSessionFailed(Exception e) {
+            if (finishProvisionOperation(this) && listener != null) {
+                listener.createSessionFailed(e);
+            }
+        }
+
+        @Override
+        public void wifiConfigSent() {
+            if (isProvisionOperation(this) && listener != null) {
+                listener.wifiConfigSent();
+            }
+        }
+
+        @Override
+        public void wifiConfigFailed(Exception e) {
+            if (finishProvisionOperation(this) && listener != null) {
+                listener.wifiConfigFailed(e);
+            }
+        }
+
+        @Override
+        public void wifiConfigApplied() {
+            if (isProvisionOperation(this) && listener != null) {
+                listener.wifiConfigApplied();
+            }
+        }
+
+        @Override
+        public void wifiConfigApplyFailed(Exception e) {
+            if (finishProvisionOperation(this) && listener != null) {
+                listener.wifiConfigApplyFailed(e);
+            }
+        }
+
+        @Override
+        public void provisioningFailedFromDevice(ESPConstants.ProvisionFailureReason failureReason) {
+            if (finishProvisionOperation(this) && listener != null) {
+                listener.provisioningFailedFromDevice(failureReason);
+            }
+        }
+
+        @Override
+        public void deviceProvisioningSuccess() {
+            if (finishProvisionOperation(this) && listener != null) {
+                listener.deviceProvisioningSuccess();
+            }
+        }
 
-        task = new FetchNetworkName(ssid);
-        handler.postDelayed(task, 2000);
+        @Override
+        public void onProvisioningFailed(Exception e) {
+            if (finishProvisionOperation(this) && listener != null) {
+                listener.onProvisioningFailed(e);
+            }
+        }
     }
 }
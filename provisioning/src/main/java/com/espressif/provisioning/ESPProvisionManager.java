@@ -21,21 +21,26 @@ import android.bluetooth.le.ScanFilter;
 import android.bluetooth.le.ScanResult;
 import android.bluetooth.le.ScanSettings;
 import android.content.Context;
+import android.graphics.ImageFormat;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.Log;
+import android.util.Size;
 import android.util.SparseArray;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.RequiresPermission;
 import androidx.camera.core.AspectRatio;
 import androidx.camera.core.CameraSelector;
-import androidx.camera.core.ExperimentalGetImage;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.content.ContextCompat;
@@ -43,7 +48,9 @@ import androidx.lifecycle.LifecycleOwner;
 
 import com.budiyev.android.codescanner.CodeScanner;
 import com.budiyev.android.codescanner.DecodeCallback;
+import com.espressif.provisioning.device_scanner.BleDiscoveryIndex;
 import com.espressif.provisioning.device_scanner.BleScanner;
+import com.espressif.provisioning.device_scanner.ScanStartLimiter;
 import com.espressif.provisioning.device_scanner.WiFiScanner;
 import com.espressif.provisioning.listeners.BleScanListener;
 import com.espressif.provisioning.listeners.QRCodeScanListener;
@@ -54,6 +61,7 @@ import com.google.android.gms.vision.barcode.Barcode;
 import com.google.android.gms.vision.barcode.BarcodeDetector;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.mlkit.vision.barcode.BarcodeScanner;
+import com.google.mlkit.vision.barcode.BarcodeScannerOptions;
 import com.google.mlkit.vision.barcode.BarcodeScanning;
 import com.google.mlkit.vision.common.InputImage;
 import com.google.zxing.BarcodeFormat;
@@ -63,11 +71,16 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * App can use this class to provision device. It has APIs to scan devices, scan QR code and connect with the device to get
@@ -77,14 +90,28 @@ public class ESPProvisionManager {
 
     private static final String TAG = "ESP:" + ESPProvisionManager.class.getSimpleName();
 
+    // Time within which BLE device scanned from QR code should be found.
+    private static final long BLE_DEVICE_SEARCH_TIMEOUT = 18000;
+    // Delay before scan is started again after it fails, it is doubled for every retry.
+    private static final long BLE_DEVICE_SEARCH_RETRY_DELAY = 500;
+    private static final long BLE_DEVICE_SEARCH_MAX_RETRY_DELAY = 4000;
+    // One of 5 scan starts allowed by Android in 30 seconds is left for other scans of the app.
+    private static final int BLE_DEVICE_SEARCH_START_LIMIT = 4;
+
     private static ESPProvisionManager provision;
 
     private ESPDevice espDevice;
     private BleScanner bleScanner;
+    private BleScanner deviceSearchScanner;
+    private boolean isDeviceSearchStopped;
+    private final ScanStartLimiter deviceSearchStartLimiter = new ScanStartLimiter(BLE_DEVICE_SEARCH_START_LIMIT);
     private WiFiScanner wifiScanner;
     private Context context;
     private Handler handler;
     private boolean isScanned = false;
+    // Camera executor and analyzer are shared by all QR code scans.
+    private ExecutorService qrCodeExecutor;
+    private QRCodeAnalyzer qrCodeAnalyzer;
 
     /**
      * This method is used to get singleton instance of
@@ -245,7 +272,8 @@ public class ESPProvisionManager {
     public void scanQRCode(final PreviewView cameraPreview, Activity activityContext, final QRCodeScanListener qrCodeScanListener) {
 
         isScanned = false;
-        ExecutorService cameraExecutor = Executors.newSingleThreadExecutor();
+        final ExecutorService cameraExecutor = getQrCodeExecutor();
+        final QRCodeAnalyzer analyzer = getQrCodeAnalyzer();
         ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(activityContext);
 
         cameraProviderFuture.addListener(() -> {
@@ -258,15 +286,22 @@ public class ESPProvisionManager {
                         .build();
                 preview.setSurfaceProvider(cameraPreview.getSurfaceProvider());
 
-                // Configure ImageAnalysis use case
+                // Configure ImageAnalysis use case. QR code is decoded from central part of the frame,
+                // so higher resolution than QRCodeAnalyzer.ANALYSIS_RESOLUTION is not needed.
+                ResolutionSelector resolutionSelector = new ResolutionSelector.Builder()
+                        .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY) // Match preview aspect ratio
+                        .setResolutionStrategy(new ResolutionStrategy(QRCodeAnalyzer.ANALYSIS_RESOLUTION,
+                                ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                        .build();
                 ImageAnalysis imageAnalyzer = new ImageAnalysis.Builder()
-                        .setTargetAspectRatio(AspectRatio.RATIO_4_3) // Match preview aspect ratio
+                        .setResolutionSelector(resolutionSelector)
+                        .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888)
                         .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                         .build();
 
                 try {
 
-                    imageAnalyzer.setAnalyzer(cameraExecutor, new QRCodeAnalyzer(qrCode -> {
+                    analyzer.setListener(qrCode -> {
                         if (!isScanned) {
                             isScanned = true;
 
@@ -275,7 +310,6 @@ public class ESPProvisionManager {
                                 // Stop camera preview and analysis
                                 try {
                                     cameraProvider.unbindAll();
-                                    cameraExecutor.shutdown();
                                     cameraPreview.setImplementationMode(PreviewView.ImplementationMode.COMPATIBLE);
                                 } catch (Exception e) {
                                     Log.e(TAG, "Error stopping camera: " + e.getMessage());
@@ -286,7 +320,8 @@ public class ESPProvisionManager {
                                 processQrCode(qrCode, qrCodeScanListener);
                             });
                         }
-                    }));
+                    });
+                    imageAnalyzer.setAnalyzer(cameraExecutor, analyzer);
 
                     // Unbind all use cases before rebinding
                     cameraProvider.unbindAll();
@@ -377,44 +412,175 @@ public class ESPProvisionManager {
     }
 
 
+    private synchronized ExecutorService getQrCodeExecutor() {
+
+        if (qrCodeExecutor == null) {
+            qrCodeExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "QRCodeAnalyzer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return qrCodeExecutor;
+    }
+
+    private synchronized QRCodeAnalyzer getQrCodeAnalyzer() {
+
+        if (qrCodeAnalyzer == null) {
+            qrCodeAnalyzer = new QRCodeAnalyzer();
+        }
+        return qrCodeAnalyzer;
+    }
+
+    /**
+     * Decodes QR code from camera frames with ML Kit.
+     * <p>
+     * Only central part of the luminance plane is given to ML Kit, downscaled while it is larger than needed
+     * to decode QR code. Frames are skipped while previous frame is being decoded and are limited to one per
+     * MIN_FRAME_INTERVAL. Listener is called only once for a scan, even if QR code is found in more frames.
+     */
     static class QRCodeAnalyzer implements ImageAnalysis.Analyzer {
 
         interface QRCodeListener {
             void onQRCodeDetected(String qrCode);
         }
 
-        private final QRCodeListener listener;
+        static final Size ANALYSIS_RESOLUTION = new Size(1280, 960);
+
+        // Size of the central region, in which QR code is searched, relative to the frame.
+        private static final float ROI_FRACTION = 0.7f;
+        // Shorter side of the region is not downscaled below this size.
+        private static final int MIN_DECODE_SIZE = 480;
+        private static final long MIN_FRAME_INTERVAL = 100;
+        private static final byte NEUTRAL_CHROMA = (byte) 128;
+
         private final BarcodeScanner scanner;
+        private final AtomicBoolean isProcessing = new AtomicBoolean(false);
+        // Listener and detected flag of current scan. Decode task keeps the scan for which it is started,
+        // so that result of previous scan is not given to the listener of new scan.
+        private volatile Scan scan;
+        private long lastFrameTime;
+        // Reused for every frame, only one frame is decoded at a time.
+        private byte[] frameData;
+        private byte[] rowData;
+
+        QRCodeAnalyzer() {
+            this.scanner = BarcodeScanning.getClient(new BarcodeScannerOptions.Builder()
+                    .setBarcodeFormats(com.google.mlkit.vision.barcode.common.Barcode.FORMAT_QR_CODE)
+                    .build());
+        }
 
-        public QRCodeAnalyzer(QRCodeListener listener) {
-            this.listener = listener;
-            this.scanner = BarcodeScanning.getClient();
+        /**
+         * Sets listener for a new scan.
+         */
+        void setListener(QRCodeListener listener) {
+            this.scan = listener == null ? null : new Scan(listener);
         }
 
         @Override
-        @ExperimentalGetImage
         public void analyze(ImageProxy imageProxy) {
-            if (imageProxy.getImage() != null) {
-                InputImage image = InputImage.fromMediaImage(
-                        imageProxy.getImage(),
-                        imageProxy.getImageInfo().getRotationDegrees()
-                );
-
-                scanner.process(image)
-                        .addOnSuccessListener(barcodes -> {
-                            for (com.google.mlkit.vision.barcode.common.Barcode barcode : barcodes) {
-                                if (barcode.getFormat() == com.google.mlkit.vision.barcode.common.Barcode.FORMAT_QR_CODE) {
-                                    String value = barcode.getRawValue();
-                                    if (value != null) {
-                                        listener.onQRCodeDetected(value);
-                                    }
-                                }
-                            }
-                        })
-                        .addOnCompleteListener(task -> imageProxy.close());
-            } else {
+
+            long now = SystemClock.elapsedRealtime();
+
+            final Scan currentScan = scan;
+
+            if (currentScan == null || currentScan.isDetected.get() || isProcessing.get() || now - lastFrameTime < MIN_FRAME_INTERVAL
+                    || imageProxy.getFormat() != ImageFormat.YUV_420_888) {
+                imageProxy.close();
+                return;
+            }
+            lastFrameTime = now;
+
+            InputImage image;
+            try {
+                image = cropFrame(imageProxy);
+            } finally {
                 imageProxy.close();
             }
+
+            isProcessing.set(true);
+
+            scanner.process(image)
+                    .addOnSuccessListener(barcodes -> {
+                        for (com.google.mlkit.vision.barcode.common.Barcode barcode : barcodes) {
+                            String value = barcode.getRawValue();
+                            if (value != null && currentScan.isDetected.compareAndSet(false, true)) {
+                                currentScan.listener.onQRCodeDetected(value);
+                                break;
+                            }
+                        }
+                    })
+                    .addOnCompleteListener(task -> isProcessing.set(false));
+        }
+
+        /**
+         * Copies central region of luminance plane in NV21 image, taking every step-th pixel.
+         * Chroma is set to neutral value, as it is not used to decode QR code.
+         */
+        private InputImage cropFrame(ImageProxy imageProxy) {
+
+            ImageProxy.PlaneProxy yPlane = imageProxy.getPlanes()[0];
+            ByteBuffer buffer = yPlane.getBuffer();
+            int rowStride = yPlane.getRowStride();
+            int pixelStride = yPlane.getPixelStride();
+
+            int width = imageProxy.getWidth();
+            int height = imageProxy.getHeight();
+            int roiWidth = (int) (width * ROI_FRACTION);
+            int roiHeight = (int) (height * ROI_FRACTION);
+            int step = Math.max(1, Math.min(roiWidth, roiHeight) / MIN_DECODE_SIZE);
+
+            // NV21 needs even width and height.
+            int outWidth = (roiWidth / step) & ~1;
+            int outHeight = (roiHeight / step) & ~1;
+            int left = (width - outWidth * step) / 2;
+            int top = (height - outHeight * step) / 2;
+
+            int lumaSize = outWidth * outHeight;
+            int frameSize = lumaSize + lumaSize / 2;
+
+            if (frameData == null || frameData.length != frameSize) {
+                frameData = new byte[frameSize];
+                Arrays.fill(frameData, lumaSize, frameSize, NEUTRAL_CHROMA);
+            }
+
+            int rowLength = (outWidth - 1) * step * pixelStride + 1;
+            if (rowData == null || rowData.length < rowLength) {
+                rowData = new byte[rowLength];
+            }
+
+            int index = 0;
+            for (int row = 0; row < outHeight; row++) {
+
+                buffer.position((top + row * step) * rowStride + left * pixelStride);
+
+                if (step == 1 && pixelStride == 1) {
+                    buffer.get(frameData, index, outWidth);
+                    index += outWidth;
+                } else {
+                    buffer.get(rowData, 0, rowLength);
+                    for (int i = 0; i < rowLength; i += step * pixelStride) {
+                        frameData[index++] = rowData[i];
+                    }
+                }
+            }
+
+            return InputImage.fromByteArray(frameData, outWidth, outHeight,
+                    imageProxy.getImageInfo().getRotationDegrees(), InputImage.IMAGE_FORMAT_NV21);
+        }
+
+        private static class Scan {
+
+            private final QRCodeListener listener;
+            private final AtomicBoolean isDetected = new AtomicBoolean(false);
+
+            Scan(QRCodeListener listener) {
+                this.listener = listener;
+            }
         }
     }
 
@@ -488,12 +654,41 @@ public class ESPProvisionManager {
         bleScanner.startScan();
     }
 
+    /**
+     * This method is used to scan BLE devices with having given prefix in device name and collect them in
+     * discovery index. Devices are reported by BleDiscoveryListener of the index as added / updated / lost,
+     * instead of onPeripheralFound callback for every advertisement.
+     * Scan results are batched by the controller if it is supported.
+     *
+     * @param prefix             Prefix to filter devices from device name.
+     * @param index              Discovery index to collect devices. It is started with the scan and stopped when
+     *                           scan is completed or {@link #stopBleScan()} is called.
+     * @param bleScannerListener BleScanListener for scan start / completion and failure callbacks.
+     */
+    @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH_ADMIN, Manifest.permission.BLUETOOTH, Manifest.permission.ACCESS_FINE_LOCATION})
+    public void discoverBleEspDevices(String prefix, BleDiscoveryIndex index, BleScanListener bleScannerListener) {
+
+        Log.d(TAG, "Discover BLE devices");
+        bleScanner = new BleScanner(context, prefix, bleScannerListener);
+        bleScanner.setDiscoveryIndex(index);
+
+        ScanSettings.Builder settingsBuilder = new ScanSettings.Builder()
+                .setScanMode(ScanSettings.SCAN_MODE_BALANCED);
+        if (bleScanner.isBatchScanSupported()) {
+            settingsBuilder.setReportDelay(index.getReportInterval());
+        }
+        bleScanner.startScan(new ArrayList<ScanFilter>(), settingsBuilder.build());
+    }
+
     /**
      * This method is used to stop BLE scanning.
      */
     @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH_ADMIN, Manifest.permission.BLUETOOTH, Manifest.permission.ACCESS_FINE_LOCATION})
     public void stopBleScan() {
 
+        // Device search is not retried once app stops the scan.
+        deviceSearchScanner = null;
+        isDeviceSearchStopped = true;
         if (bleScanner != null) {
             bleScanner.stopScan();
         }
@@ -539,11 +734,150 @@ public class ESPProvisionManager {
 
         searchCnt = 0;
         isDeviceFound = false;
+
+        if (device.getTransportType().equals(ESPConstants.TransportType.TRANSPORT_BLE)) {
+
+            final QRCodeScanListener listener = qrCodeScanListener;
+            final long deadline = SystemClock.elapsedRealtime() + BLE_DEVICE_SEARCH_TIMEOUT;
+
+            handler.post(new Runnable() {
+
+                @Override
+                @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH_ADMIN, Manifest.permission.BLUETOOTH})
+                public void run() {
+                    isDeviceSearchStopped = false;
+                    searchBleDevice(device, listener, deadline, BLE_DEVICE_SEARCH_RETRY_DELAY);
+                }
+            });
+            return;
+        }
         // Check device is available in scanning.
         SearchDeviceTask searchDeviceTask = new SearchDeviceTask(device, password, qrCodeScanListener);
         handler.post(searchDeviceTask);
     }
 
+    /**
+     * This method is used to search BLE device with name received in QR code.
+     * Scan is filtered by device name in low latency mode and it is stopped as soon as device is found.
+     * If scan fails, it is started again till the deadline with increasing delay. Scan starts are kept within
+     * the limit of Android, as scan started over the limit does not give any result.
+     *
+     * @param device     ESPDevice with device name.
+     * @param listener   QRCodeScanListener to give callbacks to app.
+     * @param deadline   Time (SystemClock.elapsedRealtime) till which device is searched.
+     * @param retryDelay Delay before scan is started again if it fails.
+     */
+    @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH_ADMIN, Manifest.permission.BLUETOOTH})
+    private void searchBleDevice(final ESPDevice device, final QRCodeScanListener listener, final long deadline,
+                                 final long retryDelay) {
+
+        long now = SystemClock.elapsedRealtime();
+        long remaining = deadline - now;
+        long startDelay = deviceSearchStartLimiter.getStartDelay(now);
+
+        if (isDeviceSearchStopped || remaining <= startDelay) {
+            String errMsg = "" + device.getDeviceName() + " device not found";
+            listener.onFailure(new RuntimeException(errMsg));
+            return;
+        }
+
+        if (startDelay > 0) {
+            Log.d(TAG, "Scan start limit reached, device search continues after " + startDelay + " ms");
+            handler.postDelayed(new Runnable() {
+
+                @Override
+                @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH_ADMIN, Manifest.permission.BLUETOOTH})
+                public void run() {
+                    searchBleDevice(device, listener, deadline, retryDelay);
+                }
+            }, startDelay);
+            return;
+        }
+
+        List<ScanFilter> filters = Collections.singletonList(new ScanFilter.Builder()
+                .setDeviceName(device.getDeviceName())
+                .build());
+        ScanSettings settings = new ScanSettings.Builder()
+                .setScanMode(ScanSettings.SCAN_MODE_LOW_LATENCY)
+                .build();
+
+        final BleScanner[] scannerRef = new BleScanner[1];
+        final BleScanner scanner = new BleScanner(context, new BleScanListener() {
+
+            @Override
+            public void scanStartFailed() {
+                deviceSearchScanner = null;
+                listener.onFailure(new RuntimeException("Please turn on bluetooth and try again."));
+            }
+
+            @Override
+            @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH_ADMIN, Manifest.permission.BLUETOOTH})
+            public void onPeripheralFound(BluetoothDevice btDevice, ScanResult scanResult) {
+
+                if (isDeviceFound || btDevice == null || scanResult.getScanRecord() == null
+                        || !device.getDeviceName().equals(scanResult.getScanRecord().getDeviceName())) {
+                    return;
+                }
+
+                // Device found
+                isDeviceFound = true;
+                String serviceUuid = "";
+
+                if (scanResult.getScanRecord().getServiceUuids() != null && scanResult.getScanRecord().getServiceUuids().size() > 0) {
+                    serviceUuid = scanResult.getScanRecord().getServiceUuids().get(0).toString();
+                }
+
+                device.setBluetoothDevice(btDevice);
+                device.setPrimaryServiceUuid(serviceUuid);
+                scannerRef[0].stopScan();
+            }
+
+            @Override
+            @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH_ADMIN, Manifest.permission.BLUETOOTH})
+            public void scanCompleted() {
+
+                Log.d(TAG, "scanCompleted, isDeviceFound : " + isDeviceFound);
+                boolean isStoppedByApp = deviceSearchScanner != scannerRef[0];
+                deviceSearchScanner = null;
+
+                if (isDeviceFound) {
+                    listener.deviceDetected(device);
+
+                } else if (isStoppedByApp || deadline - SystemClock.elapsedRealtime() <= retryDelay) {
+                    String errMsg = "" + device.getDeviceName() + " device not found";
+                    listener.onFailure(new RuntimeException(errMsg));
+
+                } else {
+                    handler.postDelayed(new Runnable() {
+
+                        @Override
+                        @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH_ADMIN, Manifest.permission.BLUETOOTH})
+                        public void run() {
+                            searchBleDevice(device, listener, deadline, Math.min(retryDelay * 2, BLE_DEVICE_SEARCH_MAX_RETRY_DELAY));
+                        }
+                    }, retryDelay);
+                }
+            }
+
+            @Override
+            @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH_ADMIN, Manifest.permission.BLUETOOTH})
+            public void onFailure(Exception e) {
+
+                e.printStackTrace();
+                if (!isDeviceFound && deviceSearchScanner == scannerRef[0]) {
+                    // Scan is not running, complete it now and start it again from scanCompleted.
+                    scannerRef[0].stopScan();
+                }
+            }
+        });
+        scannerRef[0] = scanner;
+        scanner.setScanTimeout(remaining);
+        bleScanner = scanner;
+        deviceSearchScanner = scanner;
+        deviceSearchStartLimiter.onScanStarted(now);
+        scanner.startScan(filters, settings);
+    }
+
     private ESPConstants.SecurityType setSecurityType(int security) {
         switch (security) {
             case 0:
@@ -576,139 +910,63 @@ public class ESPProvisionManager {
                 Manifest.permission.ACCESS_WIFI_STATE})
         public void run() {
 
-            if (device.getTransportType().equals(ESPConstants.TransportType.TRANSPORT_BLE)) {
-
-                searchBleEspDevices(new BleScanListener() {
+            searchWiFiEspDevices(new WiFiScanListener() {
 
-                    @Override
-                    public void scanStartFailed() {
-                        listener.onFailure(new RuntimeException("Please turn on bluetooth and try again."));
-                    }
-
-                    @Override
-                    @RequiresPermission(Manifest.permission.BLUETOOTH)
-                    public void onPeripheralFound(BluetoothDevice btDevice, ScanResult scanResult) {
-
-                        if (!isDeviceFound && btDevice != null && !TextUtils.isEmpty(scanResult.getScanRecord().getDeviceName())) {
-
-                            if (scanResult.getScanRecord().getDeviceName().equals(device.getDeviceName())) {
-                                // Device found
-                                isDeviceFound = true;
-                                String serviceUuid = "";
-
-                                if (scanResult.getScanRecord().getServiceUuids() != null && scanResult.getScanRecord().getServiceUuids().size() > 0) {
-                                    serviceUuid = scanResult.getScanRecord().getServiceUuids().get(0).toString();
-                                }
-
-                                device.setBluetoothDevice(btDevice);
-                                device.setPrimaryServiceUuid(serviceUuid);
-                            }
-                        }
-                    }
+                @Override
+                public void onWifiListReceived(ArrayList<WiFiAccessPoint> scanResults) {
 
-                    @Override
-                    public void scanCompleted() {
+                    for (int i = 0; i < scanResults.size(); i++) {
 
-                        Log.d(TAG, "scanCompleted");
-                        Log.d(TAG, "isDeviceFound : " + isDeviceFound);
-                        Log.d(TAG, "searchCnt : " + searchCnt);
-
-                        if (!isDeviceFound) {
-
-                            if (searchCnt != 3) {
-
-                                SearchDeviceTask searchDeviceTask = new SearchDeviceTask(device, password, listener);
-                                handler.postDelayed(searchDeviceTask, 500);
-                            } else {
-                                String errMsg = "" + device.getDeviceName() + " device not found";
-                                listener.onFailure(new RuntimeException(errMsg));
-                            }
-                        } else {
+                        if (scanResults.get(i).getWifiName().equals(device.getDeviceName())) {
+                            // Device found
+                            isDeviceFound = true;
+                            WiFiAccessPoint wiFiDevice = scanResults.get(i);
+                            wiFiDevice.setPassword(password);
+                            device.setWifiDevice(wiFiDevice);
                             listener.deviceDetected(device);
+                            break;
                         }
                     }
 
-                    @Override
-                    public void onFailure(Exception e) {
-
-                        e.printStackTrace();
-                        Log.d(TAG, "onFailure");
-                        Log.d(TAG, "isDeviceFound : " + isDeviceFound);
-                        Log.d(TAG, "searchCnt : " + searchCnt);
-
-                        if (!isDeviceFound) {
-
-                            if (searchCnt != 3) {
-
-                                SearchDeviceTask searchDeviceTask = new SearchDeviceTask(device, password, listener);
-                                handler.postDelayed(searchDeviceTask, 500);
-                            } else {
-                                String errMsg = "" + device.getDeviceName() + " device not found";
-                                listener.onFailure(new RuntimeException(errMsg));
-                            }
-                        }
-                    }
-                });
-            } else {
-
-                searchWiFiEspDevices(new WiFiScanListener() {
+                    Log.d(TAG, "scanCompleted");
+                    Log.d(TAG, "isDeviceFound : " + isDeviceFound);
+                    Log.d(TAG, "searchCnt : " + searchCnt);
 
-                    @Override
-                    public void onWifiListReceived(ArrayList<WiFiAccessPoint> scanResults) {
-
-                        for (int i = 0; i < scanResults.size(); i++) {
-
-                            if (scanResults.get(i).getWifiName().equals(device.getDeviceName())) {
-                                // Device found
-                                isDeviceFound = true;
-                                WiFiAccessPoint wiFiDevice = scanResults.get(i);
-                                wiFiDevice.setPassword(password);
-                                device.setWifiDevice(wiFiDevice);
-                                listener.deviceDetected(device);
-                                break;
-                            }
-                        }
+                    if (!isDeviceFound) {
 
-                        Log.d(TAG, "scanCompleted");
-                        Log.d(TAG, "isDeviceFound : " + isDeviceFound);
-                        Log.d(TAG, "searchCnt : " + searchCnt);
+                        if (searchCnt != 3) {
 
-                        if (!isDeviceFound) {
-
-                            if (searchCnt != 3) {
-
-                                SearchDeviceTask searchDeviceTask = new SearchDeviceTask(device, password, listener);
-                                handler.postDelayed(searchDeviceTask, 500);
-                            } else {
-                                String errMsg = "" + device.getDeviceName() + " device not found";
-                                listener.onFailure(new RuntimeException(errMsg));
-                            }
+                            SearchDeviceTask searchDeviceTask = new SearchDeviceTask(device, password, listener);
+                            handler.postDelayed(searchDeviceTask, 500);
+                        } else {
+                            String errMsg = "" + device.getDeviceName() + " device not found";
+                            listener.onFailure(new RuntimeException(errMsg));
                         }
                     }
+                }
 
-                    @Override
-                    public void onWiFiScanFailed(Exception e) {
+                @Override
+                public void onWiFiScanFailed(Exception e) {
 
-                        e.printStackTrace();
+                    e.printStackTrace();
 
-                        Log.d(TAG, "onFailure");
-                        Log.d(TAG, "isDeviceFound : " + isDeviceFound);
-                        Log.d(TAG, "searchCnt : " + searchCnt);
+                    Log.d(TAG, "onFailure");
+                    Log.d(TAG, "isDeviceFound : " + isDeviceFound);
+                    Log.d(TAG, "searchCnt : " + searchCnt);
 
-                        if (!isDeviceFound) {
+                    if (!isDeviceFound) {
 
-                            if (searchCnt != 3) {
+                        if (searchCnt != 3) {
 
-                                SearchDeviceTask searchDeviceTask = new SearchDeviceTask(device, password, listener);
-                                handler.postDelayed(searchDeviceTask, 500);
-                            } else {
-                                String errMsg = "" + device.getDeviceName() + " device not found";
-                                listener.onFailure(new RuntimeException(errMsg));
-                            }
+                            SearchDeviceTask searchDeviceTask = new SearchDeviceTask(device, password, listener);
+                            handler.postDelayed(searchDeviceTask, 500);
+                        } else {
+                            String errMsg = "" + device.getDeviceName() + " device not found";
+                            listener.onFailure(new RuntimeException(errMsg));
                         }
                     }
-                });
-            }
+                }
+            });
         }
     }
 }
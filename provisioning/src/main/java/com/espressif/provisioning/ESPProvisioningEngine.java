@@ -0,0 +1,368 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning;
+
+import android.Manifest;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.RequiresPermission;
+
+import com.espressif.provisioning.listeners.DeviceConnectionListener;
+import com.espressif.provisioning.listeners.ProvisionListener;
+import com.espressif.provisioning.listeners.ProvisioningEngineListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Engine to provision multiple BLE devices at the same time.
+ * <p>
+ * Each job has its own ESPDevice (transport, security and session). Jobs are started in the order they are submitted,
+ * at most given number of devices are connected at a time and next job is started as soon as a job finishes.
+ * All devices share the executor of the engine for delayed requests (like status polling), so no thread is blocked
+ * while a device is waiting.
+ */
+public class ESPProvisioningEngine {
+
+    private static final String TAG = "ESP:" + ESPProvisioningEngine.class.getSimpleName();
+
+    /**
+     * Number of simultaneous BLE connections supported by most Android devices.
+     */
+    public static final int MAX_BLE_CONNECTIONS = 7;
+
+    private static final long DEFAULT_CONNECTION_TIMEOUT = 30000; // 30 seconds
+    private static final int EXECUTOR_THREAD_COUNT = 2;
+
+    private final int maxConcurrentDevices;
+    private final ScheduledExecutorService executor;
+    private final ArrayDeque<ProvisioningJob> pendingJobs = new ArrayDeque<>();
+    // Running jobs by address of BLE device.
+    private final HashMap<String, ProvisioningJob> activeJobs = new HashMap<>();
+
+    private ProvisioningEngineListener listener;
+    private long connectionTimeout = DEFAULT_CONNECTION_TIMEOUT;
+    private boolean isShutdown;
+    private int succeededCount;
+    private int failedCount;
+    private long totalJobDuration;
+    private long startTime;
+
+    /**
+     * Create engine.
+     *
+     * @param maxConcurrentDevices Number of devices to provision at the same time.
+     *                             It is limited to {@link #MAX_BLE_CONNECTIONS}.
+     */
+    public ESPProvisioningEngine(int maxConcurrentDevices) {
+
+        if (maxConcurrentDevices < 1) {
+            throw new IllegalArgumentException("At least one device must be allowed at a time.");
+        }
+        this.maxConcurrentDevices = Math.min(maxConcurrentDevices, MAX_BLE_CONNECTIONS);
+        this.executor = Executors.newScheduledThreadPool(EXECUTOR_THREAD_COUNT, new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ESPProvisioningEngine-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * This method is used to set listener for job state changes and progress.
+     *
+     * @param listener Listener for engine callbacks. Callbacks are called on the engine / transport threads.
+     */
+    public void setListener(ProvisioningEngineListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * This method is used to set time to wait for a device to be connected, before its job is failed.
+     *
+     * @param timeoutMs Timeout in milliseconds.
+     */
+    public void setConnectionTimeout(long timeoutMs) {
+        this.connectionTimeout = timeoutMs;
+    }
+
+    public int getMaxConcurrentDevices() {
+        return maxConcurrentDevices;
+    }
+
+    /**
+     * This method is used to add a device for provisioning. Job is started immediately if number of running jobs
+     * is less than the concurrency limit, otherwise it is queued.
+     * Only one job for a device can be queued or running at a time, IllegalArgumentException is thrown
+     * for another job with the same BLE device.
+     *
+     * @param job Job to be run.
+     * @return Same job, to follow its state.
+     */
+    @RequiresPermission(Manifest.permission.BLUETOOTH)
+    public ProvisioningJob submit(ProvisioningJob job) {
+
+        synchronized (this) {
+            if (isShutdown) {
+                throw new IllegalStateException("Engine is shut down.");
+            }
+            if (job.getState() != ProvisioningJob.State.QUEUED) {
+                throw new IllegalArgumentException("Job is already submitted.");
+            }
+            if (isJobSubmitted(job.getBluetoothDevice().getAddress())) {
+                throw new IllegalArgumentException("Job for the device is already queued or running.");
+            }
+            pendingJobs.add(job);
+        }
+        startNextJobs();
+        return job;
+    }
+
+    /**
+     * Running jobs are kept by device address, so only one job for a device can be queued or running at a time.
+     */
+    private boolean isJobSubmitted(String address) {
+
+        if (activeJobs.containsKey(address)) {
+            return true;
+        }
+        for (ProvisioningJob pendingJob : pendingJobs) {
+            if (pendingJob.getBluetoothDevice().getAddress().equals(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method is used to get aggregated progress of all submitted jobs.
+     *
+     * @return Snapshot of the progress.
+     */
+    public synchronized ProvisioningProgress getProgress() {
+
+        long elapsedTime = startTime == 0 ? 0 : SystemClock.elapsedRealtime() - startTime;
+        return new ProvisioningProgress(pendingJobs.size(), activeJobs.size(), succeededCount, failedCount,
+                elapsedTime, totalJobDuration);
+    }
+
+    /**
+     * This method is used to cancel all queued and running jobs. Running devices are disconnected.
+     */
+    public void cancelAll() {
+
+        ArrayList<ProvisioningJob> jobs;
+
+        synchronized (this) {
+            jobs = new ArrayList<>(pendingJobs);
+            jobs.addAll(activeJobs.values());
+            pendingJobs.clear();
+        }
+
+        for (ProvisioningJob job : jobs) {
+            finishJob(job, ProvisioningJob.State.CANCELLED, new RuntimeException("Job cancelled"));
+        }
+    }
+
+    /**
+     * This method is used to cancel all jobs and release resources of the engine. Engine can not be used after this.
+     */
+    public void shutdown() {
+
+        synchronized (this) {
+            isShutdown = true;
+        }
+        cancelAll();
+        executor.shutdown();
+    }
+
+    private void startNextJobs() {
+
+        while (true) {
+
+            final ProvisioningJob job;
+
+            synchronized (this) {
+                if (isShutdown || activeJobs.size() >= maxConcurrentDevices || pendingJobs.isEmpty()) {
+                    return;
+                }
+                job = pendingJobs.poll();
+                long now = SystemClock.elapsedRealtime();
+                if (startTime == 0) {
+                    startTime = now;
+                }
+                job.setStartTime(now);
+                job.setState(ProvisioningJob.State.CONNECTING);
+                activeJobs.put(job.getBluetoothDevice().getAddress(), job);
+            }
+
+            Log.d(TAG, "Connecting device : " + job.getBluetoothDevice().getAddress());
+            notifyStateChanged(job);
+
+            ESPDevice espDevice = job.getEspDevice();
+            espDevice.setExecutor(executor);
+            espDevice.setConnectionListener(new DeviceConnectionListener() {
+
+                @Override
+                public void onDeviceConnected() {
+                    provision(job);
+                }
+
+                @Override
+                public void onDeviceConnectionFailed() {
+                    finishJob(job, ProvisioningJob.State.FAILED, new RuntimeException("Failed to connect device"));
+                }
+
+                @Override
+                public void onDeviceDisconnected() {
+                    finishJob(job, ProvisioningJob.State.FAILED, new RuntimeException("Device disconnected"));
+                }
+            }, executor);
+            espDevice.connectBLEDevice(job.getBluetoothDevice(), job.getPrimaryServiceUuid());
+
+            executor.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    if (job.getState() == ProvisioningJob.State.CONNECTING) {
+                        finishJob(job, ProvisioningJob.State.FAILED, new RuntimeException("Device connection timed out"));
+                    }
+                }
+            }, connectionTimeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void provision(final ProvisioningJob job) {
+
+        synchronized (this) {
+            if (job.getState() != ProvisioningJob.State.CONNECTING) {
+                return;
+            }
+            job.setState(ProvisioningJob.State.PROVISIONING);
+        }
+        notifyStateChanged(job);
+
+        ProvisionListener provisionListener = new ProvisionListener() {
+
+            @Override
+            public void createSessionFailed(Exception e) {
+                finishJob(job, ProvisioningJob.State.FAILED, e);
+            }
+
+            @Override
+            public void wifiConfigSent() {
+            }
+
+            @Override
+            public void wifiConfigFailed(Exception e) {
+                finishJob(job, ProvisioningJob.State.FAILED, e);
+            }
+
+            @Override
+            public void wifiConfigApplied() {
+            }
+
+            @Override
+            public void wifiConfigApplyFailed(Exception e) {
+                finishJob(job, ProvisioningJob.State.FAILED, e);
+            }
+
+            @Override
+            public void provisioningFailedFromDevice(ESPConstants.ProvisionFailureReason failureReason) {
+                job.setFailureReason(failureReason);
+                finishJob(job, ProvisioningJob.State.FAILED, new RuntimeException("Provisioning failed from device : " + failureReason));
+            }
+
+            @Override
+            public void deviceProvisioningSuccess() {
+                finishJob(job, ProvisioningJob.State.SUCCEEDED, null);
+            }
+
+            @Override
+            public void onProvisioningFailed(Exception e) {
+                finishJob(job, ProvisioningJob.State.FAILED, e);
+            }
+        };
+
+        if (job.isThreadProvisioning()) {
+            job.getEspDevice().provision(job.getThreadDataset(), provisionListener);
+        } else {
+            job.getEspDevice().provision(job.getSsid(), job.getPassphrase(), provisionListener);
+        }
+    }
+
+    private void finishJob(ProvisioningJob job, ProvisioningJob.State state, Exception error) {
+
+        boolean wasActive;
+        boolean isIdle;
+
+        synchronized (this) {
+
+            if (job.isFinished()) {
+                return;
+            }
+            wasActive = job.getState() != ProvisioningJob.State.QUEUED;
+            if (wasActive) {
+                activeJobs.remove(job.getBluetoothDevice().getAddress());
+            }
+            pendingJobs.remove(job);
+            job.setEndTime(SystemClock.elapsedRealtime());
+            job.setError(error);
+            job.setState(state);
+
+            if (state == ProvisioningJob.State.SUCCEEDED) {
+                succeededCount++;
+            } else {
+                failedCount++;
+            }
+            totalJobDuration += job.getDuration();
+            isIdle = activeJobs.isEmpty() && pendingJobs.isEmpty();
+        }
+
+        if (wasActive) {
+            job.getEspDevice().disconnectDevice();
+        }
+        if (error != null) {
+            Log.e(TAG, "Job failed for device " + job.getBluetoothDevice().getAddress() + " : " + error.getMessage());
+        }
+        notifyStateChanged(job);
+        startNextJobs();
+
+        ProvisioningEngineListener engineListener = listener;
+        if (isIdle && engineListener != null) {
+            engineListener.onAllJobsCompleted(getProgress());
+        }
+    }
+
+    private void notifyStateChanged(ProvisioningJob job) {
+
+        ProvisioningEngineListener engineListener = listener;
+        if (engineListener != null) {
+            engineListener.onJobStateChanged(job, getProgress());
+        }
+    }
+}
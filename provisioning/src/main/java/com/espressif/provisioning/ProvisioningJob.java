@@ -0,0 +1,180 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning;
+
+import android.bluetooth.BluetoothDevice;
+import android.os.SystemClock;
+
+/**
+ * This class holds one device to be provisioned by {@link ESPProvisioningEngine},
+ * along with the network credentials and current state of its provisioning.
+ */
+public class ProvisioningJob {
+
+    public enum State {
+        QUEUED,
+        CONNECTING,
+        PROVISIONING,
+        SUCCEEDED,
+        FAILED,
+        CANCELLED
+    }
+
+    private final ESPDevice espDevice;
+    private final BluetoothDevice bluetoothDevice;
+    private final String primaryServiceUuid;
+    private final String ssid;
+    private final String passphrase;
+    private final String threadDataset;
+
+    private volatile State state = State.QUEUED;
+    private volatile Exception error;
+    private volatile ESPConstants.ProvisionFailureReason failureReason;
+    private volatile long startTime;
+    private volatile long endTime;
+
+    /**
+     * Create job to provision Wi-Fi credentials.
+     *
+     * @param espDevice          Device created with BLE transport. Proof of possession and user name must be set for secure devices.
+     * @param bluetoothDevice    BluetoothDevice to connect.
+     * @param primaryServiceUuid Primary service UUID.
+     * @param ssid               SSID of the Wi-Fi which is to be configure in device.
+     * @param passphrase         Password of the Wi-Fi which is to be configure in device.
+     */
+    public ProvisioningJob(ESPDevice espDevice, BluetoothDevice bluetoothDevice, String primaryServiceUuid,
+                           String ssid, String passphrase) {
+        this(espDevice, bluetoothDevice, primaryServiceUuid, ssid, passphrase, null);
+    }
+
+    /**
+     * Create job to provision Thread dataset.
+     *
+     * @param espDevice          Device created with BLE transport. Proof of possession and user name must be set for secure devices.
+     * @param bluetoothDevice    BluetoothDevice to connect.
+     * @param primaryServiceUuid Primary service UUID.
+     * @param threadDataset      Thread dataset of a thread network which is to be configure in device.
+     */
+    public ProvisioningJob(ESPDevice espDevice, BluetoothDevice bluetoothDevice, String primaryServiceUuid,
+                           String threadDataset) {
+        this(espDevice, bluetoothDevice, primaryServiceUuid, null, null, threadDataset);
+    }
+
+    private ProvisioningJob(ESPDevice espDevice, BluetoothDevice bluetoothDevice, String primaryServiceUuid,
+                            String ssid, String passphrase, String threadDataset) {
+
+        if (espDevice.getTransportType() != ESPConstants.TransportType.TRANSPORT_BLE) {
+            throw new IllegalArgumentException("Only devices with BLE transport can be provisioned concurrently.");
+        }
+        this.espDevice = espDevice;
+        this.bluetoothDevice = bluetoothDevice;
+        this.primaryServiceUuid = primaryServiceUuid;
+        this.ssid = ssid;
+        this.passphrase = passphrase;
+        this.threadDataset = threadDataset;
+    }
+
+    public ESPDevice getEspDevice() {
+        return espDevice;
+    }
+
+    public BluetoothDevice getBluetoothDevice() {
+        return bluetoothDevice;
+    }
+
+    public String getPrimaryServiceUuid() {
+        return primaryServiceUuid;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * This method is used to check whether provisioning of the device has finished (successfully or not).
+     *
+     * @return Returns true if job will not change its state anymore.
+     */
+    public boolean isFinished() {
+        return state == State.SUCCEEDED || state == State.FAILED || state == State.CANCELLED;
+    }
+
+    /**
+     * This method is used to get the reason of failure.
+     *
+     * @return Exception if job is failed, null otherwise.
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * This method is used to get the failure reason reported by the device.
+     *
+     * @return Failure reason if device has reported it, null otherwise.
+     */
+    public ESPConstants.ProvisionFailureReason getFailureReason() {
+        return failureReason;
+    }
+
+    /**
+     * This method is used to get time taken by the job.
+     *
+     * @return Time in milliseconds from connection request till end of provisioning (or till now if job is running).
+     * 0 if job is not started.
+     */
+    public long getDuration() {
+        if (startTime == 0) {
+            return 0;
+        }
+        return (endTime == 0 ? SystemClock.elapsedRealtime() : endTime) - startTime;
+    }
+
+    String getSsid() {
+        return ssid;
+    }
+
+    String getPassphrase() {
+        return passphrase;
+    }
+
+    String getThreadDataset() {
+        return threadDataset;
+    }
+
+    boolean isThreadProvisioning() {
+        return threadDataset != null;
+    }
+
+    void setState(State state) {
+        this.state = state;
+    }
+
+    void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    void setEndTime(long endTime) {
+        this.endTime = endTime;
+    }
+
+    void setError(Exception error) {
+        this.error = error;
+    }
+
+    void setFailureReason(ESPConstants.ProvisionFailureReason failureReason) {
+        this.failureReason = failureReason;
+    }
+}
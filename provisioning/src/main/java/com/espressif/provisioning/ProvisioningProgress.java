@@ -0,0 +1,107 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning;
+
+/**
+ * Snapshot of aggregated progress of {@link ESPProvisioningEngine}.
+ */
+public class ProvisioningProgress {
+
+    private final int queuedCount;
+    private final int activeCount;
+    private final int succeededCount;
+    private final int failedCount;
+    private final long elapsedTime;
+    private final long totalJobDuration;
+
+    ProvisioningProgress(int queuedCount, int activeCount, int succeededCount, int failedCount,
+                         long elapsedTime, long totalJobDuration) {
+        this.queuedCount = queuedCount;
+        this.activeCount = activeCount;
+        this.succeededCount = succeededCount;
+        this.failedCount = failedCount;
+        this.elapsedTime = elapsedTime;
+        this.totalJobDuration = totalJobDuration;
+    }
+
+    public int getQueuedCount() {
+        return queuedCount;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public int getSucceededCount() {
+        return succeededCount;
+    }
+
+    /**
+     * This method is used to get number of failed jobs, including cancelled jobs.
+     *
+     * @return Number of failed jobs.
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public int getCompletedCount() {
+        return succeededCount + failedCount;
+    }
+
+    public int getTotalCount() {
+        return queuedCount + activeCount + getCompletedCount();
+    }
+
+    /**
+     * This method is used to get time since first job has been started.
+     *
+     * @return Elapsed time in milliseconds.
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * This method is used to get average time taken by completed jobs.
+     *
+     * @return Average job duration in milliseconds, 0 if no job is completed.
+     */
+    public long getAverageJobDuration() {
+        int completed = getCompletedCount();
+        return completed == 0 ? 0 : totalJobDuration / completed;
+    }
+
+    /**
+     * This method is used to get throughput of the engine.
+     *
+     * @return Number of completed jobs per minute.
+     */
+    public double getThroughput() {
+        return elapsedTime == 0 ? 0 : getCompletedCount() * 60000.0 / elapsedTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ProvisioningProgress{" +
+                "queued=" + queuedCount +
+                ", active=" + activeCount +
+                ", succeeded=" + succeededCount +
+                ", failed=" + failedCount +
+                ", elapsedTime=" + elapsedTime +
+                ", throughput=" + getThroughput() +
+                '}';
+    }
+}
@@ -15,20 +15,33 @@
 package com.espressif.provisioning;
 
 import com.espressif.provisioning.listeners.ResponseListener;
+import com.espressif.provisioning.metrics.ProvisioningMetrics;
+import com.espressif.provisioning.metrics.ProvisioningPhase;
 import com.espressif.provisioning.security.Security;
 import com.espressif.provisioning.transport.Transport;
 
+import java.util.ArrayDeque;
+
 /**
  * Session object encapsulates the Transport and Security
  * protocol implementations and is responsible for performing
  * initial handshake with the device to establish a secure session.
+ * <p>
+ * {@link #sendDataToDevice} can be called from any thread. Requests are queued
+ * and sent one at a time, request is encrypted only when previous response has
+ * been decrypted. So cipher state of the security stays in sync with the device.
  */
 public class Session {
 
     private static final String TAG = "Espressif::" + Session.class.getSimpleName();
     private Transport transport;
     private Security security;
-    private boolean isSessionEstablished;
+    private volatile boolean isSessionEstablished;
+    private String deviceId;
+    private int handshakeStep;
+
+    private final ArrayDeque<PendingRequest> pendingRequests = new ArrayDeque<>();
+    private boolean isRequestInProgress;
 
     /**
      * Initialize Session object with Transport and Security interface implementations
@@ -41,6 +54,15 @@ public class Session {
         this.security = security;
     }
 
+    /**
+     * Set id of the device (Bluetooth address or SoftAP SSID), used for metrics.
+     *
+     * @param deviceId
+     */
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
     /**
      * Get the Security implementation object
      *
@@ -77,41 +99,59 @@ public class Session {
      */
     public void init(byte[] response, final SessionListener sessionListener) throws RuntimeException {
 
+        if (response == null) {
+            handshakeStep = 0;
+        }
+
+        final long startTime = ProvisioningMetrics.startTimer();
+        final ProvisioningPhase phase = handshakeStep++ == 0 ? ProvisioningPhase.HANDSHAKE_STEP_0 : ProvisioningPhase.HANDSHAKE_STEP_1;
+        final byte[] request;
+
         try {
+            request = security.getNextRequestInSession(response);
+        } catch (RuntimeException e) {
+            if (sessionListener != null) {
+                sessionListener.OnSessionEstablishFailed(new RuntimeException("Session could not be established"));
+            }
+            return;
+        }
 
-            byte[] request = security.getNextRequestInSession(response);
+        if (request == null) {
 
-            if (request == null) {
+            isSessionEstablished = true;
+            if (sessionListener != null) {
+                sessionListener.OnSessionEstablished();
+            }
+            return;
+        }
 
-                isSessionEstablished = true;
-                if (sessionListener != null) {
-                    sessionListener.OnSessionEstablished();
-                }
-            } else {
-
-                transport.sendConfigData(ESPConstants.HANDLER_PROV_SESSION, request, new ResponseListener() {
-
-                    @Override
-                    public void onSuccess(byte[] returnData) {
-                        if (returnData == null) {
-                            if (sessionListener != null) {
-                                sessionListener.OnSessionEstablishFailed(new RuntimeException("Session could not be established"));
-                            }
-                        } else {
-                            init(returnData, sessionListener);
-                        }
-                    }
+        try {
+            transport.sendConfigData(ESPConstants.HANDLER_PROV_SESSION, request, new ResponseListener() {
 
-                    @Override
-                    public void onFailure(Exception e) {
+                @Override
+                public void onSuccess(byte[] returnData) {
+                    ProvisioningMetrics metrics = ProvisioningMetrics.getInstance();
+                    metrics.recordTransfer(deviceId, ESPConstants.HANDLER_PROV_SESSION, request.length, returnData == null ? 0 : returnData.length);
+                    metrics.recordPhase(deviceId, phase, startTime, returnData != null);
+                    if (returnData == null) {
                         if (sessionListener != null) {
-                            sessionListener.OnSessionEstablishFailed(e);
+                            sessionListener.OnSessionEstablishFailed(new RuntimeException("Session could not be established"));
                         }
+                    } else {
+                        init(returnData, sessionListener);
                     }
-                });
-            }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    ProvisioningMetrics.getInstance().recordPhase(deviceId, phase, startTime, false);
+                    if (sessionListener != null) {
+                        sessionListener.OnSessionEstablishFailed(e);
+                    }
+                }
+            });
         } catch (RuntimeException e) {
-            if (response == null && sessionListener != null) {
+            if (sessionListener != null) {
                 sessionListener.OnSessionEstablishFailed(new RuntimeException("Session could not be established"));
             }
         }
@@ -119,63 +159,118 @@ public class Session {
 
     public void sendDataToDevice(final String path, byte[] data, final ResponseListener listener) {
 
-        final byte[] encryptedData = security.encrypt(data);
+        synchronized (pendingRequests) {
+            pendingRequests.add(new PendingRequest(path, data, listener));
+            if (isRequestInProgress) {
+                return;
+            }
+            isRequestInProgress = true;
+        }
+        sendNextRequest();
+    }
+
+    private void sendNextRequest() {
+
+        final PendingRequest request;
+
+        synchronized (pendingRequests) {
+            request = pendingRequests.poll();
+            if (request == null) {
+                isRequestInProgress = false;
+                return;
+            }
+        }
 
         if (isSessionEstablished) {
 
-            transport.sendConfigData(path, encryptedData, new ResponseListener() {
+            sendRequest(request);
 
-                @Override
-                public void onSuccess(byte[] returnData) {
+        } else {
 
-                    byte[] decryptedData = security.decrypt(returnData);
-                    if (listener != null) {
-                        listener.onSuccess(decryptedData);
-                    }
+            init(null, new SessionListener() {
+
+                @Override
+                public void OnSessionEstablished() {
+                    sendRequest(request);
                 }
 
                 @Override
-                public void onFailure(Exception e) {
-                    isSessionEstablished = false;
-                    if (listener != null) {
-                        listener.onFailure(e);
+                public void OnSessionEstablishFailed(Exception e) {
+                    sendNextRequest();
+                    if (request.listener != null) {
+                        request.listener.onFailure(e);
                     }
                 }
             });
+        }
+    }
 
-        } else {
+    private void sendRequest(final PendingRequest request) {
 
-            init(null, new SessionListener() {
+        final byte[] encryptedData;
+
+        try {
+            encryptedData = security.encrypt(request.data);
+        } catch (RuntimeException e) {
+            failRequest(request, e);
+            return;
+        }
+
+        try {
+            transport.sendConfigData(request.path, encryptedData, new ResponseListener() {
 
                 @Override
-                public void OnSessionEstablished() {
+                public void onSuccess(byte[] returnData) {
 
-                    transport.sendConfigData(path, encryptedData, new ResponseListener() {
+                    ProvisioningMetrics.getInstance().recordTransfer(deviceId, request.path, encryptedData.length, returnData == null ? 0 : returnData.length);
+                    byte[] decryptedData;
 
-                        @Override
-                        public void onSuccess(byte[] returnData) {
-                            if (listener != null) {
-                                listener.onSuccess(returnData);
-                            }
-                        }
+                    try {
+                        decryptedData = security.decrypt(returnData);
+                    } catch (RuntimeException e) {
+                        failRequest(request, e);
+                        return;
+                    }
 
-                        @Override
-                        public void onFailure(Exception e) {
-                            isSessionEstablished = false;
-                            if (listener != null) {
-                                listener.onFailure(e);
-                            }
-                        }
-                    });
+                    sendNextRequest();
+                    if (request.listener != null) {
+                        request.listener.onSuccess(decryptedData);
+                    }
                 }
 
                 @Override
-                public void OnSessionEstablishFailed(Exception e) {
-                    if (listener != null) {
-                        listener.onFailure(e);
-                    }
+                public void onFailure(Exception e) {
+                    isSessionEstablished = false;
+                    failRequest(request, e);
                 }
             });
+        } catch (RuntimeException e) {
+            isSessionEstablished = false;
+            failRequest(request, e);
+        }
+    }
+
+    /**
+     * Fails given request and sends the next one, so that the queue keeps moving.
+     */
+    private void failRequest(PendingRequest request, Exception e) {
+
+        sendNextRequest();
+        if (request.listener != null) {
+            request.listener.onFailure(e);
+        }
+    }
+
+    private static class PendingRequest {
+
+        private final String path;
+        private final byte[] data;
+        private final ResponseListener listener;
+
+        PendingRequest(String path, byte[] data, ResponseListener listener) {
+            this.path = path;
+            this.data = data;
+            this.listener = listener;
         }
     }
 
@@ -0,0 +1,119 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.device_scanner;
+
+import android.Manifest;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothManager;
+import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.RequiresPermission;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link BleScanBackend} implementation with BluetoothLeScanner.
+ */
+class AndroidBleScanBackend implements BleScanBackend {
+
+    private static final String TAG = "ESP:" + AndroidBleScanBackend.class.getSimpleName();
+
+    private final BluetoothAdapter bluetoothAdapter;
+    private final List<ScanFilter> filters;
+    private BluetoothLeScanner bluetoothLeScanner;
+    private ScanCallback scanCallback;
+
+    AndroidBleScanBackend(Context context, List<ScanFilter> filters) {
+
+        BluetoothManager bluetoothManager = (BluetoothManager) context.getSystemService(Context.BLUETOOTH_SERVICE);
+        this.bluetoothAdapter = bluetoothManager.getAdapter();
+        this.filters = filters == null ? new ArrayList<ScanFilter>() : filters;
+    }
+
+    @Override
+    @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+    public boolean startScan(int scanMode, long reportDelayMs, final Callback callback) {
+
+        if (bluetoothAdapter == null || !bluetoothAdapter.isEnabled()) {
+            return false;
+        }
+
+        bluetoothLeScanner = bluetoothAdapter.getBluetoothLeScanner();
+        if (bluetoothLeScanner == null) {
+            return false;
+        }
+
+        ScanSettings settings = new ScanSettings.Builder()
+                .setScanMode(scanMode)
+                .setReportDelay(reportDelayMs)
+                .build();
+
+        scanCallback = new ScanCallback() {
+
+            @Override
+            public void onScanResult(int callbackType, ScanResult result) {
+                callback.onScanResult(result);
+            }
+
+            @Override
+            public void onBatchScanResults(List<ScanResult> results) {
+                for (ScanResult result : results) {
+                    callback.onScanResult(result);
+                }
+            }
+
+            @Override
+            public void onScanFailed(int errorCode) {
+                Log.e(TAG, "onScanFailed, errorCode:" + errorCode);
+                callback.onScanFailed(errorCode);
+            }
+        };
+
+        try {
+            bluetoothLeScanner.startScan(filters, settings, scanCallback);
+            return true;
+        } catch (IllegalStateException e) {
+            // Bluetooth is turned off in between.
+            Log.e(TAG, e.toString());
+            return false;
+        }
+    }
+
+    @Override
+    @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+    public void stopScan() {
+
+        if (bluetoothLeScanner != null && scanCallback != null && bluetoothAdapter.isEnabled()) {
+            try {
+                bluetoothLeScanner.stopScan(scanCallback);
+            } catch (Exception e) {
+                Log.e(TAG, e.toString());
+            }
+        }
+        scanCallback = null;
+    }
+
+    @Override
+    public boolean isBatchScanSupported() {
+        return bluetoothAdapter != null && bluetoothAdapter.isOffloadedScanBatchingSupported();
+    }
+}
@@ -0,0 +1,116 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.device_scanner;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.ScanResult;
+
+/**
+ * This class holds information of BLE device in discovery index at the time of the report. It is immutable.
+ */
+public final class BleDiscoveredDevice {
+
+    private final String address;
+    private final String name;
+    private final BluetoothDevice device;
+    private final ScanResult scanResult;
+    private final int rssi;
+    private final int smoothedRssi;
+    private final long firstSeenTime;
+    private final long lastSeenTime;
+    private final int seenCount;
+
+    BleDiscoveredDevice(String address, String name, BluetoothDevice device, ScanResult scanResult, int rssi,
+                        int smoothedRssi, long firstSeenTime, long lastSeenTime, int seenCount) {
+
+        this.address = address;
+        this.name = name;
+        this.device = device;
+        this.scanResult = scanResult;
+        this.rssi = rssi;
+        this.smoothedRssi = smoothedRssi;
+        this.firstSeenTime = firstSeenTime;
+        this.lastSeenTime = lastSeenTime;
+        this.seenCount = seenCount;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BluetoothDevice getDevice() {
+        return device;
+    }
+
+    /**
+     * @return Returns last scan result of the device.
+     */
+    public ScanResult getScanResult() {
+        return scanResult;
+    }
+
+    /**
+     * This method is used to get first service UUID advertised by the device, which is needed to connect the device.
+     *
+     * @return Returns service UUID or empty string if it is not available.
+     */
+    public String getPrimaryServiceUuid() {
+
+        if (scanResult != null && scanResult.getScanRecord() != null && scanResult.getScanRecord().getServiceUuids() != null
+                && scanResult.getScanRecord().getServiceUuids().size() > 0) {
+            return scanResult.getScanRecord().getServiceUuids().get(0).toString();
+        }
+        return "";
+    }
+
+    /**
+     * @return Returns RSSI of last advertisement.
+     */
+    public int getRssi() {
+        return rssi;
+    }
+
+    /**
+     * @return Returns exponentially smoothed RSSI.
+     */
+    public int getSmoothedRssi() {
+        return smoothedRssi;
+    }
+
+    /**
+     * @return Returns time (SystemClock.elapsedRealtime) at which device was seen first.
+     */
+    public long getFirstSeenTime() {
+        return firstSeenTime;
+    }
+
+    /**
+     * @return Returns time (SystemClock.elapsedRealtime) at which device was seen last.
+     */
+    public long getLastSeenTime() {
+        return lastSeenTime;
+    }
+
+    /**
+     * @return Returns number of advertisements received from the device.
+     */
+    public int getSeenCount() {
+        return seenCount;
+    }
+}
@@ -0,0 +1,370 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.device_scanner;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.ScanResult;
+import android.text.TextUtils;
+
+import com.espressif.provisioning.listeners.BleDiscoveryListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index of BLE devices found in scan, keyed by device address.
+ * <p>
+ * Each advertisement only updates the entry of its device (smoothed RSSI and last seen time).
+ * Changes are collected and reported to {@link BleDiscoveryListener} at most once per report interval,
+ * as lists of added, updated and lost devices. Devices which are not seen till TTL are removed.
+ */
+public class BleDiscoveryIndex {
+
+    public static final long DEFAULT_TTL = 10000; // 10 seconds
+    public static final long DEFAULT_REPORT_INTERVAL = 500;
+    public static final double DEFAULT_RSSI_SMOOTHING_FACTOR = 0.25;
+    public static final int DEFAULT_RSSI_CHANGE_THRESHOLD = 3;
+
+    private static ScheduledExecutorService defaultScheduler;
+
+    private final ScheduledExecutorService scheduler;
+    private final ScanClock clock;
+    private final HashMap<String, Entry> entries = new HashMap<>();
+    private final ArrayList<BleDiscoveredDevice> lostDevices = new ArrayList<>();
+
+    private long ttl = DEFAULT_TTL;
+    private long reportInterval = DEFAULT_REPORT_INTERVAL;
+    private double rssiSmoothingFactor = DEFAULT_RSSI_SMOOTHING_FACTOR;
+    private int rssiChangeThreshold = DEFAULT_RSSI_CHANGE_THRESHOLD;
+
+    private volatile BleDiscoveryListener listener;
+    private volatile Executor listenerExecutor;
+    private ScheduledFuture<?> reportTask;
+
+    public BleDiscoveryIndex() {
+        this(getDefaultScheduler());
+    }
+
+    /**
+     * @param scheduler Executor on which changes are collected and evicted devices are removed.
+     */
+    public BleDiscoveryIndex(ScheduledExecutorService scheduler) {
+        this(scheduler, ScanClock.SYSTEM);
+    }
+
+    BleDiscoveryIndex(ScheduledExecutorService scheduler, ScanClock clock) {
+        this.scheduler = scheduler;
+        this.clock = clock;
+    }
+
+    /**
+     * This method is used to set listener for changes of the index.
+     *
+     * @param listener Discovery listener, null to remove the listener.
+     * @param executor Executor on which listener is called (e.g. main thread executor).
+     *                 If it is null, listener is called on the scheduler thread.
+     */
+    public void setListener(BleDiscoveryListener listener, Executor executor) {
+        this.listener = listener;
+        this.listenerExecutor = executor;
+    }
+
+    /**
+     * This method is used to set time after which device that is not seen is removed from the index.
+     *
+     * @param ttlMs Time in milliseconds.
+     */
+    public synchronized void setTtl(long ttlMs) {
+        this.ttl = ttlMs;
+    }
+
+    /**
+     * This method is used to set minimum time between two reports of changes.
+     * It should be set before calling {@link #start()}.
+     *
+     * @param intervalMs Time in milliseconds.
+     */
+    public synchronized void setReportInterval(long intervalMs) {
+        this.reportInterval = intervalMs;
+    }
+
+    public synchronized long getReportInterval() {
+        return reportInterval;
+    }
+
+    /**
+     * This method is used to set weight of new RSSI value in smoothed RSSI.
+     *
+     * @param factor Value between 0 (RSSI is never changed) and 1 (no smoothing).
+     */
+    public synchronized void setRssiSmoothingFactor(double factor) {
+        this.rssiSmoothingFactor = factor;
+    }
+
+    /**
+     * This method is used to set minimum change of smoothed RSSI (in dBm) for which device is reported as updated.
+     *
+     * @param threshold RSSI change threshold.
+     */
+    public synchronized void setRssiChangeThreshold(int threshold) {
+        this.rssiChangeThreshold = threshold;
+    }
+
+    /**
+     * This method is used to start periodic reports of changes and eviction of devices.
+     */
+    public synchronized void start() {
+
+        if (reportTask != null) {
+            return;
+        }
+        reportTask = scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                report(clock.elapsedRealtime());
+            }
+        }, reportInterval, reportInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * This method is used to stop periodic reports. Devices remain in the index.
+     */
+    public synchronized void stop() {
+
+        if (reportTask != null) {
+            reportTask.cancel(false);
+            reportTask = null;
+        }
+    }
+
+    /**
+     * This method is used to remove all devices from the index, without reporting them as lost.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        lostDevices.clear();
+    }
+
+    /**
+     * This method is used to add scan result in the index.
+     *
+     * @param result Scan result received from BLE scanner.
+     */
+    public void onScanResult(ScanResult result) {
+
+        BluetoothDevice device = result.getDevice();
+        if (device == null) {
+            return;
+        }
+        String name = result.getScanRecord() == null ? null : result.getScanRecord().getDeviceName();
+        onAdvertisement(device.getAddress(), name, device, result, result.getRssi(),
+                TimeUnit.NANOSECONDS.toMillis(result.getTimestampNanos()));
+    }
+
+    /**
+     * This method is used to add scan results received in a batch.
+     *
+     * @param results Scan results.
+     */
+    public void onScanResults(List<ScanResult> results) {
+
+        for (ScanResult result : results) {
+            onScanResult(result);
+        }
+    }
+
+    /**
+     * This method is used to get devices currently available in the index.
+     *
+     * @return Returns list of devices.
+     */
+    public synchronized List<BleDiscoveredDevice> getDevices() {
+
+        ArrayList<BleDiscoveredDevice> devices = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            devices.add(entry.toDevice());
+        }
+        return devices;
+    }
+
+    /**
+     * This method is used to get device with given address.
+     *
+     * @param address Address of the device.
+     * @return Returns device or null if it is not in the index.
+     */
+    public synchronized BleDiscoveredDevice getDevice(String address) {
+
+        Entry entry = entries.get(address);
+        return entry == null ? null : entry.toDevice();
+    }
+
+    synchronized void onAdvertisement(String address, String name, BluetoothDevice device, ScanResult result,
+                                      int rssi, long timestamp) {
+
+        Entry entry = entries.get(address);
+
+        if (entry == null) {
+            entry = new Entry(address, rssi, timestamp);
+            entries.put(address, entry);
+        } else {
+            entry.smoothedRssi += rssiSmoothingFactor * (rssi - entry.smoothedRssi);
+            if (Math.abs(entry.smoothedRssi - entry.reportedRssi) >= rssiChangeThreshold) {
+                entry.isUpdated = true;
+            }
+        }
+
+        if (!TextUtils.isEmpty(name) && !name.equals(entry.name)) {
+            entry.name = name;
+            entry.isUpdated = true;
+        }
+        entry.device = device;
+        entry.scanResult = result;
+        entry.rssi = rssi;
+        entry.lastSeenTime = Math.max(entry.lastSeenTime, timestamp);
+        entry.seenCount++;
+    }
+
+    /**
+     * Removes devices not seen till TTL and reports changes collected since last report.
+     *
+     * @param now Current time of the clock.
+     */
+    void report(long now) {
+
+        final ArrayList<BleDiscoveredDevice> added = new ArrayList<>();
+        final ArrayList<BleDiscoveredDevice> updated = new ArrayList<>();
+        final ArrayList<BleDiscoveredDevice> lost;
+
+        synchronized (this) {
+
+            Iterator<Entry> iterator = entries.values().iterator();
+
+            while (iterator.hasNext()) {
+
+                Entry entry = iterator.next();
+
+                if (now - entry.lastSeenTime > ttl) {
+                    iterator.remove();
+                    // Device which is not reported yet is removed silently.
+                    if (!entry.isNew) {
+                        lostDevices.add(entry.toDevice());
+                    }
+                } else if (entry.isNew) {
+                    entry.isNew = false;
+                    entry.isUpdated = false;
+                    entry.reportedRssi = entry.smoothedRssi;
+                    added.add(entry.toDevice());
+                } else if (entry.isUpdated) {
+                    entry.isUpdated = false;
+                    entry.reportedRssi = entry.smoothedRssi;
+                    updated.add(entry.toDevice());
+                }
+            }
+
+            if (lostDevices.isEmpty()) {
+                lost = new ArrayList<>();
+            } else {
+                lost = new ArrayList<>(lostDevices);
+                lostDevices.clear();
+            }
+        }
+
+        final BleDiscoveryListener discoveryListener = listener;
+
+        if (discoveryListener == null || (added.isEmpty() && updated.isEmpty() && lost.isEmpty())) {
+            return;
+        }
+
+        Runnable dispatchTask = new Runnable() {
+
+            @Override
+            public void run() {
+                discoveryListener.onDevicesChanged(Collections.unmodifiableList(added),
+                        Collections.unmodifiableList(updated), Collections.unmodifiableList(lost));
+            }
+        };
+
+        Executor executor = listenerExecutor;
+        if (executor == null) {
+            dispatchTask.run();
+        } else {
+            try {
+                executor.execute(dispatchTask);
+            } catch (RejectedExecutionException e) {
+                dispatchTask.run();
+            }
+        }
+    }
+
+    private static synchronized ScheduledExecutorService getDefaultScheduler() {
+
+        if (defaultScheduler == null) {
+            defaultScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "BleDiscoveryIndex");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultScheduler;
+    }
+
+    /**
+     * Mutable state of a device, accessed only while holding the index lock.
+     */
+    private static class Entry {
+
+        private final String address;
+        private final long firstSeenTime;
+        private String name;
+        private BluetoothDevice device;
+        private ScanResult scanResult;
+        private int rssi;
+        private double smoothedRssi;
+        private double reportedRssi;
+        private long lastSeenTime;
+        private int seenCount;
+        private boolean isNew = true;
+        private boolean isUpdated;
+
+        Entry(String address, int rssi, long timestamp) {
+            this.address = address;
+            this.firstSeenTime = timestamp;
+            this.lastSeenTime = timestamp;
+            this.smoothedRssi = rssi;
+            this.reportedRssi = rssi;
+        }
+
+        BleDiscoveredDevice toDevice() {
+            return new BleDiscoveredDevice(address, name, device, scanResult, rssi,
+                    (int) Math.round(smoothedRssi), firstSeenTime, lastSeenTime, seenCount);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.device_scanner;
+
+import android.bluetooth.le.ScanResult;
+
+/**
+ * Starts and stops BLE scan for {@link ContinuousBleScanner}. It is implemented with BluetoothLeScanner
+ * and can be replaced by a fake to run scan scheduling on the JVM.
+ */
+interface BleScanBackend {
+
+    /**
+     * Callback for results of the scan.
+     */
+    interface Callback {
+
+        void onScanResult(ScanResult result);
+
+        void onScanFailed(int errorCode);
+    }
+
+    /**
+     * Starts the scan.
+     *
+     * @param scanMode      One of ScanSettings.SCAN_MODE_* values.
+     * @param reportDelayMs Delay for batching of scan results, 0 to get every result immediately.
+     * @param callback      Callback for scan results.
+     * @return Returns false if scan could not be started, e.g. Bluetooth is turned off.
+     */
+    boolean startScan(int scanMode, long reportDelayMs, Callback callback);
+
+    /**
+     * Stops the scan started last.
+     */
+    void stopScan();
+
+    /**
+     * @return Returns true if batching of scan results is supported by the controller.
+     */
+    boolean isBatchScanSupported();
+}
@@ -50,6 +50,8 @@ public class BleScanner {
 
     private boolean isScanning = false;
     private String prefix = "";
+    private long scanTimeout = SCAN_TIME_OUT;
+    private BleDiscoveryIndex discoveryIndex;
 
     public BleScanner(Context context, BleScanListener bleScannerListener) {
 
@@ -66,6 +68,38 @@ public class BleScanner {
         this.prefix = prefix;
     }
 
+    /**
+     * This method is used to set duration of the scan. Default duration is 6 seconds.
+     * It should be set before starting the scan.
+     *
+     * @param timeoutMs Scan duration in milliseconds.
+     */
+    public void setScanTimeout(long timeoutMs) {
+        this.scanTimeout = timeoutMs;
+    }
+
+    /**
+     * This method is used to collect scan results in discovery index, instead of giving every advertisement
+     * to {@link BleScanListener#onPeripheralFound}. Devices are reported by the listener of the index.
+     * It should be set before starting the scan. Index is started with the scan and it is stopped when scan is
+     * completed, devices remain in the index.
+     *
+     * @param index Discovery index, null to report every advertisement to BleScanListener.
+     */
+    public void setDiscoveryIndex(BleDiscoveryIndex index) {
+        this.discoveryIndex = index;
+    }
+
+    /**
+     * This method is used to check whether scan results can be batched by the controller
+     * (scan with report delay).
+     *
+     * @return Returns true if batching of scan results is supported.
+     */
+    public boolean isBatchScanSupported() {
+        return bluetoothAdapter.isOffloadedScanBatchingSupported();
+    }
+
     /**
      * This method is used to start BLE scan.
      */
@@ -119,8 +153,11 @@ public class BleScanner {
 
         bluetoothLeScanner = bluetoothAdapter.getBluetoothLeScanner();
         isScanning = true;
+        if (discoveryIndex != null) {
+            discoveryIndex.start();
+        }
         bluetoothLeScanner.startScan(filters, scanSettings, scanCallback);
-        handler.postDelayed(stopScanTask, SCAN_TIME_OUT);
+        handler.postDelayed(stopScanTask, scanTimeout);
     }
 
     /**
@@ -141,6 +178,9 @@ public class BleScanner {
             }
         }
         isScanning = false;
+        if (discoveryIndex != null) {
+            discoveryIndex.stop();
+        }
         bleScanListener.scanCompleted();
     }
 
@@ -170,25 +210,18 @@ public class BleScanner {
         @Override
         @RequiresPermission(Manifest.permission.BLUETOOTH)
         public void onScanResult(int callbackType, ScanResult result) {
-
-            String deviceName = result.getScanRecord().getDeviceName();
-
-            if (result.getDevice() != null && !TextUtils.isEmpty(deviceName)) {
-                // Found BLE device
-                Log.d(TAG, "========== Device Found : " + deviceName);
-
-                if (TextUtils.isEmpty(prefix)) {
-                    bleScanListener.onPeripheralFound(result.getDevice(), result);
-                } else if (deviceName.startsWith(prefix)) {
-                    bleScanListener.onPeripheralFound(result.getDevice(), result);
-                }
-            }
+            handleScanResult(result);
         }
 
         @Override
+        @RequiresPermission(Manifest.permission.BLUETOOTH)
         public void onBatchScanResults(List<ScanResult> results) {
             super.onBatchScanResults(results);
-            Log.d(TAG, "onBatchScanResults()");
+            Log.d(TAG, "onBatchScanResults(), count : " + results.size());
+
+            for (ScanResult result : results) {
+                handleScanResult(result);
+            }
         }
 
         @Override
@@ -198,4 +231,24 @@ public class BleScanner {
             bleScanListener.onFailure(new RuntimeException("BLE scanning failed with error code : " + errorCode));
         }
     };
+
+    @RequiresPermission(Manifest.permission.BLUETOOTH)
+    private void handleScanResult(ScanResult result) {
+
+        String deviceName = result.getScanRecord() == null ? null : result.getScanRecord().getDeviceName();
+
+        if (result.getDevice() != null && !TextUtils.isEmpty(deviceName)
+                && (TextUtils.isEmpty(prefix) || deviceName.startsWith(prefix))) {
+
+            BleDiscoveryIndex index = discoveryIndex;
+
+            if (index != null) {
+                index.onScanResult(result);
+            } else {
+                // Found BLE device
+                Log.d(TAG, "========== Device Found : " + deviceName);
+                bleScanListener.onPeripheralFound(result.getDevice(), result);
+            }
+        }
+    }
 }
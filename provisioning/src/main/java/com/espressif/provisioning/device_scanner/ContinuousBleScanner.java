@@ -0,0 +1,462 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.device_scanner;
+
+import android.Manifest;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.RequiresPermission;
+
+import com.espressif.provisioning.listeners.BleDiscoveryListener;
+import com.espressif.provisioning.listeners.ContinuousBleScanListener;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to scan BLE devices for a long time, e.g. on provisioning stations.
+ * <p>
+ * Scan runs in a duty cycle : it is on for scan window and off for rest of the scan interval.
+ * Android allows only few scan starts in 30 seconds, so starts are delayed to stay within that budget.
+ * If no new device is found till idle timeout, scanner switches to a single long scan in idle scan mode
+ * (low power by default) and returns to duty cycle as soon as a new device is found.
+ * Devices are collected in {@link BleDiscoveryIndex}.
+ */
+public class ContinuousBleScanner {
+
+    private static final String TAG = "ESP:" + ContinuousBleScanner.class.getSimpleName();
+
+    public static final long DEFAULT_SCAN_WINDOW = 10000;
+    public static final long DEFAULT_SCAN_INTERVAL = 15000;
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+    // Android allows 5 scan starts in 30 seconds for an app. One start is left for other scans of the app.
+    static final int SCAN_START_LIMIT = 4;
+    // Android changes scans running for more than 30 minutes to opportunistic scans, so long scans are restarted.
+    static final long MAX_SCAN_DURATION = 25 * 60 * 1000;
+
+    private static ScheduledExecutorService defaultScheduler;
+
+    private final BleScanBackend backend;
+    private final BleDiscoveryIndex index;
+    private final ScheduledExecutorService scheduler;
+    private final ScanClock clock;
+    private final ScanStartLimiter startLimiter = new ScanStartLimiter(SCAN_START_LIMIT);
+
+    private String prefix = "";
+    private long scanWindow = DEFAULT_SCAN_WINDOW;
+    private long scanInterval = DEFAULT_SCAN_INTERVAL;
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private int activeScanMode = ScanSettings.SCAN_MODE_BALANCED;
+    private int idleScanMode = ScanSettings.SCAN_MODE_LOW_POWER;
+
+    private volatile ContinuousBleScanListener listener;
+    private volatile Executor listenerExecutor;
+
+    private boolean isRunning;
+    private boolean isScanning;
+    private boolean isIdle;
+    private long lastNewDeviceTime;
+    private ScheduledFuture<?> pendingTask;
+    // Incremented on every scan start, so that callbacks of the previous scan are ignored.
+    private int scanId;
+
+    /**
+     * @param context Context
+     * @param prefix  Prefix to filter devices from device name. It can be empty.
+     * @param filters Scan filters, e.g. service UUID. It can be null.
+     * @param index   Discovery index to collect devices.
+     */
+    public ContinuousBleScanner(Context context, String prefix, List<ScanFilter> filters, BleDiscoveryIndex index) {
+
+        this(new AndroidBleScanBackend(context, filters), index, getDefaultScheduler(), ScanClock.SYSTEM);
+        this.prefix = prefix;
+    }
+
+    ContinuousBleScanner(BleScanBackend backend, BleDiscoveryIndex index, ScheduledExecutorService scheduler, ScanClock clock) {
+
+        this.backend = backend;
+        this.index = index;
+        this.scheduler = scheduler;
+        this.clock = clock;
+    }
+
+    /**
+     * This method is used to set listener for devices found in the scan.
+     *
+     * @param listener Scan listener, null to remove the listener.
+     * @param executor Executor on which listener is called (e.g. main thread executor).
+     *                 If it is null, listener is called on the scheduler thread.
+     */
+    public void setListener(ContinuousBleScanListener listener, Executor executor) {
+        this.listener = listener;
+        this.listenerExecutor = executor;
+    }
+
+    /**
+     * This method is used to set duty cycle of the scan. If scan window is same as scan interval, scan runs all the time.
+     *
+     * @param scanWindowMs   Time for which scan is on in every interval.
+     * @param scanIntervalMs Interval at which scan is started.
+     */
+    public synchronized void setDutyCycle(long scanWindowMs, long scanIntervalMs) {
+
+        if (scanWindowMs <= 0 || scanIntervalMs < scanWindowMs) {
+            throw new IllegalArgumentException("Scan window should be positive and not more than scan interval.");
+        }
+        this.scanWindow = scanWindowMs;
+        this.scanInterval = scanIntervalMs;
+    }
+
+    /**
+     * This method is used to set time without new devices after which scanner switches to idle scan mode.
+     *
+     * @param idleTimeoutMs Time in milliseconds.
+     */
+    public synchronized void setIdleTimeout(long idleTimeoutMs) {
+        this.idleTimeout = idleTimeoutMs;
+    }
+
+    /**
+     * This method is used to set scan mode used in duty cycle. Default is ScanSettings.SCAN_MODE_BALANCED.
+     *
+     * @param scanMode One of ScanSettings.SCAN_MODE_* values.
+     */
+    public synchronized void setActiveScanMode(int scanMode) {
+        this.activeScanMode = scanMode;
+    }
+
+    /**
+     * This method is used to set scan mode used when no new device is found till idle timeout.
+     * Default is ScanSettings.SCAN_MODE_LOW_POWER. ScanSettings.SCAN_MODE_OPPORTUNISTIC only receives
+     * results of scans started by other apps, so it does not use any power.
+     *
+     * @param scanMode One of ScanSettings.SCAN_MODE_* values.
+     */
+    public synchronized void setIdleScanMode(int scanMode) {
+        this.idleScanMode = scanMode;
+    }
+
+    public BleDiscoveryIndex getIndex() {
+        return index;
+    }
+
+    public synchronized boolean isRunning() {
+        return isRunning;
+    }
+
+    public synchronized boolean isIdle() {
+        return isIdle;
+    }
+
+    /**
+     * This method is used to start continuous scan.
+     */
+    @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+    public synchronized void start() {
+
+        if (isRunning) {
+            return;
+        }
+        Log.d(TAG, "Start continuous BLE scan");
+        isRunning = true;
+        isIdle = false;
+        lastNewDeviceTime = clock.elapsedRealtime();
+
+        index.setListener(new BleDiscoveryListener() {
+
+            @Override
+            public void onDevicesChanged(List<BleDiscoveredDevice> added, List<BleDiscoveredDevice> updated, List<BleDiscoveredDevice> lost) {
+
+                if (!added.isEmpty()) {
+                    onNewDevicesFound();
+                }
+                dispatchDevicesChanged(added, updated, lost);
+            }
+        }, null);
+        index.start();
+        startScan();
+    }
+
+    /**
+     * This method is used to stop continuous scan. Devices remain in the index.
+     */
+    @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+    public synchronized void stop() {
+
+        if (!isRunning) {
+            return;
+        }
+        Log.d(TAG, "Stop continuous BLE scan");
+        isRunning = false;
+        cancelPendingTask();
+        stopScan();
+        index.stop();
+        index.setListener(null, null);
+    }
+
+    /**
+     * Starts scan in current mode, or schedules the start if scan start budget is used.
+     */
+    @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+    private void startScan() {
+
+        if (!isRunning) {
+            return;
+        }
+
+        long now = clock.elapsedRealtime();
+        long delay = getScanStartDelay(now);
+
+        if (delay > 0) {
+            Log.d(TAG, "Scan start is delayed by " + delay + " ms");
+            schedule(new Runnable() {
+
+                @Override
+                @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+                public void run() {
+                    startScan();
+                }
+            }, delay);
+            return;
+        }
+
+        int scanMode = isIdle ? idleScanMode : activeScanMode;
+        long reportDelay = backend.isBatchScanSupported() ? index.getReportInterval() : 0;
+        final int currentScanId = ++scanId;
+        startLimiter.onScanStarted(now);
+
+        boolean isStarted = backend.startScan(scanMode, reportDelay, new BleScanBackend.Callback() {
+
+            @Override
+            @RequiresPermission(Manifest.permission.BLUETOOTH)
+            public void onScanResult(ScanResult result) {
+
+                String deviceName = result.getScanRecord() == null ? null : result.getScanRecord().getDeviceName();
+
+                if (result.getDevice() != null && !TextUtils.isEmpty(deviceName)
+                        && (TextUtils.isEmpty(prefix) || deviceName.startsWith(prefix))) {
+                    index.onScanResult(result);
+                }
+            }
+
+            @Override
+            @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+            public void onScanFailed(int errorCode) {
+                ContinuousBleScanner.this.onScanFailed(currentScanId, errorCode);
+            }
+        });
+
+        if (!isStarted) {
+            dispatchScanFailed(new RuntimeException("BLE scan could not be started. Please turn on bluetooth."));
+            scheduleScanStart(scanInterval);
+            return;
+        }
+
+        isScanning = true;
+        long duration;
+
+        if (isIdle) {
+            duration = MAX_SCAN_DURATION;
+        } else if (scanWindow >= scanInterval) {
+            // Scan runs all the time, restart it when idle timeout can be reached.
+            duration = Math.min(MAX_SCAN_DURATION, Math.max(scanWindow, idleTimeout - (now - lastNewDeviceTime)));
+        } else {
+            duration = scanWindow;
+        }
+
+        schedule(new Runnable() {
+
+            @Override
+            @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+            public void run() {
+                onScanWindowEnd();
+            }
+        }, duration);
+    }
+
+    @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+    private synchronized void onScanWindowEnd() {
+
+        if (!isRunning) {
+            return;
+        }
+        stopScan();
+
+        long now = clock.elapsedRealtime();
+        if (!isIdle && now - lastNewDeviceTime >= idleTimeout) {
+            Log.d(TAG, "No new device found, switching to idle scan mode");
+            isIdle = true;
+        }
+
+        if (isIdle || scanWindow >= scanInterval) {
+            startScan();
+        } else {
+            scheduleScanStart(scanInterval - scanWindow);
+        }
+    }
+
+    @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+    private synchronized void onNewDevicesFound() {
+
+        lastNewDeviceTime = clock.elapsedRealtime();
+
+        if (isRunning && isIdle) {
+            Log.d(TAG, "New device found, switching to duty cycle");
+            isIdle = false;
+            cancelPendingTask();
+            stopScan();
+            startScan();
+        }
+    }
+
+    @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+    private synchronized void onScanFailed(int currentScanId, int errorCode) {
+
+        if (!isRunning || currentScanId != scanId || errorCode == ScanCallback.SCAN_FAILED_ALREADY_STARTED) {
+            return;
+        }
+        isScanning = false;
+        cancelPendingTask();
+        dispatchScanFailed(new RuntimeException("BLE scanning failed with error code : " + errorCode));
+        scheduleScanStart(scanInterval);
+    }
+
+    private void scheduleScanStart(long delay) {
+
+        schedule(new Runnable() {
+
+            @Override
+            @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+            public void run() {
+                synchronized (ContinuousBleScanner.this) {
+                    startScan();
+                }
+            }
+        }, delay);
+    }
+
+    @RequiresPermission(allOf = {Manifest.permission.BLUETOOTH, Manifest.permission.BLUETOOTH_ADMIN})
+    private void stopScan() {
+
+        if (isScanning) {
+            backend.stopScan();
+            isScanning = false;
+        }
+    }
+
+    /**
+     * Returns time after which scan can be started without going over the scan start limit.
+     */
+    long getScanStartDelay(long now) {
+        return startLimiter.getStartDelay(now);
+    }
+
+    private void schedule(final Runnable task, long delay) {
+
+        cancelPendingTask();
+        pendingTask = scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                synchronized (ContinuousBleScanner.this) {
+                    task.run();
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelPendingTask() {
+
+        if (pendingTask != null) {
+            pendingTask.cancel(false);
+            pendingTask = null;
+        }
+    }
+
+    private void dispatchDevicesChanged(final List<BleDiscoveredDevice> added, final List<BleDiscoveredDevice> updated,
+                                        final List<BleDiscoveredDevice> lost) {
+
+        final ContinuousBleScanListener scanListener = listener;
+        if (scanListener == null) {
+            return;
+        }
+        dispatch(new Runnable() {
+
+            @Override
+            public void run() {
+                scanListener.onDevicesChanged(added, updated, lost);
+            }
+        });
+    }
+
+    private void dispatchScanFailed(final Exception e) {
+
+        Log.e(TAG, e.getMessage());
+        final ContinuousBleScanListener scanListener = listener;
+        if (scanListener == null) {
+            return;
+        }
+        dispatch(new Runnable() {
+
+            @Override
+            public void run() {
+                scanListener.onScanFailed(e);
+            }
+        });
+    }
+
+    private void dispatch(Runnable task) {
+
+        Executor executor = listenerExecutor;
+        if (executor == null) {
+            task.run();
+        } else {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        }
+    }
+
+    private static synchronized ScheduledExecutorService getDefaultScheduler() {
+
+        if (defaultScheduler == null) {
+            defaultScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ContinuousBleScanner");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultScheduler;
+    }
+}
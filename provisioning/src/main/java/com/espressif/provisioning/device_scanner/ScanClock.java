@@ -0,0 +1,36 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.device_scanner;
+
+import android.os.SystemClock;
+
+/**
+ * Source of time for BLE scanning, so that scan scheduling can be run with a fake clock.
+ */
+interface ScanClock {
+
+    ScanClock SYSTEM = new ScanClock() {
+
+        @Override
+        public long elapsedRealtime() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+
+    /**
+     * @return Returns time in milliseconds since boot, same as SystemClock.elapsedRealtime().
+     */
+    long elapsedRealtime();
+}
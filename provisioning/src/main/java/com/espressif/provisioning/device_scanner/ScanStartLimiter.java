@@ -0,0 +1,72 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.device_scanner;
+
+import java.util.ArrayDeque;
+
+/**
+ * This class is used to keep BLE scan starts within the limit of Android, which allows 5 scan starts in 30 seconds
+ * for an app. Scan started after that is not reported as failed, it just does not deliver any result.
+ * <p>
+ * Times are in milliseconds of SystemClock.elapsedRealtime().
+ */
+public class ScanStartLimiter {
+
+    public static final long LIMIT_WINDOW = 30000;
+    // Extra time to wait, so that start is not counted in the window of the oldest start.
+    private static final long START_MARGIN = 100;
+
+    private final int limit;
+    private final ArrayDeque<Long> startTimes = new ArrayDeque<>();
+
+    /**
+     * @param limit Number of scan starts allowed in {@link #LIMIT_WINDOW}. Use less than 5 to leave starts
+     *              for other scans of the app.
+     */
+    public ScanStartLimiter(int limit) {
+
+        if (limit < 1) {
+            throw new IllegalArgumentException("At least one scan start must be allowed.");
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * This method is used to get time after which scan can be started without going over the limit.
+     *
+     * @param now Current time.
+     * @return Returns delay in milliseconds, 0 if scan can be started now.
+     */
+    public synchronized long getStartDelay(long now) {
+
+        while (!startTimes.isEmpty() && now - startTimes.peekFirst() >= LIMIT_WINDOW) {
+            startTimes.pollFirst();
+        }
+
+        if (startTimes.size() < limit) {
+            return 0;
+        }
+        return startTimes.peekFirst() + LIMIT_WINDOW + START_MARGIN - now;
+    }
+
+    /**
+     * This method is used to record start of a scan.
+     *
+     * @param now Time at which scan is started.
+     */
+    public synchronized void onScanStarted(long now) {
+        startTimes.addLast(now);
+    }
+}
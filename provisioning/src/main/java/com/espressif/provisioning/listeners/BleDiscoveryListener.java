@@ -0,0 +1,34 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.listeners;
+
+import com.espressif.provisioning.device_scanner.BleDiscoveredDevice;
+
+import java.util.List;
+
+/**
+ * Interface for changes of BLE discovery index.
+ */
+public interface BleDiscoveryListener {
+
+    /**
+     * Called with changes collected since last call. It is not called if nothing has changed.
+     *
+     * @param added   Devices seen for the first time.
+     * @param updated Devices whose name or smoothed RSSI is changed.
+     * @param lost    Devices which are not seen till TTL and are removed from the index.
+     */
+    void onDevicesChanged(List<BleDiscoveredDevice> added, List<BleDiscoveredDevice> updated, List<BleDiscoveredDevice> lost);
+}
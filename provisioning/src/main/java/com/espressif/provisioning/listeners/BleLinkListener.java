@@ -0,0 +1,33 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.listeners;
+
+import com.espressif.provisioning.transport.BleLinkProfile;
+
+/**
+ * Interface for BLE link parameter updates.
+ */
+public interface BleLinkListener {
+
+    /**
+     * Called when connection priority is requested for a link mode or PHY of the link is updated.
+     *
+     * @param mode               Current link mode.
+     * @param connectionPriority Requested connection priority. One of BluetoothGatt.CONNECTION_PRIORITY_* values.
+     * @param txPhy              Transmitter PHY in use. One of BluetoothDevice.PHY_LE_* values.
+     * @param rxPhy              Receiver PHY in use. One of BluetoothDevice.PHY_LE_* values.
+     */
+    void onLinkParametersChanged(BleLinkProfile.LinkMode mode, int connectionPriority, int txPhy, int rxPhy);
+}
@@ -0,0 +1,29 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.listeners;
+
+/**
+ * Interface for continuous BLE scanning. Devices found in the scan are reported through
+ * {@link BleDiscoveryListener#onDevicesChanged}, newly appearing devices are in "added" list.
+ */
+public interface ContinuousBleScanListener extends BleDiscoveryListener {
+
+    /**
+     * Called when scan could not be started or it is failed. Scan is started again after the scan interval.
+     *
+     * @param e Exception
+     */
+    void onScanFailed(Exception e);
+}
@@ -0,0 +1,36 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.listeners;
+
+/**
+ * Interface for connection events of a device.
+ */
+public interface DeviceConnectionListener {
+
+    /**
+     * Called when device is connected and its version info / capabilities are available.
+     */
+    void onDeviceConnected();
+
+    /**
+     * Called when connection with the device could not be established.
+     */
+    void onDeviceConnectionFailed();
+
+    /**
+     * Called when connected device is disconnected.
+     */
+    void onDeviceDisconnected();
+}
@@ -0,0 +1,52 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.listeners;
+
+import com.espressif.provisioning.metrics.ProvisioningPhase;
+
+/**
+ * Interface for receiving provisioning metrics as they are recorded.
+ * Callbacks are invoked on the thread which records the metric, so implementation should return quickly.
+ */
+public interface MetricsListener {
+
+    /**
+     * Called when a phase is completed.
+     *
+     * @param deviceId   Bluetooth address or SoftAP SSID of the device.
+     * @param phase      Completed phase.
+     * @param durationUs Duration of the phase in microseconds.
+     * @param isSuccess  True if phase is completed successfully.
+     */
+    void onPhaseCompleted(String deviceId, ProvisioningPhase phase, long durationUs, boolean isSuccess);
+
+    /**
+     * Called when a request / response exchange with an endpoint is completed.
+     *
+     * @param deviceId      Bluetooth address or SoftAP SSID of the device.
+     * @param endpoint      Endpoint path.
+     * @param bytesSent     Bytes sent to the device.
+     * @param bytesReceived Bytes received from the device.
+     */
+    void onDataTransferred(String deviceId, String endpoint, int bytesSent, int bytesReceived);
+
+    /**
+     * Called when an operation of the phase is retried.
+     *
+     * @param deviceId Bluetooth address or SoftAP SSID of the device.
+     * @param phase    Phase which is retried.
+     */
+    void onRetry(String deviceId, ProvisioningPhase phase);
+}
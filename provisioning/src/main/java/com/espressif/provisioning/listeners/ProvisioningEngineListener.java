@@ -0,0 +1,39 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.listeners;
+
+import com.espressif.provisioning.ProvisioningJob;
+import com.espressif.provisioning.ProvisioningProgress;
+
+/**
+ * Interface for callbacks of multi-device provisioning engine.
+ */
+public interface ProvisioningEngineListener {
+
+    /**
+     * Called when state of a job is changed.
+     *
+     * @param job      Job whose state is changed.
+     * @param progress Aggregated progress of all jobs.
+     */
+    void onJobStateChanged(ProvisioningJob job, ProvisioningProgress progress);
+
+    /**
+     * Called when all submitted jobs are finished.
+     *
+     * @param progress Aggregated progress of all jobs.
+     */
+    void onAllJobsCompleted(ProvisioningProgress progress);
+}
@@ -0,0 +1,71 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Point in time copy of all provisioning metrics.
+ */
+public class MetricsSnapshot {
+
+    private final Map<ProvisioningPhase, LatencySnapshot> latencies;
+    private final Map<ProvisioningPhase, Long> failureCounts;
+    private final Map<ProvisioningPhase, Long> retryCounts;
+    private final Map<String, long[]> endpointBytes;
+
+    MetricsSnapshot(Map<ProvisioningPhase, LatencySnapshot> latencies, Map<ProvisioningPhase, Long> failureCounts,
+                    Map<ProvisioningPhase, Long> retryCounts, Map<String, long[]> endpointBytes) {
+        this.latencies = latencies;
+        this.failureCounts = failureCounts;
+        this.retryCounts = retryCounts;
+        this.endpointBytes = endpointBytes;
+    }
+
+    /**
+     * @param phase Provisioning phase.
+     * @return Durations of successfully completed phase.
+     */
+    public LatencySnapshot getLatency(ProvisioningPhase phase) {
+        return latencies.get(phase);
+    }
+
+    public long getFailureCount(ProvisioningPhase phase) {
+        return failureCounts.get(phase);
+    }
+
+    public long getRetryCount(ProvisioningPhase phase) {
+        return retryCounts.get(phase);
+    }
+
+    /**
+     * @return Endpoints for which data is transferred.
+     */
+    public Set<String> getEndpoints() {
+        return Collections.unmodifiableSet(endpointBytes.keySet());
+    }
+
+    public long getBytesSent(String endpoint) {
+        long[] bytes = endpointBytes.get(endpoint);
+        return bytes == null ? 0 : bytes[0];
+    }
+
+    public long getBytesReceived(String endpoint) {
+        long[] bytes = endpointBytes.get(endpoint);
+        return bytes == null ? 0 : bytes[1];
+    }
+}
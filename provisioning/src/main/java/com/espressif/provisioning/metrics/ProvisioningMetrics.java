@@ -0,0 +1,204 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.metrics;
+
+import com.espressif.provisioning.listeners.MetricsListener;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records durations of provisioning phases, bytes transferred per endpoint and retry counts of all devices.
+ * <p>
+ * Recorded values are aggregated in memory and can be read with {@link #getSnapshot()}.
+ * Each value is also given to {@link MetricsListener}, if it is set.
+ */
+public class ProvisioningMetrics {
+
+    private static ProvisioningMetrics metrics;
+
+    private final Map<ProvisioningPhase, PhaseStats> phaseStats = new EnumMap<>(ProvisioningPhase.class);
+    private final ConcurrentHashMap<String, AtomicLong[]> endpointBytes = new ConcurrentHashMap<>();
+    private volatile MetricsListener listener;
+    private volatile boolean isEnabled = true;
+
+    public static synchronized ProvisioningMetrics getInstance() {
+
+        if (metrics == null) {
+            metrics = new ProvisioningMetrics();
+        }
+        return metrics;
+    }
+
+    private ProvisioningMetrics() {
+
+        for (ProvisioningPhase phase : ProvisioningPhase.values()) {
+            phaseStats.put(phase, new PhaseStats());
+        }
+    }
+
+    /**
+     * Returns start time to be given to {@link #recordPhase}.
+     */
+    public static long startTimer() {
+        return System.nanoTime();
+    }
+
+    /**
+     * This method is used to set listener which receives every recorded metric.
+     *
+     * @param listener Metrics listener, null to remove the listener.
+     */
+    public void setListener(MetricsListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * This method is used to enable / disable recording of metrics. It is enabled by default.
+     *
+     * @param enable False to stop recording metrics.
+     */
+    public void setEnabled(boolean enable) {
+        this.isEnabled = enable;
+    }
+
+    /**
+     * This method is used to record completion of a phase.
+     *
+     * @param deviceId   Bluetooth address or SoftAP SSID of the device.
+     * @param phase      Completed phase.
+     * @param startNanos Start time of the phase, returned by {@link #startTimer()}.
+     * @param isSuccess  True if phase is completed successfully.
+     */
+    public void recordPhase(String deviceId, ProvisioningPhase phase, long startNanos, boolean isSuccess) {
+
+        if (!isEnabled || startNanos == 0) {
+            return;
+        }
+
+        long durationUs = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        PhaseStats stats = phaseStats.get(phase);
+
+        if (isSuccess) {
+            stats.latency.record(durationUs);
+        } else {
+            stats.failureCount.incrementAndGet();
+        }
+
+        MetricsListener metricsListener = listener;
+        if (metricsListener != null) {
+            metricsListener.onPhaseCompleted(deviceId, phase, durationUs, isSuccess);
+        }
+    }
+
+    /**
+     * This method is used to record data exchanged with an endpoint.
+     *
+     * @param deviceId      Bluetooth address or SoftAP SSID of the device.
+     * @param endpoint      Endpoint path.
+     * @param bytesSent     Bytes sent to the device.
+     * @param bytesReceived Bytes received from the device.
+     */
+    public void recordTransfer(String deviceId, String endpoint, int bytesSent, int bytesReceived) {
+
+        if (!isEnabled || endpoint == null) {
+            return;
+        }
+
+        AtomicLong[] bytes = endpointBytes.get(endpoint);
+        if (bytes == null) {
+            AtomicLong[] newBytes = new AtomicLong[]{new AtomicLong(), new AtomicLong()};
+            bytes = endpointBytes.putIfAbsent(endpoint, newBytes);
+            if (bytes == null) {
+                bytes = newBytes;
+            }
+        }
+        bytes[0].addAndGet(bytesSent);
+        bytes[1].addAndGet(bytesReceived);
+
+        MetricsListener metricsListener = listener;
+        if (metricsListener != null) {
+            metricsListener.onDataTransferred(deviceId, endpoint, bytesSent, bytesReceived);
+        }
+    }
+
+    /**
+     * This method is used to record retry of an operation of the phase.
+     *
+     * @param deviceId Bluetooth address or SoftAP SSID of the device.
+     * @param phase    Phase which is retried.
+     */
+    public void recordRetry(String deviceId, ProvisioningPhase phase) {
+
+        if (!isEnabled) {
+            return;
+        }
+
+        phaseStats.get(phase).retryCount.incrementAndGet();
+
+        MetricsListener metricsListener = listener;
+        if (metricsListener != null) {
+            metricsListener.onRetry(deviceId, phase);
+        }
+    }
+
+    /**
+     * This method is used to get copy of metrics recorded so far.
+     *
+     * @return Metrics snapshot.
+     */
+    public MetricsSnapshot getSnapshot() {
+
+        Map<ProvisioningPhase, LatencySnapshot> latencies = new EnumMap<>(ProvisioningPhase.class);
+        Map<ProvisioningPhase, Long> failureCounts = new EnumMap<>(ProvisioningPhase.class);
+        Map<ProvisioningPhase, Long> retryCounts = new EnumMap<>(ProvisioningPhase.class);
+
+        for (Map.Entry<ProvisioningPhase, PhaseStats> entry : phaseStats.entrySet()) {
+            latencies.put(entry.getKey(), entry.getValue().latency.getSnapshot());
+            failureCounts.put(entry.getKey(), entry.getValue().failureCount.get());
+            retryCounts.put(entry.getKey(), entry.getValue().retryCount.get());
+        }
+
+        Map<String, long[]> bytes = new HashMap<>();
+        for (Map.Entry<String, AtomicLong[]> entry : endpointBytes.entrySet()) {
+            bytes.put(entry.getKey(), new long[]{entry.getValue()[0].get(), entry.getValue()[1].get()});
+        }
+        return new MetricsSnapshot(latencies, failureCounts, retryCounts, bytes);
+    }
+
+    /**
+     * This method is used to remove all recorded metrics.
+     */
+    public void reset() {
+
+        for (PhaseStats stats : phaseStats.values()) {
+            stats.latency.reset();
+            stats.failureCount.set(0);
+            stats.retryCount.set(0);
+        }
+        endpointBytes.clear();
+    }
+
+    private static class PhaseStats {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicLong retryCount = new AtomicLong();
+    }
+}
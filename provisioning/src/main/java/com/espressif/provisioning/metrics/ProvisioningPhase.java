@@ -0,0 +1,40 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.metrics;
+
+/**
+ * Phases of device connection and provisioning for which durations are recorded.
+ */
+public enum ProvisioningPhase {
+
+    // BLE connection / SoftAP network connection.
+    CONNECT,
+    MTU_NEGOTIATION,
+    SERVICE_DISCOVERY,
+    // Reading user description descriptors of all characteristics.
+    DESCRIPTOR_READ,
+    // Reading version info from "proto-ver" endpoint.
+    PROTO_VER,
+    HANDSHAKE_STEP_0,
+    HANDSHAKE_STEP_1,
+    // Scan command, device completes the scan before it responds.
+    SCAN_START,
+    SCAN_STATUS,
+    SCAN_PAGE,
+    CONFIG_SEND,
+    CONFIG_APPLY,
+    // One iteration of provisioning status polling.
+    STATUS_POLL
+}
@@ -0,0 +1,175 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.security;
+
+import android.util.Log;
+
+import com.espressif.provisioning.ESPConstants;
+import com.espressif.provisioning.srp6a.SRP6Routines;
+import com.google.crypto.tink.subtle.X25519;
+
+import java.math.BigInteger;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates ephemeral key material of session handshake in background, while transport is still connecting.
+ * <p>
+ * Security 1 uses X25519 key pair and Security 2 uses SRP6a client private value 'a' and public key 'A'.
+ * Generated values are kept in a small pool and each value is given to one session only.
+ * If pool is empty, security implementation generates the values itself.
+ */
+public final class HandshakePrecomputer {
+
+    private static final String TAG = "Espressif::" + HandshakePrecomputer.class.getSimpleName();
+
+    private static final int POOL_SIZE = 2;
+    private static final int THREAD_COUNT = 2;
+
+    private static HandshakePrecomputer precomputer;
+
+    private final ExecutorService executor;
+    private final SecureRandom random = new SecureRandom();
+    private final SRP6Routines srp6Routines = new SRP6Routines();
+
+    // Generated values, {private key, public key}.
+    private final ConcurrentLinkedQueue<byte[][]> x25519KeyPairs = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<BigInteger[]> srpValues = new ConcurrentLinkedQueue<>();
+    // Values in pool and values being generated.
+    private final AtomicInteger x25519Count = new AtomicInteger();
+    private final AtomicInteger srpCount = new AtomicInteger();
+
+    public static synchronized HandshakePrecomputer getInstance() {
+
+        if (precomputer == null) {
+            precomputer = new HandshakePrecomputer();
+        }
+        return precomputer;
+    }
+
+    private HandshakePrecomputer() {
+
+        executor = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "HandshakePrecomputer");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * This method is used to start generating key material for given security type, till the pool is full.
+     * It returns immediately.
+     *
+     * @param securityType Security type which will be used for the session.
+     */
+    public void prepare(ESPConstants.SecurityType securityType) {
+
+        if (securityType == null) {
+            return;
+        }
+
+        switch (securityType) {
+            case SECURITY_1:
+                fill(x25519Count, new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            byte[] privateKey = X25519.generatePrivateKey();
+                            x25519KeyPairs.offer(new byte[][]{privateKey, X25519.publicFromPrivate(privateKey)});
+                        } catch (InvalidKeyException e) {
+                            Log.e(TAG, "Failed to generate key pair : " + e.getMessage());
+                            x25519Count.decrementAndGet();
+                        }
+                    }
+                });
+                break;
+
+            case SECURITY_2:
+                fill(srpCount, new Runnable() {
+
+                    @Override
+                    public void run() {
+                        BigInteger a = srp6Routines.generatePrivateValue(Security2.SRP_PARAMS.N, random);
+                        srpValues.offer(new BigInteger[]{a, srp6Routines.computePublicClientValue(Security2.SRP_PARAMS, a)});
+                    }
+                });
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * This method is used to remove all generated values.
+     */
+    public void clear() {
+
+        while (x25519KeyPairs.poll() != null) {
+            x25519Count.decrementAndGet();
+        }
+        while (srpValues.poll() != null) {
+            srpCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return X25519 key pair as {private key, public key} or null if pool is empty.
+     */
+    byte[][] takeX25519KeyPair() {
+
+        byte[][] keyPair = x25519KeyPairs.poll();
+        if (keyPair != null) {
+            x25519Count.decrementAndGet();
+        }
+        return keyPair;
+    }
+
+    /**
+     * @return SRP6a client values as {a, A} or null if pool is empty.
+     */
+    BigInteger[] takeSrpValues() {
+
+        BigInteger[] values = srpValues.poll();
+        if (values != null) {
+            srpCount.decrementAndGet();
+        }
+        return values;
+    }
+
+    private void fill(AtomicInteger count, Runnable generator) {
+
+        while (true) {
+            int current = count.get();
+            if (current >= POOL_SIZE) {
+                return;
+            }
+            if (count.compareAndSet(current, current + 1)) {
+                executor.execute(generator);
+            }
+        }
+    }
+}
@@ -19,6 +19,12 @@ package com.espressif.provisioning.security;
  * Security interface which abstracts
  * the handshake and crypto behavior supported by a specific
  * class / family of devices
+ * <p>
+ * Implementations must be safe to call from multiple threads. Cipher state of
+ * a session (stream position / message counter) advances with every message,
+ * so requests must be encrypted and responses decrypted in the same order as
+ * the device processes them. {@link com.espressif.provisioning.Session} does so
+ * by keeping a single encrypted exchange in flight.
  */
 public interface Security {
     /**
@@ -40,7 +40,11 @@ import espressif.Session;
  * Security 1 implementation of the handshake and encryption
  * protocols.
  * Security 1 is based on AES CTR mode with NoPadding
- *
+ * <p>
+ * Device uses a single CTR stream for both directions, so there is one cipher
+ * for encryption and decryption. Its use is synchronized, but messages must be
+ * encrypted / decrypted in the same order as the device processes them,
+ * {@link com.espressif.provisioning.Session} takes care of it.
  */
 public class Security1 implements Security {
     private static final String TAG = "Espressif::" + Security1.class.getSimpleName();
@@ -196,15 +200,22 @@ public class Security1 implements Security {
     }
 
     private void generateKeyPair() throws InvalidKeyException {
+
+        byte[][] keyPair = HandshakePrecomputer.getInstance().takeX25519KeyPair();
+        if (keyPair != null) {
+            this.privateKey = keyPair[0];
+            this.publicKey = keyPair[1];
+            return;
+        }
         this.privateKey = X25519.generatePrivateKey();
         this.publicKey = X25519.publicFromPrivate(this.privateKey);
     }
 
-    public byte[] encrypt(byte[] data) {
+    public synchronized byte[] encrypt(byte[] data) {
         return this.cipher.update(data);
     }
 
-    public byte[] decrypt(byte[] data) {
+    public synchronized byte[] decrypt(byte[] data) {
         return this.cipher.update(data);
     }
 }
@@ -25,25 +25,35 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
-import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
 import espressif.Sec2;
 import espressif.Session;
 
 /**
- * Security 1 implementation of the handshake and encryption
+ * Security 2 implementation of the handshake and encryption
  * protocols.
- * Security 1 is based on AES CTR mode with NoPadding
+ * Security 2 is based on SRP6a and AES GCM mode with NoPadding
+ * <p>
+ * Encryption and decryption are thread safe. Each direction has its own cipher
+ * and IV buffer. With patch version 1, every message (in either direction) takes
+ * the next value of a shared atomic counter as nonce, same as the device does.
+ * So messages must be encrypted / decrypted in the same order as the device
+ * processes them, {@link com.espressif.provisioning.Session} takes care of it.
  */
 public class Security2 implements Security {
     private static final String TAG = "Espressif::" + Security2.class.getSimpleName();
@@ -52,12 +62,18 @@ public class Security2 implements Security {
     private static final int SESSION_STATE_RESPONSE1_REQUEST2 = 1;
     private static final int SESSION_STATE_RESPONSE2 = 2;
     private static final int SESSION_STATE_FINISHED = 3;
+    private static final int GCM_TAG_LENGTH = 128;
+    private static final int NONCE_LENGTH = 12;
+
+    // Shared by all sessions, keeps the precomputed SRP values across handshakes.
+    static final SRP6CryptoParams SRP_PARAMS = SRP6CryptoParams.getInstance(3072, "SHA-512");
 
     private int sessionState = SESSION_STATE_REQUEST1;
 
     private String userName;
 
-    private Cipher cipher;
+    private final CipherStream encryptStream = new CipherStream(Cipher.ENCRYPT_MODE);
+    private final CipherStream decryptStream = new CipherStream(Cipher.DECRYPT_MODE);
     private SRP6ClientSession client;
 
     private BigInteger clientPublicKey = null;
@@ -66,7 +82,8 @@ public class Security2 implements Security {
     private byte[] clientProof;
     private byte[] sharedKey;
     private byte[] key;
-    private int counter;
+    private volatile SecretKeySpec secretKeySpec;
+    private final AtomicInteger counter = new AtomicInteger();
     private int secPatchVersion = 0;
 
     /***
@@ -75,11 +92,6 @@ public class Security2 implements Security {
     public Security2(String username, String password) {
 
         userName = username;
-        try {
-            this.cipher = Cipher.getInstance("AES/GCM/NoPadding");
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
-            e.printStackTrace();
-        }
         client = new SRP6ClientSession();
         client.step1(username, password);
     }
@@ -88,11 +100,6 @@ public class Security2 implements Security {
 
         userName = username;
         this.secPatchVersion = patchVersion;
-        try {
-            this.cipher = Cipher.getInstance("AES/GCM/NoPadding");
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
-            e.printStackTrace();
-        }
         client = new SRP6ClientSession();
         client.step1(username, password);
     }
@@ -123,7 +130,12 @@ public class Security2 implements Security {
     private byte[] getStep0Request() {
         try {
             try {
-                clientPublicKey = client.getClientPublicKey(SRP6CryptoParams.getInstance(3072, "SHA-512"));
+                BigInteger[] srpValues = HandshakePrecomputer.getInstance().takeSrpValues();
+                if (srpValues != null) {
+                    clientPublicKey = client.getClientPublicKey(SRP_PARAMS, srpValues[0], srpValues[1]);
+                } else {
+                    clientPublicKey = client.getClientPublicKey(SRP_PARAMS);
+                }
             } catch (SRP6Exception e) {
                 e.printStackTrace();
             }
@@ -188,8 +200,7 @@ public class Security2 implements Security {
             devicePublicKey = BigIntegerUtils.bigIntegerFromBytes(devicePubKey);
 
             try {
-                SRP6CryptoParams params = SRP6CryptoParams.getInstance(3072, "SHA-512");
-                SRP6ClientCredentials clientCredentials = client.step2_for_client_evidence(params, salt, devicePublicKey, deviceSalt);
+                SRP6ClientCredentials clientCredentials = client.step2_for_client_evidence(SRP_PARAMS, salt, devicePublicKey, deviceSalt);
                 BigInteger M1 = clientCredentials.M1;
                 clientProof = BigIntegerUtils.bigIntegerToBytes(M1);
             } catch (SRP6Exception e) {
@@ -222,8 +233,11 @@ public class Security2 implements Security {
 
             sharedKey = BigIntegerUtils.bigIntegerToBytes(client.K);
             key = Arrays.copyOfRange(sharedKey, 0, 32);
+            secretKeySpec = new SecretKeySpec(key, "AES");
+            encryptStream.setNonce(deviceNonce);
+            decryptStream.setNonce(deviceNonce);
 
-            counter = (deviceNonce[8] & 0xFF) << 24 | (deviceNonce[9] & 0xFF) << 16 | (deviceNonce[10] & 0xFF) << 8 | (deviceNonce[11] & 0xFF);
+            counter.set((deviceNonce[8] & 0xFF) << 24 | (deviceNonce[9] & 0xFF) << 16 | (deviceNonce[10] & 0xFF) << 8 | (deviceNonce[11] & 0xFF));
 
         } catch (InvalidProtocolBufferException e) {
             Log.e(TAG, e.getMessage());
@@ -231,74 +245,117 @@ public class Security2 implements Security {
     }
 
     public byte[] encrypt(byte[] data) {
+        return doFinal(encryptStream, data);
+    }
 
-        // Device nonce = IV
-        SecretKeySpec secretKeySpec = new SecretKeySpec(key, "AES");
-        IvParameterSpec parameterSpec = new IvParameterSpec(deviceNonce);
+    public byte[] decrypt(byte[] data) {
+        return doFinal(decryptStream, data);
+    }
 
-        if (secPatchVersion == 1) {
-            byte[] nonce = new byte[12];
-            System.arraycopy(deviceNonce, 0, nonce, 0, 8);
-            System.arraycopy(intToBigEndian(counter), 0, nonce, 8, 4);
-            counter++;
-            parameterSpec = new IvParameterSpec(nonce);
-        }
+    /**
+     * This method is used to encrypt data without allocating a new array for the result.
+     * Remaining bytes of input are encrypted and written into output along with 16 bytes of authentication tag.
+     * Positions of both buffers are advanced.
+     *
+     * @param input  Plain data.
+     * @param output Buffer to write encrypted data, must have at least input.remaining() + 16 bytes remaining.
+     * @return Number of bytes written into output, -1 on failure.
+     */
+    public int encrypt(ByteBuffer input, ByteBuffer output) {
+        return doFinal(encryptStream, input, output);
+    }
 
-        try {
-            this.cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec, parameterSpec);
-        } catch (InvalidAlgorithmParameterException e) {
-            e.printStackTrace();
-        } catch (InvalidKeyException e) {
-            e.printStackTrace();
-        }
+    /**
+     * This method is used to decrypt data without allocating a new array for the result.
+     * Remaining bytes of input (cipher text along with authentication tag) are decrypted and written into output.
+     * Positions of both buffers are advanced.
+     *
+     * @param input  Encrypted data.
+     * @param output Buffer to write plain data, must have at least input.remaining() - 16 bytes remaining.
+     * @return Number of bytes written into output, -1 on failure.
+     */
+    public int decrypt(ByteBuffer input, ByteBuffer output) {
+        return doFinal(decryptStream, input, output);
+    }
 
-        try {
-            return this.cipher.doFinal(data);
-        } catch (BadPaddingException e) {
-            e.printStackTrace();
-        } catch (IllegalBlockSizeException e) {
-            e.printStackTrace();
+    private byte[] doFinal(CipherStream stream, byte[] data) {
+
+        synchronized (stream) {
+
+            try {
+                stream.init(secretKeySpec, nextCounter());
+            } catch (InvalidAlgorithmParameterException e) {
+                e.printStackTrace();
+            } catch (InvalidKeyException e) {
+                e.printStackTrace();
+            }
+
+            try {
+                return stream.cipher.doFinal(data);
+            } catch (BadPaddingException e) {
+                e.printStackTrace();
+            } catch (IllegalBlockSizeException e) {
+                e.printStackTrace();
+            }
         }
         return null;
     }
 
-    public byte[] decrypt(byte[] data) {
+    private int doFinal(CipherStream stream, ByteBuffer input, ByteBuffer output) {
 
-        SecretKeySpec secretKeySpec = new SecretKeySpec(key, "AES");
-        IvParameterSpec parameterSpec = new IvParameterSpec(deviceNonce);
+        synchronized (stream) {
 
-        if (secPatchVersion == 1) {
-            byte[] nonce = new byte[12];
-            System.arraycopy(deviceNonce, 0, nonce, 0, 8);
-            System.arraycopy(intToBigEndian(counter), 0, nonce, 8, 4);
-            counter++;
-            parameterSpec = new IvParameterSpec(nonce);
+            try {
+                stream.init(secretKeySpec, nextCounter());
+                return stream.cipher.doFinal(input, output);
+            } catch (ShortBufferException e) {
+                Log.e(TAG, "Output buffer is too small : " + output.remaining() + " bytes");
+            } catch (GeneralSecurityException e) {
+                e.printStackTrace();
+            }
         }
+        return -1;
+    }
 
-        try {
-            this.cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, parameterSpec);
-        } catch (InvalidAlgorithmParameterException e) {
-            e.printStackTrace();
-        } catch (InvalidKeyException e) {
-            e.printStackTrace();
+    /**
+     * Device nonce = IV, with message counter in last 4 bytes for patch version 1.
+     *
+     * @return Counter value for the next message, -1 if device nonce is used as it is.
+     */
+    private long nextCounter() {
+        return secPatchVersion == 1 ? counter.getAndIncrement() : -1;
+    }
+
+    /**
+     * Cipher and IV buffer of one direction. Must be used while holding its lock.
+     */
+    private static final class CipherStream {
+
+        private final int mode;
+        private final byte[] nonce = new byte[NONCE_LENGTH];
+        private Cipher cipher;
+
+        CipherStream(int mode) {
+            this.mode = mode;
+            try {
+                this.cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+                e.printStackTrace();
+            }
         }
 
-        try {
-            return this.cipher.doFinal(data);
-        } catch (BadPaddingException e) {
-            e.printStackTrace();
-        } catch (IllegalBlockSizeException e) {
-            e.printStackTrace();
+        synchronized void setNonce(byte[] deviceNonce) {
+            System.arraycopy(deviceNonce, 0, nonce, 0, NONCE_LENGTH);
         }
-        return null;
-    }
 
-    private byte[] intToBigEndian(int value) {
-        return new byte[]{
-                (byte) (value >> 24),
-                (byte) (value >> 16),
-                (byte) (value >> 8),
-                (byte) value
-        };
+        void init(SecretKeySpec key, long counter) throws InvalidKeyException, InvalidAlgorithmParameterException {
+            if (counter != -1) {
+                nonce[8] = (byte) (counter >> 24);
+                nonce[9] = (byte) (counter >> 16);
+                nonce[10] = (byte) (counter >> 8);
+                nonce[11] = (byte) counter;
+            }
+            cipher.init(mode, key, new GCMParameterSpec(GCM_TAG_LENGTH, nonce));
+        }
     }
 }
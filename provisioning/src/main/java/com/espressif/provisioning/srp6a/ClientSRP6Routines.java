@@ -24,7 +24,7 @@ public class ClientSRP6Routines implements ClientEvidenceRoutine {
 
     private MessageDigest digest;
 
-    ClientSRP6Routines(MessageDigest digest)  {
+    public ClientSRP6Routines(MessageDigest digest)  {
         this.digest = digest;
     }
 
@@ -44,20 +44,11 @@ public class ClientSRP6Routines implements ClientEvidenceRoutine {
     public BigInteger computeClientEvidence(SRP6CryptoParams cryptoParams, SRP6ClientEvidenceContext ctx) {
 
         byte[] big_N = BigIntegerUtils.bigIntegerToBytes(cryptoParams.N);
-        byte[] big_g = BigIntegerUtils.bigIntegerToBytes(cryptoParams.g);
-
-        int padding = big_N.length - big_g.length;
+        byte[] big_g = cryptoParams.getPaddedG();
 
         digest.update(big_N);
         byte[] hn = digest.digest();
 
-        if (big_g.length < big_N.length) {
-
-            byte[] tmp = new byte[big_N.length];
-            System.arraycopy(big_g, 0, tmp, padding, big_g.length);
-            big_g = tmp;
-        }
-
         digest.update(big_g);
         byte[] hg = digest.digest();
 
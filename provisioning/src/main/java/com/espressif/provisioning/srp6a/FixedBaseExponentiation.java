@@ -0,0 +1,118 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.srp6a;
+
+import java.math.BigInteger;
+
+/**
+ * Computes base^e (mod N) for a fixed base and modulus with a precomputed table
+ * (fixed-base windowing, Brickell, Gordon, McCurley and Wilson).
+ *
+ * <p>Table holds base^(2^(w*i)) (mod N) for every w-bit window of the exponent, so no squaring
+ * is needed at runtime. Result takes about (bits / w) + 2^w multiplications instead of
+ * one squaring per exponent bit. Reduction uses Barrett method, which only needs multiplications.
+ *
+ * <p>Instances are immutable and thread safe.
+ */
+final class FixedBaseExponentiation {
+
+    private static final int WINDOW_BITS = 6;
+
+    private final BigInteger N;
+    private final int modulusBits;
+    private final BigInteger barrettFactor;
+    private final BigInteger[] table;
+
+    /**
+     * @param base    Fixed base.
+     * @param N       Modulus.
+     * @param maxBits Max bit length of exponents. Larger exponents are computed with {@link BigInteger#modPow}.
+     */
+    FixedBaseExponentiation(final BigInteger base, final BigInteger N, final int maxBits) {
+
+        this.N = N;
+        this.modulusBits = N.bitLength();
+        this.barrettFactor = BigInteger.ONE.shiftLeft(2 * modulusBits).divide(N);
+
+        int windows = (maxBits + WINDOW_BITS - 1) / WINDOW_BITS;
+        table = new BigInteger[windows];
+        BigInteger value = base.mod(N);
+
+        for (int i = 0; i < windows; i++) {
+            table[i] = value;
+            for (int j = 0; j < WINDOW_BITS; j++) {
+                value = reduce(value.multiply(value));
+            }
+        }
+    }
+
+    /**
+     * Computes base^exponent (mod N).
+     *
+     * @param exponent Exponent, must not be negative.
+     * @return Result of exponentiation.
+     */
+    BigInteger modPow(final BigInteger exponent) {
+
+        if (exponent.signum() < 0 || exponent.bitLength() > table.length * WINDOW_BITS) {
+            return table[0].modPow(exponent, N);
+        }
+
+        // Group table entries by the value of exponent window.
+        BigInteger[] buckets = new BigInteger[1 << WINDOW_BITS];
+        int windows = (exponent.bitLength() + WINDOW_BITS - 1) / WINDOW_BITS;
+
+        for (int i = 0; i < windows; i++) {
+
+            int digit = 0;
+            for (int bit = WINDOW_BITS - 1; bit >= 0; bit--) {
+                digit = (digit << 1) | (exponent.testBit(i * WINDOW_BITS + bit) ? 1 : 0);
+            }
+
+            if (digit != 0) {
+                buckets[digit] = buckets[digit] == null ? table[i] : reduce(buckets[digit].multiply(table[i]));
+            }
+        }
+
+        // result = product of bucket[d]^d, computed with running products.
+        BigInteger result = null;
+        BigInteger runningProduct = null;
+
+        for (int digit = buckets.length - 1; digit > 0; digit--) {
+
+            if (buckets[digit] != null) {
+                runningProduct = runningProduct == null ? buckets[digit] : reduce(runningProduct.multiply(buckets[digit]));
+            }
+            if (runningProduct != null) {
+                result = result == null ? runningProduct : reduce(result.multiply(runningProduct));
+            }
+        }
+        return result == null ? BigInteger.ONE : result;
+    }
+
+    /**
+     * Barrett reduction of x (mod N), for 0 <= x < N^2.
+     */
+    private BigInteger reduce(final BigInteger x) {
+
+        BigInteger q = x.shiftRight(modulusBits - 1).multiply(barrettFactor).shiftRight(modulusBits + 1);
+        BigInteger r = x.subtract(q.multiply(N));
+
+        while (r.compareTo(N) >= 0) {
+            r = r.subtract(N);
+        }
+        return r;
+    }
+}
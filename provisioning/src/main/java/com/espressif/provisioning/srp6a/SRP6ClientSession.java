@@ -245,7 +245,42 @@ public class SRP6ClientSession extends SRP6Session implements Serializable {
         a = srp6Routines.generatePrivateValue(config.N, random);
         digest.reset();
 
-        A = srp6Routines.computePublicClientValue(config.N, config.g, a);
+        A = srp6Routines.computePublicClientValue(config, a);
+        return A;
+    }
+
+    /**
+     * This method is used to set client private value 'a' and public key 'A' generated in advance,
+     * instead of generating them in {@link #getClientPublicKey(SRP6CryptoParams)}.
+     * Values must be generated with the same crypto parameters and used for one session only.
+     *
+     * @param config The SRP-6a crypto parameters. Must not be {@code null}.
+     * @param a      The client private value 'a'. Must not be {@code null}.
+     * @param A      The client public key 'A' = g^a (mod N). Must not be {@code null}.
+     * @return The client public key
+     * @throws SRP6Exception If the session has timed out.
+     */
+    public BigInteger getClientPublicKey(final SRP6CryptoParams config, final BigInteger a, final BigInteger A)
+            throws SRP6Exception {
+
+        // Check arguments
+        if (config == null)
+            throw new IllegalArgumentException("The SRP-6a crypto parameters must not be null");
+
+        if (a == null || A == null)
+            throw new IllegalArgumentException("The client values 'a' and 'A' must not be null");
+
+        // Check current state
+        if (state != State.STEP_1)
+            throw new IllegalStateException("State violation: Session must be in STEP_1 state");
+
+        // Check timeout
+        if (hasTimedOut())
+            throw new SRP6Exception("Session timeout", SRP6Exception.CauseType.TIMEOUT);
+
+        this.config = config;
+        this.a = a;
+        this.A = A;
         return A;
     }
 
@@ -325,8 +360,7 @@ public class SRP6ClientSession extends SRP6Session implements Serializable {
         }
 
         // Compute the session key
-        k = srp6Routines.computeK(digest, config.N, config.g);
-        digest.reset();
+        k = config.getMultiplier();
 
         if (hashedKeysRoutine != null) {
             URoutineContext hashedKeysContext = new URoutineContext(A, B);
@@ -336,7 +370,7 @@ public class SRP6ClientSession extends SRP6Session implements Serializable {
             digest.reset();
         }
 
-        S = srp6Routines.computeSessionKey(config.N, config.g, k, x, u, a, B);
+        S = srp6Routines.computeSessionKey(config, x, u, a, B);
         K = srp6Routines.computeSharedSessionKey(digest, S);
         Log.d("SRP6aClient", "Shared session key generated");
 
@@ -450,12 +484,11 @@ public class SRP6ClientSession extends SRP6Session implements Serializable {
         a = srp6Routines.generatePrivateValue(config.N, random);
         digest.reset();
 
-        A = srp6Routines.computePublicClientValue(config.N, config.g, a);
+        A = srp6Routines.computePublicClientValue(config, a);
 
 
         // Compute the session key
-        k = srp6Routines.computeK(digest, config.N, config.g);
-        digest.reset();
+        k = config.getMultiplier();
 
         if (hashedKeysRoutine != null) {
             URoutineContext hashedKeysContext = new URoutineContext(A, B);
@@ -465,7 +498,7 @@ public class SRP6ClientSession extends SRP6Session implements Serializable {
             digest.reset();
         }
 
-        S = srp6Routines.computeSessionKey(config.N, config.g, k, x, u, a, B);
+        S = srp6Routines.computeSessionKey(config, x, u, a, B);
 
         // Compute the client evidence message
         if (clientEvidenceRoutine != null) {
@@ -9,6 +9,7 @@ import java.io.Serializable;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -142,6 +143,22 @@ public class SRP6CryptoParams implements Serializable {
 	public final String H;
 
 
+	/**
+	 * Cache of instances returned by {@link #getInstance(int, String)},
+	 * shared by all sessions of the process.
+	 */
+	private static final ConcurrentHashMap<String, SRP6CryptoParams> instances = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Lazily computed values, derived from 'N', 'g' and 'H' only.
+	 */
+	private transient volatile BigInteger k;
+	private transient volatile byte[] paddedG;
+	private transient volatile MessageDigest digestPrototype;
+	private transient volatile FixedBaseExponentiation gExponentiation;
+
+
 	/**
 	 * Returns an SRP-6a crypto parameters instance with precomputed 'N'
 	 * and 'g' values and the specified hash algorithm 'H'.
@@ -161,6 +178,27 @@ public class SRP6CryptoParams implements Serializable {
 		if (H == null || H.isEmpty())
 			throw new IllegalArgumentException("Undefined hash algorithm 'H'");
 
+		final String key = bitsize + ":" + H;
+		SRP6CryptoParams params = instances.get(key);
+
+		if (params == null) {
+
+			params = createInstance(bitsize, H);
+
+			if (params != null) {
+				SRP6CryptoParams existing = instances.putIfAbsent(key, params);
+
+				if (existing != null)
+					params = existing;
+			}
+		}
+
+		return params;
+	}
+
+
+	private static SRP6CryptoParams createInstance(final int bitsize, final String H) {
+
 		switch (bitsize) {
 			case 256:
 				return new SRP6CryptoParams(N_256, g_common, H);
@@ -279,12 +317,102 @@ public class SRP6CryptoParams implements Serializable {
 	 */
 	public MessageDigest getMessageDigestInstance() {
 
+		MessageDigest prototype = digestPrototype;
+
 		try {
-			return MessageDigest.getInstance(H);
+			if (prototype == null) {
+				prototype = MessageDigest.getInstance(H);
+				digestPrototype = prototype;
+			}
+
+			// Cloning is faster than looking up the provider again
+			return (MessageDigest) prototype.clone();
 
 		} catch (NoSuchAlgorithmException e) {
 
 			return null;
+
+		} catch (CloneNotSupportedException e) {
+
+			try {
+				return MessageDigest.getInstance(H);
+
+			} catch (NoSuchAlgorithmException ex) {
+
+				return null;
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the SRP-6 multiplier k = H(N | PAD(g)), computed once per
+	 * instance.
+	 *
+	 * @return The multiplier 'k'.
+	 */
+	public BigInteger getMultiplier() {
+
+		BigInteger value = k;
+
+		if (value == null) {
+			value = new SRP6Routines().computeK(getMessageDigestInstance(), N, g);
+			k = value;
+		}
+
+		return value;
+	}
+
+
+	/**
+	 * Returns the generator 'g' padded with leading zeros to the byte
+	 * length of 'N'.
+	 *
+	 * @return The padded generator, as a new byte array.
+	 */
+	public byte[] getPaddedG() {
+
+		byte[] value = paddedG;
+
+		if (value == null) {
+
+			final int length = (N.bitLength() + 7) / 8;
+			byte[] bytes = BigIntegerUtils.bigIntegerToBytes(g);
+			value = new byte[length];
+			System.arraycopy(bytes, 0, value, length - bytes.length, bytes.length);
+			paddedG = value;
 		}
+
+		return value.clone();
+	}
+
+
+	/**
+	 * Computes g^x (mod N) using a table of precomputed powers of 'g',
+	 * built on first use. Exponents up to the bit length of 'N' use the
+	 * table, larger ones fall back to {@link BigInteger#modPow}.
+	 *
+	 * @param x The exponent. Must not be {@code null}.
+	 *
+	 * @return The resulting value g^x (mod N).
+	 */
+	public BigInteger gModPow(final BigInteger x) {
+
+		FixedBaseExponentiation value = gExponentiation;
+
+		if (value == null) {
+
+			synchronized (this) {
+
+				value = gExponentiation;
+
+				if (value == null) {
+					value = new FixedBaseExponentiation(g, N, N.bitLength());
+					gExponentiation = value;
+				}
+			}
+		}
+
+		return value.modPow(x);
 	}
 }
@@ -126,6 +126,23 @@ public class SRP6Routines implements Serializable {
 		return g.modPow(x, N);
 	}
 
+
+	/**
+	 * Computes a verifier v = g^x (mod N) using the precomputed powers of
+	 * 'g' of the crypto parameters.
+	 *
+	 * @param config The crypto parameters. Must not be {@code null}.
+	 * @param x      The password key 'x', see {@link #computeX}. Must not
+	 *               be {@code null}.
+	 *
+	 * @return The resulting verifier 'v'.
+	 */
+	public BigInteger computeVerifier(final SRP6CryptoParams config,
+	                                  final BigInteger x) {
+
+		return config.gModPow(x);
+	}
+
 	/**
 	 * Generates a random SRP-6a client or server private value ('a' or
 	 * 'b') which is in the range [1,N-1] generated by a random number of
@@ -172,6 +189,23 @@ public class SRP6Routines implements Serializable {
 	}
 
 
+	/**
+	 * Computes the public client value A = g^a (mod N) using the
+	 * precomputed powers of 'g' of the crypto parameters.
+	 *
+	 * @param config The crypto parameters. Must not be {@code null}.
+	 * @param a      The private client value 'a'. Must not be
+	 *               {@code null}.
+	 *
+	 * @return The public client value 'A'.
+	 */
+	public BigInteger computePublicClientValue(final SRP6CryptoParams config,
+	                                           final BigInteger a) {
+
+		return config.gModPow(a);
+	}
+
+
 
 	/**
 	 * Computes the public server value B = k * v + g^b (mod N)
@@ -200,6 +234,26 @@ public class SRP6Routines implements Serializable {
 	}
 
 
+	/**
+	 * Computes the public server value B = k * v + g^b (mod N) using the
+	 * cached multiplier and precomputed powers of 'g' of the crypto
+	 * parameters.
+	 *
+	 * @param config The crypto parameters. Must not be {@code null}.
+	 * @param v      The password verifier 'v'. Must not be {@code null}.
+	 * @param b      The private server value 'b'. Must not be
+	 *               {@code null}.
+	 *
+	 * @return The public server value 'B'.
+	 */
+	public BigInteger computePublicServerValue(final SRP6CryptoParams config,
+	                                           final BigInteger v,
+	                                           final BigInteger b) {
+
+		return config.gModPow(b).add(v.multiply(config.getMultiplier())).mod(config.N);
+	}
+
+
 	/**
 	 * Validates an SRP6 client or server public value ('A' or 'B').
 	 *
@@ -272,6 +326,35 @@ public class SRP6Routines implements Serializable {
 	}
 
 
+	/**
+	 * Computes the session key S = (B - k * g^x) ^ (a + u * x) (mod N)
+	 * from client-side parameters, using the cached multiplier and
+	 * precomputed powers of 'g' of the crypto parameters.
+	 *
+	 * @param config The crypto parameters. Must not be {@code null}.
+	 * @param x      The 'x' value, see {@link #computeX}. Must not be
+	 *               {@code null}.
+	 * @param u      The random scrambling parameter 'u'. Must not be
+	 *               {@code null}.
+	 * @param a      The private client value 'a'. Must not be
+	 *               {@code null}.
+	 * @param B      The public server value 'B'. Must note be
+	 *               {@code null}.
+	 *
+	 * @return The resulting session key 'S'.
+	 */
+	public BigInteger computeSessionKey(final SRP6CryptoParams config,
+	                                    final BigInteger x,
+	                                    final BigInteger u,
+	                                    final BigInteger a,
+	                                    final BigInteger B) {
+
+		final BigInteger exp = u.multiply(x).add(a);
+		final BigInteger tmp = config.gModPow(x).multiply(config.getMultiplier());
+		return B.subtract(tmp).modPow(exp, config.N);
+	}
+
+
 	/**
 	 * Computes the session key S = (A * v^u) ^ b (mod N) from server-side
 	 * parameters.
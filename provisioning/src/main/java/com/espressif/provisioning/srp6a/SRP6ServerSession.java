@@ -197,13 +197,12 @@ public class SRP6ServerSession extends SRP6Session implements Serializable {
 		MessageDigest digest = config.getMessageDigestInstance();
 		
 		// Generate server private and public values
-		k = srp6Routines.computeK(digest, config.N, config.g);
-		digest.reset();
+		k = config.getMultiplier();
 		
 		b = srp6Routines.generatePrivateValue(config.N, random);
 		digest.reset();
 		
-		B = srp6Routines.computePublicServerValue(config.N, config.g, k, v, b);
+		B = srp6Routines.computePublicServerValue(config, v, b);
 
 		state = State.STEP_1;
 		
@@ -309,6 +308,9 @@ public class SRP6ServerSession extends SRP6Session implements Serializable {
 		}
 		
 		S = srp6Routines.computeSessionKey(config.N, v, u, A, b);
+
+		K = srp6Routines.computeSharedSessionKey(digest, S);
+		digest.reset();
 		
 		// Compute the own client evidence message 'M1'
 		BigInteger computedM1;
@@ -334,14 +336,16 @@ public class SRP6ServerSession extends SRP6Session implements Serializable {
 		
 		if (serverEvidenceRoutine != null) {
 		
+			// Pass shared session key "K" instead of "S" to compute server evidence for Espressif devices
 			// With custom routine
-			SRP6ServerEvidenceContext ctx = new SRP6ServerEvidenceContext(A, M1, S);
+			SRP6ServerEvidenceContext ctx = new SRP6ServerEvidenceContext(A, M1, K);
 			
 			M2 = serverEvidenceRoutine.computeServerEvidence(config, ctx);
 		}
 		else {
+			// Pass shared session key "K" instead of "S" to compute server evidence for Espressif devices
 			// With default routine
-			M2 = srp6Routines.computeServerEvidence(digest, A, M1, S);
+			M2 = srp6Routines.computeServerEvidence(digest, A, M1, K);
 			digest.reset();
 		}
 		
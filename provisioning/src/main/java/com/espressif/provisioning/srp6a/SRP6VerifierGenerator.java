@@ -177,7 +177,7 @@ public class SRP6VerifierGenerator {
 			x = srp6Routines.computeX(config.getMessageDigestInstance(), salt, password);
 		}
 		
-		return srp6Routines.computeVerifier(config.N, config.g, x);
+		return srp6Routines.computeVerifier(config, x);
 	}
 	
 	
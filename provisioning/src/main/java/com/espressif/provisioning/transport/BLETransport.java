@@ -15,34 +15,42 @@
 
 package com.espressif.provisioning.transport;
 
+import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothGatt;
 import android.bluetooth.BluetoothGattCallback;
 import android.bluetooth.BluetoothGattCharacteristic;
 import android.bluetooth.BluetoothGattDescriptor;
 import android.bluetooth.BluetoothGattService;
+import android.bluetooth.BluetoothManager;
 import android.bluetooth.BluetoothProfile;
 import android.content.Context;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
-import com.espressif.provisioning.DeviceConnectionEvent;
+import androidx.annotation.RequiresApi;
+
+import com.espressif.provisioning.DeviceConnectionNotifier;
+import com.espressif.provisioning.DeviceInfo;
 import com.espressif.provisioning.ESPConstants;
+import com.espressif.provisioning.listeners.BleLinkListener;
 import com.espressif.provisioning.listeners.ResponseListener;
-
-import org.greenrobot.eventbus.EventBus;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.espressif.provisioning.metrics.ProvisioningMetrics;
+import com.espressif.provisioning.metrics.ProvisioningPhase;
 
 import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
 
 /**
  * Bluetooth implementation of the Transport protocol.
@@ -51,20 +59,52 @@ public class BLETransport implements Transport {
 
     private static final String TAG = "Espressif::" + BLETransport.class.getSimpleName();
 
+    private static final int DEFAULT_MTU = 23;
+    private static final int REQUEST_QUEUE_CAPACITY = 32;
+    private static final long DEFAULT_REQUEST_TIMEOUT = 10000; // 10 seconds
+    private static final UUID CLIENT_CHARACTERISTIC_CONFIG_UUID = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb");
+
     private Context context;
+    private Handler handler;
     private BluetoothDevice currentDevice;
     private BluetoothGatt bluetoothGatt;
     private BluetoothGattService service;
-    private ResponseListener currentResponseListener;
-    private Semaphore transportToken;
     private ExecutorService dispatcherThreadPool;
+
+    // Requests are executed one GATT operation at a time, in the order they are queued.
+    private final Object queueLock = new Object();
+    private final ArrayBlockingQueue<BleRequest> requestQueue = new ArrayBlockingQueue<>(REQUEST_QUEUE_CAPACITY);
+    private BleRequest currentRequest;
+    // Sequence number of the request whose GATT operation is in progress, 0 if there is none.
+    private long operationSequence;
+    private long lastSequence;
+    private long requestTimeout = DEFAULT_REQUEST_TIMEOUT;
     private HashMap<String, String> uuidMap = new HashMap<>();
     private ArrayList<String> charUuidList = new ArrayList<>();
 
     private String serviceUuid;
+    private int mtu = DEFAULT_MTU;
     private boolean isReadingDescriptors = false;
-    public ArrayList<String> deviceCapabilities = new ArrayList<>();
-    public String versionInfo;
+    private boolean isNotificationEnabled = false;
+    private boolean isReliableWriteEnabled = false;
+    private boolean isEndpointCacheEnabled = false;
+    private GattEndpointCache endpointCache;
+    // Version info of the cached entry, if endpoints are taken from cache for current connection.
+    private volatile String cachedVersionInfo;
+    private volatile boolean isEndpointCacheVerified;
+    private volatile BleLinkProfile linkProfile;
+    private volatile BleLinkListener linkListener;
+    private volatile BleLinkProfile.LinkMode linkMode = BleLinkProfile.LinkMode.BULK;
+    private volatile int txPhy = BluetoothDevice.PHY_LE_1M;
+    private volatile int rxPhy = BluetoothDevice.PHY_LE_1M;
+    // Start times of connection and of current connection phase, used for metrics.
+    private volatile long connectStartTime;
+    private volatile long phaseStartTime;
+    private volatile DeviceConnectionNotifier connectionNotifier = new DeviceConnectionNotifier();
+    // Endpoint characteristics for which device sends response through notification / indication.
+    private final Set<String> notifyingCharUuids = Collections.synchronizedSet(new HashSet<String>());
+    private final ArrayList<BluetoothGattDescriptor> pendingCccdWrites = new ArrayList<>();
+    private volatile DeviceInfo deviceInfo;
 
     /**
      * Create BLETransport implementation
@@ -73,12 +113,14 @@ public class BLETransport implements Transport {
      */
     public BLETransport(Context context) {
         this.context = context;
-        this.transportToken = new Semaphore(1);
+        this.handler = new Handler(Looper.getMainLooper());
         this.dispatcherThreadPool = Executors.newSingleThreadExecutor();
+        this.endpointCache = GattEndpointCache.getInstance(context);
     }
 
     /**
-     * BLE implementation of Transport protocol
+     * BLE implementation of Transport protocol.
+     * Request is added to the request queue and sent to the device once all previously queued requests are completed.
      *
      * @param path     path of the config endpoint.
      * @param data     config data to be sent
@@ -86,44 +128,142 @@ public class BLETransport implements Transport {
      */
     @Override
     public void sendConfigData(String path, byte[] data, ResponseListener listener) {
+        sendConfigData(path, data, requestTimeout, listener);
+    }
 
-        if (uuidMap.containsKey(path)) {
-
-            BluetoothGattCharacteristic characteristic = service.getCharacteristic(UUID.fromString(uuidMap.get(path)));
+    /**
+     * BLE implementation of Transport protocol with request specific timeout.
+     *
+     * @param path      path of the config endpoint.
+     * @param data      config data to be sent
+     * @param timeoutMs time in milliseconds to wait for the response. Request fails if response is not received in this time.
+     *                  0 to wait forever.
+     * @param listener  listener implementation which receives events when response is received.
+     */
+    public void sendConfigData(String path, byte[] data, long timeoutMs, ResponseListener listener) {
 
-            if (characteristic == null) {
-                characteristic = service.getCharacteristic(UUID.fromString("0000ff52-0000-1000-8000-00805f9b34fb"));
+        if (data != null && data.length > BleFraming.MAX_ATTRIBUTE_LENGTH) {
+            Log.e(TAG, "Payload of " + data.length + " bytes is larger than max BLE attribute length.");
+            if (listener != null) {
+                listener.onFailure(new RuntimeException("Payload is larger than " + BleFraming.MAX_ATTRIBUTE_LENGTH + " bytes."));
             }
+            return;
+        }
 
-            if (characteristic != null) {
-                try {
-                    this.transportToken.acquire();
-                    characteristic.setValue(data);
-                    bluetoothGatt.writeCharacteristic(characteristic);
-                    currentResponseListener = listener;
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    listener.onFailure(e);
-                    this.transportToken.release();
-                    currentResponseListener = listener;
-                    if (currentResponseListener != null) {
-                        currentResponseListener.onFailure(e);
-                    }
-                }
-            } else {
-                Log.e(TAG, "Characteristic is not available for given path.");
-                currentResponseListener = listener;
-                if (currentResponseListener != null) {
-                    currentResponseListener.onFailure(new RuntimeException("Characteristic is not available for given path."));
-                }
-            }
-        } else {
-            currentResponseListener = listener;
+        BluetoothGattCharacteristic characteristic = getCharacteristic(path);
+
+        if (characteristic == null) {
             Log.e(TAG, "Characteristic is not available for given path.");
-            if (currentResponseListener != null) {
-                currentResponseListener.onFailure(new RuntimeException("Characteristic is not available for given path."));
+            if (listener != null) {
+                listener.onFailure(new RuntimeException("Characteristic is not available for given path."));
+            }
+            return;
+        }
+
+        BleRequest request = new BleRequest(path, characteristic, data, timeoutMs, listener);
+
+        if (!requestQueue.offer(request)) {
+            Log.e(TAG, "Request queue is full, request for " + path + " is not sent.");
+            if (listener != null) {
+                listener.onFailure(new RuntimeException("Too many pending requests."));
             }
+            return;
         }
+        processNextRequest();
+    }
+
+    /**
+     * Set default time to wait for the response of a request.
+     *
+     * @param timeoutMs Timeout in milliseconds. 0 to wait forever.
+     */
+    public void setRequestTimeout(long timeoutMs) {
+        this.requestTimeout = timeoutMs;
+    }
+
+    /**
+     * Enable receiving responses through notifications / indications instead of reading characteristic after every write.
+     * It saves one GATT operation per request. Endpoints which do not support notify / indicate property
+     * use write followed by read.
+     * Must be set before connecting the device.
+     *
+     * @param enable True to enable notifications, false to always read the response.
+     */
+    public void setNotificationEnabled(boolean enable) {
+        this.isNotificationEnabled = enable;
+    }
+
+    /**
+     * Enable reliable writes for payloads which do not fit in a single write request for the negotiated MTU.
+     * Fragments are sent as prepared writes and applied by the device only when the write is executed,
+     * so a failed fragment aborts the whole write instead of leaving a partial value on the device.
+     *
+     * @param enable True to use reliable writes, false to use plain long writes.
+     */
+    public void setReliableWriteEnabled(boolean enable) {
+        this.isReliableWriteEnabled = enable;
+    }
+
+    /**
+     * Enable cache of GATT endpoints and version info of the device.
+     * On reconnection to the device, endpoints are taken from the cache instead of reading descriptors of all
+     * characteristics and "proto-ver" endpoint. Cache entry is removed if first request sent to the device fails
+     * or times out, if device is disconnected before first request is completed or if
+     * {@link #invalidateEndpointCache()} is called (e.g. session could not be established).
+     *
+     * @param enable True to use endpoint cache.
+     */
+    public void setEndpointCacheEnabled(boolean enable) {
+        this.isEndpointCacheEnabled = enable;
+    }
+
+    /**
+     * Set connection parameters to be requested for the link. Default connection parameters are used if profile is not set.
+     *
+     * @param profile Link profile, null to use default connection parameters.
+     */
+    public void setLinkProfile(BleLinkProfile profile) {
+        this.linkProfile = profile;
+        applyLinkMode(linkMode);
+    }
+
+    /**
+     * Set listener to receive connection parameters requested / updated for the link.
+     *
+     * @param listener Listener for link parameter updates.
+     */
+    public void setLinkListener(BleLinkListener listener) {
+        this.linkListener = listener;
+    }
+
+    /**
+     * Switch link to connection parameters of given mode from link profile.
+     *
+     * @param mode Bulk mode for data transfer or idle mode while device is connecting to network.
+     */
+    public void setLinkMode(BleLinkProfile.LinkMode mode) {
+
+        if (mode != linkMode) {
+            applyLinkMode(mode);
+        }
+    }
+
+    /**
+     * Get version information of the connected device, parsed from "proto-ver" endpoint.
+     *
+     * @return Device information or null if it is not received yet.
+     */
+    public DeviceInfo getDeviceInfo() {
+        return deviceInfo;
+    }
+
+    /**
+     * Set notifier which delivers connection events of the device.
+     *
+     * @param notifier Connection event notifier.
+     */
+    public void setConnectionNotifier(DeviceConnectionNotifier notifier) {
+        this.connectionNotifier = notifier;
     }
 
     /**
@@ -135,6 +275,16 @@ public class BLETransport implements Transport {
     public void connect(BluetoothDevice bluetoothDevice, UUID primaryServiceUuid) {
         this.currentDevice = bluetoothDevice;
         this.serviceUuid = primaryServiceUuid.toString();
+        this.connectStartTime = ProvisioningMetrics.startTimer();
+        this.mtu = DEFAULT_MTU;
+        this.linkMode = BleLinkProfile.LinkMode.BULK;
+        this.txPhy = BluetoothDevice.PHY_LE_1M;
+        this.rxPhy = BluetoothDevice.PHY_LE_1M;
+        uuidMap.clear();
+        charUuidList.clear();
+        cachedVersionInfo = null;
+        isEndpointCacheVerified = false;
+        notifyingCharUuids.clear();
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             bluetoothGatt = this.currentDevice.connectGatt(context, false, gattCallback, BluetoothDevice.TRANSPORT_LE);
         } else {
@@ -154,6 +304,29 @@ public class BLETransport implements Transport {
             this.bluetoothGatt.close();
             bluetoothGatt = null;
         }
+        failPendingRequests(new RuntimeException("Device disconnected"));
+    }
+
+    /**
+     * This method is used to remove cache entry of the current device. It should be called when session can not
+     * be established, as cached version info may be stale after firmware update of the device
+     * (e.g. security version or capabilities are changed while endpoints are same).
+     */
+    public void invalidateEndpointCache() {
+
+        if (isEndpointCacheEnabled && currentDevice != null) {
+            Log.d(TAG, "Removing cache entry of the device.");
+            endpointCache.remove(currentDevice.getAddress(), serviceUuid);
+        }
+    }
+
+    /**
+     * Get ATT MTU negotiated with the connected device.
+     *
+     * @return Negotiated MTU or default MTU (23) if MTU is not negotiated.
+     */
+    public int getMtu() {
+        return mtu;
     }
 
     public void refreshServices() {
@@ -179,10 +352,12 @@ public class BLETransport implements Transport {
             Log.d(TAG, "onConnectionStateChange, New state : " + newState + ", Status : " + status);
 
             if (status == BluetoothGatt.GATT_FAILURE) {
-                EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+                recordPhase(ProvisioningPhase.CONNECT, connectStartTime, false);
+                postEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED);
                 return;
             } else if (status == 133) {
-                EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+                recordPhase(ProvisioningPhase.CONNECT, connectStartTime, false);
+                postEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED);
                 return;
             } else if (status != BluetoothGatt.GATT_SUCCESS && newState != BluetoothProfile.STATE_DISCONNECTED) {
                 // TODO need to check this status
@@ -191,10 +366,14 @@ public class BLETransport implements Transport {
 
             if (newState == BluetoothProfile.STATE_CONNECTED) {
                 Log.e(TAG, "Connected to GATT server.");
+                recordPhase(ProvisioningPhase.CONNECT, connectStartTime, true);
+                applyLinkMode(BleLinkProfile.LinkMode.BULK);
+                phaseStartTime = ProvisioningMetrics.startTimer();
                 gatt.requestMtu(512);
             } else if (newState == BluetoothProfile.STATE_DISCONNECTED) {
                 Log.e(TAG, "Disconnected from GATT server.");
-                EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_DISCONNECTED));
+                failPendingRequests(new RuntimeException("Device disconnected"));
+                postEvent(ESPConstants.EVENT_DEVICE_DISCONNECTED);
             }
         }
 
@@ -203,10 +382,11 @@ public class BLETransport implements Transport {
 
             super.onServicesDiscovered(gatt, status);
             Log.d(TAG, "On services discovered");
+            recordPhase(ProvisioningPhase.SERVICE_DISCOVERY, phaseStartTime, status == BluetoothGatt.GATT_SUCCESS);
 
             if (status != BluetoothGatt.GATT_SUCCESS) {
                 Log.d(TAG, "Status not success");
-                EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+                postEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED);
                 return;
             }
 
@@ -214,7 +394,7 @@ public class BLETransport implements Transport {
 
             if (service == null) {
                 Log.e(TAG, "Service not found!");
-                EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+                postEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED);
                 return;
             }
 
@@ -222,7 +402,7 @@ public class BLETransport implements Transport {
 
                 if (characteristic == null) {
                     Log.e(TAG, "Tx characteristic not found!");
-                    EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+                    postEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED);
                     return;
                 }
 
@@ -233,17 +413,36 @@ public class BLETransport implements Transport {
                 characteristic.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT);
             }
 
-            readNextDescriptor();
+            if (loadCachedEndpoints()) {
+                onEndpointsAvailable();
+            } else {
+                phaseStartTime = ProvisioningMetrics.startTimer();
+                readNextDescriptor();
+            }
         }
 
         @Override
         public void onDescriptorWrite(BluetoothGatt gatt, BluetoothGattDescriptor descriptor, int status) {
 
+            if (CLIENT_CHARACTERISTIC_CONFIG_UUID.equals(descriptor.getUuid())) {
+
+                String charUuid = descriptor.getCharacteristic().getUuid().toString();
+                if (status == BluetoothGatt.GATT_SUCCESS) {
+                    Log.d(TAG, "Notifications enabled for UUID : " + charUuid);
+                    notifyingCharUuids.add(charUuid);
+                } else {
+                    Log.e(TAG, "Failed to enable notifications for UUID : " + charUuid + ", response will be read.");
+                    gatt.setCharacteristicNotification(descriptor.getCharacteristic(), false);
+                }
+                enableNextNotification();
+                return;
+            }
+
             if (status == BluetoothGatt.GATT_SUCCESS) {
                 Log.d(TAG, "Read Descriptor : " + bluetoothGatt.readDescriptor(descriptor));
             } else {
                 Log.e(TAG, "Fail to write descriptor");
-                EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+                postEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED);
             }
         }
 
@@ -289,16 +488,57 @@ public class BLETransport implements Transport {
         @Override
         public void onMtuChanged(BluetoothGatt gatt, int mtu, int status) {
             super.onMtuChanged(gatt, mtu, status);
+            recordPhase(ProvisioningPhase.MTU_NEGOTIATION, phaseStartTime, status == BluetoothGatt.GATT_SUCCESS);
             if (status == BluetoothGatt.GATT_SUCCESS) {
                 Log.d(TAG, "Supported MTU = " + mtu);
+                BLETransport.this.mtu = mtu;
             }
+            phaseStartTime = ProvisioningMetrics.startTimer();
             gatt.discoverServices();
         }
 
+        @Override
+        public void onPhyUpdate(BluetoothGatt gatt, int txPhy, int rxPhy, int status) {
+
+            super.onPhyUpdate(gatt, txPhy, rxPhy, status);
+            Log.d(TAG, "onPhyUpdate, TX PHY : " + txPhy + ", RX PHY : " + rxPhy + ", Status : " + status);
+
+            if (status == BluetoothGatt.GATT_SUCCESS) {
+                BLETransport.this.txPhy = txPhy;
+                BLETransport.this.rxPhy = rxPhy;
+                notifyLinkParameters();
+            }
+        }
+
         @Override
         public void onCharacteristicChanged(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic) {
             Log.d(TAG, "onCharacteristicChanged");
             super.onCharacteristicChanged(gatt, characteristic);
+
+            BleRequest request = getOperationRequest(characteristic);
+
+            if (request == null) {
+                return;
+            }
+
+            byte[] value = characteristic.getValue();
+            // Response longer than a notification is read with long read.
+            boolean isTruncated = value == null || BleFraming.isNotificationTruncated(mtu, value.length);
+
+            synchronized (request) {
+                if (!request.isWritten) {
+                    // Notification received before write callback, request is completed once write is confirmed.
+                    request.isNotified = true;
+                    request.notifiedValue = isTruncated ? null : value;
+                    return;
+                }
+            }
+
+            if (isTruncated) {
+                readResponse(gatt, request);
+            } else {
+                completeRequest(request, value, null);
+            }
         }
 
         @Override
@@ -309,80 +549,423 @@ public class BLETransport implements Transport {
             Log.d(TAG, "onCharacteristicRead, status " + status + " UUID : " + characteristic.getUuid().toString());
             super.onCharacteristicRead(gatt, characteristic, status);
 
-            if (uuidMap.get((ESPConstants.HANDLER_PROTO_VER)).equals(characteristic.getUuid().toString())) {
+            BleRequest request = getOperationRequest(characteristic);
 
-                String data = new String(characteristic.getValue(), StandardCharsets.UTF_8);
-                Log.d(TAG, "Value : " + data);
-                versionInfo = data;
+            if (request == null) {
 
-                try {
-                    JSONObject jsonObject = new JSONObject(data);
-                    JSONObject provInfo = jsonObject.getJSONObject("prov");
+                // Read of proto-ver endpoint, done as a part of connection.
+                if (characteristic.getUuid().toString().equals(uuidMap.get(ESPConstants.HANDLER_PROTO_VER))) {
+                    processVersionInfo(characteristic.getValue());
+                }
+                return;
+            }
 
-                    String deviceVersion = provInfo.getString("ver");
-                    Log.d(TAG, "Device Version : " + deviceVersion);
+            if (status == BluetoothGatt.GATT_SUCCESS) {
+                byte[] value = characteristic.getValue();
+                if (value != null && value.length >= mtu - 1) {
+                    Log.d(TAG, "Long read of " + value.length + " bytes in " + BleFraming.getReadCount(mtu, value.length) + " requests, MTU : " + mtu);
+                }
+                completeRequest(request, value, null);
+            } else {
+                completeRequest(request, null, new Exception("Read from BLE failed"));
+            }
+        }
 
-                    JSONArray capabilities = provInfo.getJSONArray("cap");
+        @Override
+        public void onCharacteristicWrite(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, int status) {
 
-                    for (int i = 0; i < capabilities.length(); i++) {
-                        String cap = capabilities.getString(i);
-                        deviceCapabilities.add(cap);
-                    }
-                    Log.d(TAG, "Capabilities : " + deviceCapabilities);
+            Log.d(TAG, "onCharacteristicWrite, status : " + status);
+            Log.d(TAG, "UUID : " + characteristic.getUuid().toString());
+            super.onCharacteristicWrite(gatt, characteristic, status);
+
+            BleRequest request = getOperationRequest(characteristic);
+
+            if (request == null) {
 
-                } catch (JSONException e) {
-                    e.printStackTrace();
-                    Log.d(TAG, "Capabilities JSON not available.");
+                // Write to proto-ver endpoint, done as a part of connection.
+                if (status == BluetoothGatt.GATT_SUCCESS) {
+                    gatt.readCharacteristic(characteristic);
                 }
+                return;
+            }
 
-                EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTED));
+            if (status != BluetoothGatt.GATT_SUCCESS) {
+                if (request.isReliableWrite) {
+                    gatt.abortReliableWrite();
+                }
+                completeRequest(request, null, new Exception("Write to BLE failed"));
+                return;
             }
 
-            if (currentResponseListener != null) {
+            if (request.isReliableWrite) {
 
-                if (status == BluetoothGatt.GATT_SUCCESS) {
-                    /*
-                     * Need to dispatch this on another thread since the caller
-                     * might decide to enqueue another send operation on success
-                     * of the first.
-                     */
-                    final ResponseListener responseListener = currentResponseListener;
-                    dispatcherThreadPool.submit(new Runnable() {
-                        @Override
-                        public void run() {
-                            currentResponseListener = null;
-                            byte[] charValue = characteristic.getValue();
-                            responseListener.onSuccess(charValue);
-                        }
-                    });
-                } else {
-
-                    currentResponseListener.onFailure(new Exception("Read from BLE failed"));
-//                    EventBus.getDefault().post(new DeviceProvEvent(LibConstants.EVENT_DEVICE_COMMUNICATION_FAILED));
+                if (request.isTimedOut) {
+                    gatt.abortReliableWrite();
+                    completeRequest(request, null, null);
+                } else if (!gatt.executeReliableWrite()) {
+                    completeRequest(request, null, new Exception("Write to BLE failed"));
                 }
+                return;
             }
-            transportToken.release();
+            onRequestWritten(gatt, request);
         }
 
         @Override
-        public void onCharacteristicWrite(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, int status) {
+        public void onReliableWriteCompleted(BluetoothGatt gatt, int status) {
 
-            Log.d(TAG, "onCharacteristicWrite, status : " + status);
-            Log.d(TAG, "UUID : " + characteristic.getUuid().toString());
-            super.onCharacteristicWrite(gatt, characteristic, status);
+            Log.d(TAG, "onReliableWriteCompleted, status : " + status);
+            super.onReliableWriteCompleted(gatt, status);
 
-            if (status == BluetoothGatt.GATT_SUCCESS) {
-                bluetoothGatt.readCharacteristic(characteristic);
+            BleRequest request = getOperationRequest(null);
+
+            if (request == null || !request.isReliableWrite) {
+                return;
+            }
+
+            if (status != BluetoothGatt.GATT_SUCCESS) {
+                completeRequest(request, null, new Exception("Write to BLE failed"));
             } else {
-                if (currentResponseListener != null) {
-                    currentResponseListener.onFailure(new Exception("Write to BLE failed"));
-//                    EventBus.getDefault().post(new DeviceProvEvent(LibConstants.EVENT_DEVICE_COMMUNICATION_FAILED));
-                }
-                transportToken.release();
+                onRequestWritten(gatt, request);
             }
         }
     };
 
+    /**
+     * Receives the response of the written request, through notification if it is enabled for the endpoint
+     * otherwise by reading the characteristic.
+     */
+    private void onRequestWritten(BluetoothGatt gatt, BleRequest request) {
+
+        if (notifyingCharUuids.contains(request.characteristic.getUuid().toString())) {
+
+            boolean isNotified;
+            byte[] notifiedValue;
+
+            synchronized (request) {
+                request.isWritten = true;
+                isNotified = request.isNotified;
+                notifiedValue = request.notifiedValue;
+            }
+
+            if (!isNotified) {
+                // Response will be received in onCharacteristicChanged.
+                return;
+            }
+            if (notifiedValue != null) {
+                completeRequest(request, notifiedValue, null);
+                return;
+            }
+        }
+        readResponse(gatt, request);
+    }
+
+    private void readResponse(BluetoothGatt gatt, BleRequest request) {
+
+        if (request.isTimedOut) {
+            // Listener is already failed, response is not needed. Next request can be started now.
+            completeRequest(request, null, null);
+            return;
+        }
+
+        if (!gatt.readCharacteristic(request.characteristic)) {
+            completeRequest(request, null, new Exception("Read from BLE failed"));
+        }
+    }
+
+    /**
+     * Requests connection priority of the mode and LE 2M PHY for bulk mode, as per link profile.
+     */
+    private void applyLinkMode(BleLinkProfile.LinkMode mode) {
+
+        linkMode = mode;
+        BleLinkProfile profile = linkProfile;
+        BluetoothGatt gatt = bluetoothGatt;
+
+        if (profile == null || gatt == null) {
+            return;
+        }
+
+        int priority = profile.getConnectionPriority(mode);
+        Log.d(TAG, "Link mode : " + mode + ", connection priority : " + priority);
+
+        if (!gatt.requestConnectionPriority(priority)) {
+            Log.e(TAG, "Failed to request connection priority");
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && mode == BleLinkProfile.LinkMode.BULK
+                && profile.is2MPhyPreferred() && txPhy != BluetoothDevice.PHY_LE_2M && is2MPhySupported()) {
+            // Result is received in onPhyUpdate.
+            gatt.setPreferredPhy(BluetoothDevice.PHY_LE_2M_MASK, BluetoothDevice.PHY_LE_2M_MASK, BluetoothDevice.PHY_OPTION_NO_PREFERRED);
+        }
+        notifyLinkParameters();
+    }
+
+    @RequiresApi(Build.VERSION_CODES.O)
+    private boolean is2MPhySupported() {
+
+        BluetoothManager bluetoothManager = (BluetoothManager) context.getSystemService(Context.BLUETOOTH_SERVICE);
+        BluetoothAdapter adapter = bluetoothManager == null ? null : bluetoothManager.getAdapter();
+        return adapter != null && adapter.isLe2MPhySupported();
+    }
+
+    private void notifyLinkParameters() {
+
+        BleLinkProfile profile = linkProfile;
+        BleLinkListener listener = linkListener;
+
+        if (profile != null && listener != null) {
+            BleLinkProfile.LinkMode mode = linkMode;
+            listener.onLinkParametersChanged(mode, profile.getConnectionPriority(mode), txPhy, rxPhy);
+        }
+    }
+
+    private void processVersionInfo(byte[] value) {
+
+        String data = new String(value, StandardCharsets.UTF_8);
+        Log.d(TAG, "Value : " + data);
+        DeviceInfo info = DeviceInfo.parse(data);
+        deviceInfo = info;
+
+        if (cachedVersionInfo == null) {
+            recordPhase(ProvisioningPhase.PROTO_VER, phaseStartTime, true);
+        }
+
+        if (isEndpointCacheEnabled && cachedVersionInfo == null) {
+            endpointCache.put(currentDevice.getAddress(), serviceUuid, uuidMap, data, info.getVersion());
+        }
+
+        postEvent(ESPConstants.EVENT_DEVICE_CONNECTED);
+    }
+
+    /**
+     * Posts connection event with address of the device, so that events of concurrently connected devices can be told apart.
+     */
+    private void postEvent(short eventType) {
+
+        BluetoothDevice device = currentDevice;
+        connectionNotifier.notifyEvent(eventType, device == null ? null : device.getAddress());
+    }
+
+    private BluetoothGattCharacteristic getCharacteristic(String path) {
+
+        if (service == null || !uuidMap.containsKey(path)) {
+            return null;
+        }
+
+        BluetoothGattCharacteristic characteristic = service.getCharacteristic(UUID.fromString(uuidMap.get(path)));
+
+        if (characteristic == null) {
+            characteristic = service.getCharacteristic(UUID.fromString("0000ff52-0000-1000-8000-00805f9b34fb"));
+        }
+        return characteristic;
+    }
+
+    /**
+     * Returns the request whose GATT operation is in progress for given characteristic.
+     * Callbacks which do not belong to the operation of current request (e.g. notification received before
+     * the request is written) are not matched.
+     *
+     * @param characteristic Characteristic of the callback, null to match any characteristic.
+     */
+    private BleRequest getOperationRequest(BluetoothGattCharacteristic characteristic) {
+
+        synchronized (queueLock) {
+            BleRequest request = currentRequest;
+            if (request == null || request.sequence != operationSequence) {
+                return null;
+            }
+            if (characteristic != null && !request.isFor(characteristic)) {
+                return null;
+            }
+            return request;
+        }
+    }
+
+    /**
+     * Starts the next queued request if no other request is in progress.
+     */
+    private void processNextRequest() {
+
+        final BleRequest request;
+
+        synchronized (queueLock) {
+            if (currentRequest != null) {
+                return;
+            }
+            request = requestQueue.poll();
+            if (request == null) {
+                return;
+            }
+            currentRequest = request;
+            request.sequence = ++lastSequence;
+            operationSequence = request.sequence;
+        }
+
+        if (request.timeoutMs > 0) {
+            request.timeoutTask = new Runnable() {
+
+                @Override
+                public void run() {
+                    onRequestTimeout(request, this);
+                }
+            };
+            handler.postDelayed(request.timeoutTask, request.timeoutMs);
+        }
+
+        boolean isWriteStarted = false;
+        BluetoothGatt gatt = bluetoothGatt;
+
+        if (gatt != null) {
+
+            int length = request.data == null ? 0 : request.data.length;
+            if (BleFraming.isLongWrite(mtu, length)) {
+                Log.d(TAG, "Long write of " + length + " bytes in " + BleFraming.getWriteCount(mtu, length) + " requests, MTU : " + mtu);
+                request.isReliableWrite = isReliableWriteEnabled && gatt.beginReliableWrite();
+            }
+
+            request.characteristic.setValue(request.data);
+            isWriteStarted = gatt.writeCharacteristic(request.characteristic);
+
+            if (!isWriteStarted && request.isReliableWrite) {
+                gatt.abortReliableWrite();
+            }
+        }
+
+        if (!isWriteStarted) {
+            completeRequest(request, null, new Exception("Write to BLE failed"));
+        }
+    }
+
+    /**
+     * Fails the listener of timed out request. GATT allows only one operation at a time, so the request stays
+     * in progress until its pending callback is received and the next request is started after that.
+     * Link is disconnected if the callback is not received in another timeout period.
+     */
+    private void onRequestTimeout(BleRequest request, Runnable timeoutTask) {
+
+        boolean isFirstTimeout;
+
+        synchronized (queueLock) {
+            if (currentRequest != request) {
+                return;
+            }
+            isFirstTimeout = !request.isTimedOut;
+            request.isTimedOut = true;
+        }
+
+        if (isFirstTimeout) {
+            Log.e(TAG, "Request timed out for " + request.path);
+            verifyEndpointCache(false);
+            notifyListener(request, null, new RuntimeException("Request timed out"));
+            handler.postDelayed(timeoutTask, request.timeoutMs);
+        } else {
+            Log.e(TAG, "No callback received for timed out request, disconnecting device.");
+            disconnect();
+            postEvent(ESPConstants.EVENT_DEVICE_DISCONNECTED);
+        }
+    }
+
+    /**
+     * Completes given request (if it is still in progress) and starts the next one.
+     * Result of timed out request is dropped, as its listener is already failed.
+     */
+    private void completeRequest(final BleRequest request, final byte[] value, final Exception e) {
+
+        synchronized (queueLock) {
+            if (currentRequest != request) {
+                // Request is already completed. e.g. Device disconnected.
+                return;
+            }
+            currentRequest = null;
+            operationSequence = 0;
+        }
+
+        if (request.isTimedOut) {
+            Log.d(TAG, "Dropped late response of timed out request for " + request.path);
+            handler.removeCallbacks(request.timeoutTask);
+            processNextRequest();
+            return;
+        }
+
+        verifyEndpointCache(e == null);
+        dispatchResult(request, value, e);
+        processNextRequest();
+    }
+
+    /**
+     * First request verifies that cached endpoints are still valid for the device.
+     * Cache entry is removed if the request is failed.
+     */
+    private void verifyEndpointCache(boolean isSuccess) {
+
+        if (cachedVersionInfo == null || isEndpointCacheVerified) {
+            return;
+        }
+        isEndpointCacheVerified = true;
+
+        if (!isSuccess) {
+            Log.e(TAG, "First request failed with cached endpoints, removing cache entry.");
+            endpointCache.remove(currentDevice.getAddress(), serviceUuid);
+        }
+    }
+
+    private void failPendingRequests(Exception e) {
+
+        ArrayList<BleRequest> pendingRequests = new ArrayList<>();
+
+        synchronized (queueLock) {
+            if (currentRequest != null) {
+                pendingRequests.add(currentRequest);
+                currentRequest = null;
+            }
+            operationSequence = 0;
+            requestQueue.drainTo(pendingRequests);
+        }
+
+        if (!pendingRequests.isEmpty()) {
+            verifyEndpointCache(false);
+        }
+
+        for (BleRequest request : pendingRequests) {
+            dispatchResult(request, null, e);
+        }
+    }
+
+    private void dispatchResult(final BleRequest request, final byte[] value, final Exception e) {
+
+        if (request.timeoutTask != null) {
+            handler.removeCallbacks(request.timeoutTask);
+        }
+
+        if (!request.isTimedOut) {
+            notifyListener(request, value, e);
+        }
+    }
+
+    private void notifyListener(final BleRequest request, final byte[] value, final Exception e) {
+
+        if (request.listener == null) {
+            return;
+        }
+
+        /*
+         * Need to dispatch this on another thread since the caller
+         * might decide to enqueue another send operation on success
+         * of the first.
+         */
+        dispatcherThreadPool.submit(new Runnable() {
+
+            @Override
+            public void run() {
+                if (e == null) {
+                    request.listener.onSuccess(value);
+                } else {
+                    request.listener.onFailure(e);
+                }
+            }
+        });
+    }
+
     private void readNextDescriptor() {
 
         boolean found = false;
@@ -398,7 +981,7 @@ public class BLETransport implements Transport {
                 if (characteristic == null) {
                     Log.e(TAG, "Tx characteristic not found!");
                     disconnect();
-                    EventBus.getDefault().post(new DeviceConnectionEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED));
+                    postEvent(ESPConstants.EVENT_DEVICE_CONNECTION_FAILED);
                     return;
                 }
 
@@ -418,13 +1001,160 @@ public class BLETransport implements Transport {
         } else {
 
             isReadingDescriptors = false;
+            recordPhase(ProvisioningPhase.DESCRIPTOR_READ, phaseStartTime, true);
+            onEndpointsAvailable();
+        }
+    }
+
+    private void onEndpointsAvailable() {
+
+        if (isNotificationEnabled) {
+            enableNotifications();
+        } else {
+            readVersionInfo();
+        }
+    }
 
-            BluetoothGattCharacteristic characteristic = service.getCharacteristic(UUID.fromString(uuidMap.get(ESPConstants.HANDLER_PROTO_VER)));
+    /**
+     * Takes endpoints from cache, if all cached characteristics are available in discovered service.
+     *
+     * @return True if endpoints are taken from cache.
+     */
+    private boolean loadCachedEndpoints() {
 
-            if (characteristic != null) {
-                characteristic.setValue("ESP");
-                bluetoothGatt.writeCharacteristic(characteristic);
+        if (!isEndpointCacheEnabled) {
+            return false;
+        }
+
+        String address = currentDevice.getAddress();
+        GattEndpointCache.Entry entry = endpointCache.get(address, serviceUuid);
+
+        if (entry == null || !entry.getEndpoints().containsKey(ESPConstants.HANDLER_PROTO_VER)) {
+            return false;
+        }
+
+        for (String uuid : entry.getEndpoints().values()) {
+            if (service.getCharacteristic(UUID.fromString(uuid)) == null) {
+                Log.d(TAG, "Cached endpoints are not available in service, removing cache entry.");
+                endpointCache.remove(address, serviceUuid);
+                return false;
             }
         }
+
+        Log.d(TAG, "Using cached endpoints, firmware version : " + entry.getVersion());
+        uuidMap.putAll(entry.getEndpoints());
+        cachedVersionInfo = entry.getVersionInfo();
+        return true;
+    }
+
+    /**
+     * Writes CCCD of all endpoint characteristics which support notify / indicate, one at a time.
+     * Version info is read once all of them are written.
+     */
+    private void enableNotifications() {
+
+        pendingCccdWrites.clear();
+
+        for (String uuid : uuidMap.values()) {
+
+            BluetoothGattCharacteristic characteristic = service.getCharacteristic(UUID.fromString(uuid));
+            if (characteristic == null) {
+                continue;
+            }
+
+            int properties = characteristic.getProperties();
+            BluetoothGattDescriptor descriptor = characteristic.getDescriptor(CLIENT_CHARACTERISTIC_CONFIG_UUID);
+
+            if (descriptor == null || (properties & (BluetoothGattCharacteristic.PROPERTY_NOTIFY | BluetoothGattCharacteristic.PROPERTY_INDICATE)) == 0) {
+                Log.d(TAG, "Notifications not supported for UUID : " + uuid);
+                continue;
+            }
+            pendingCccdWrites.add(descriptor);
+        }
+        enableNextNotification();
+    }
+
+    private void enableNextNotification() {
+
+        while (!pendingCccdWrites.isEmpty()) {
+
+            BluetoothGattDescriptor descriptor = pendingCccdWrites.remove(0);
+            BluetoothGattCharacteristic characteristic = descriptor.getCharacteristic();
+
+            if (!bluetoothGatt.setCharacteristicNotification(characteristic, true)) {
+                continue;
+            }
+
+            if ((characteristic.getProperties() & BluetoothGattCharacteristic.PROPERTY_NOTIFY) != 0) {
+                descriptor.setValue(BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE);
+            } else {
+                descriptor.setValue(BluetoothGattDescriptor.ENABLE_INDICATION_VALUE);
+            }
+
+            if (bluetoothGatt.writeDescriptor(descriptor)) {
+                // Continued in onDescriptorWrite.
+                return;
+            }
+            bluetoothGatt.setCharacteristicNotification(characteristic, false);
+        }
+        readVersionInfo();
+    }
+
+    private void readVersionInfo() {
+
+        String versionInfo = cachedVersionInfo;
+
+        if (versionInfo != null) {
+            processVersionInfo(versionInfo.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        BluetoothGattCharacteristic characteristic = service.getCharacteristic(UUID.fromString(uuidMap.get(ESPConstants.HANDLER_PROTO_VER)));
+
+        if (characteristic != null) {
+            phaseStartTime = ProvisioningMetrics.startTimer();
+            // Write anything. It doesn't matter. We need to read characteristic and for that we need to write something.
+            characteristic.setValue("ESP");
+            bluetoothGatt.writeCharacteristic(characteristic);
+        }
+    }
+
+    private void recordPhase(ProvisioningPhase phase, long startTime, boolean isSuccess) {
+
+        BluetoothDevice device = currentDevice;
+        ProvisioningMetrics.getInstance().recordPhase(device == null ? null : device.getAddress(), phase, startTime, isSuccess);
+    }
+
+    /**
+     * Queued request, written to endpoint characteristic and followed by read (or notification) of the response.
+     */
+    private static class BleRequest {
+
+        private final String path;
+        private final BluetoothGattCharacteristic characteristic;
+        private final byte[] data;
+        private final long timeoutMs;
+        private final ResponseListener listener;
+        // Guarded by queue lock.
+        private long sequence;
+        private volatile boolean isTimedOut;
+        private volatile Runnable timeoutTask;
+        private volatile boolean isReliableWrite;
+        // Guarded by the request, used when response is received through notification.
+        private boolean isWritten;
+        private boolean isNotified;
+        private byte[] notifiedValue;
+
+        BleRequest(String path, BluetoothGattCharacteristic characteristic, byte[] data, long timeoutMs, ResponseListener listener) {
+            this.path = path;
+            this.characteristic = characteristic;
+            this.data = data;
+            this.timeoutMs = timeoutMs;
+            this.listener = listener;
+        }
+
+        boolean isFor(BluetoothGattCharacteristic characteristic) {
+            return this.characteristic.getUuid().equals(characteristic.getUuid());
+        }
     }
 }
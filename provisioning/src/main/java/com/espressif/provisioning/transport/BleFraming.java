@@ -0,0 +1,77 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.transport;
+
+/**
+ * Sizes of ATT PDUs used to transfer an endpoint payload for the negotiated MTU.
+ * <p>
+ * Payload up to (MTU - 3) bytes is sent in a single write request. Larger payload is sent as prepared write
+ * fragments of (MTU - 5) bytes followed by execute write, and larger response is read with read blob requests
+ * of (MTU - 1) bytes. Fragments are created and reassembled by the Bluetooth stack, as the device expects
+ * standard GATT long writes / reads. Attribute value can't be longer than 512 bytes.
+ */
+final class BleFraming {
+
+    static final int MAX_ATTRIBUTE_LENGTH = 512;
+
+    // Opcode + attribute handle
+    private static final int WRITE_HEADER_LENGTH = 3;
+    // Opcode + attribute handle + offset
+    private static final int PREPARE_WRITE_HEADER_LENGTH = 5;
+    // Opcode
+    private static final int READ_HEADER_LENGTH = 1;
+    // Opcode + attribute handle
+    private static final int NOTIFICATION_HEADER_LENGTH = 3;
+
+    private BleFraming() {
+    }
+
+    static int getMaxWriteLength(int mtu) {
+        return mtu - WRITE_HEADER_LENGTH;
+    }
+
+    static boolean isLongWrite(int mtu, int length) {
+        return length > getMaxWriteLength(mtu);
+    }
+
+    /**
+     * Returns number of write requests needed for the payload, including execute write for long write.
+     */
+    static int getWriteCount(int mtu, int length) {
+
+        if (!isLongWrite(mtu, length)) {
+            return 1;
+        }
+        int fragmentLength = mtu - PREPARE_WRITE_HEADER_LENGTH;
+        return (length + fragmentLength - 1) / fragmentLength + 1;
+    }
+
+    /**
+     * Returns number of read requests needed for the response.
+     */
+    static int getReadCount(int mtu, int length) {
+
+        int fragmentLength = mtu - READ_HEADER_LENGTH;
+        // A response which fills all read responses needs one more read to find its end.
+        return length / fragmentLength + 1;
+    }
+
+    /**
+     * Notification carries at most (MTU - 3) bytes, so a notification of that size may have truncated response.
+     */
+    static boolean isNotificationTruncated(int mtu, int length) {
+        return length >= mtu - NOTIFICATION_HEADER_LENGTH;
+    }
+}
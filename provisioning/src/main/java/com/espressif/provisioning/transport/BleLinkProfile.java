@@ -0,0 +1,68 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.transport;
+
+import android.bluetooth.BluetoothGatt;
+
+/**
+ * Connection parameters requested for BLE link in different phases of provisioning.
+ * <p>
+ * Bulk phase (session setup, Wi-Fi / Thread scan, custom endpoint data and network config) has many
+ * request / response round trips, so it uses short connection interval and 2M PHY, if supported.
+ * Idle phase is the time when device joins the network and app only polls for the status, so it uses
+ * connection priority which saves power.
+ */
+public class BleLinkProfile {
+
+    public enum LinkMode {
+        BULK,
+        IDLE
+    }
+
+    /**
+     * High priority and 2M PHY for bulk phase, low power for idle phase.
+     */
+    public static final BleLinkProfile PERFORMANCE = new BleLinkProfile(BluetoothGatt.CONNECTION_PRIORITY_HIGH,
+            BluetoothGatt.CONNECTION_PRIORITY_LOW_POWER, true);
+
+    /**
+     * Balanced priority in all phases with default PHY.
+     */
+    public static final BleLinkProfile BALANCED = new BleLinkProfile(BluetoothGatt.CONNECTION_PRIORITY_BALANCED,
+            BluetoothGatt.CONNECTION_PRIORITY_BALANCED, false);
+
+    private final int bulkPriority;
+    private final int idlePriority;
+    private final boolean is2MPhyPreferred;
+
+    /**
+     * @param bulkPriority     Connection priority for bulk phase. One of BluetoothGatt.CONNECTION_PRIORITY_* values.
+     * @param idlePriority     Connection priority for idle phase. One of BluetoothGatt.CONNECTION_PRIORITY_* values.
+     * @param is2MPhyPreferred True to request LE 2M PHY in bulk phase, it is used only if phone supports it.
+     */
+    public BleLinkProfile(int bulkPriority, int idlePriority, boolean is2MPhyPreferred) {
+        this.bulkPriority = bulkPriority;
+        this.idlePriority = idlePriority;
+        this.is2MPhyPreferred = is2MPhyPreferred;
+    }
+
+    public int getConnectionPriority(LinkMode mode) {
+        return mode == LinkMode.BULK ? bulkPriority : idlePriority;
+    }
+
+    public boolean is2MPhyPreferred() {
+        return is2MPhyPreferred;
+    }
+}
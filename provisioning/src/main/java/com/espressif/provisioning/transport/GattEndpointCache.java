@@ -0,0 +1,167 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.transport;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Persistent cache of GATT endpoints of provisioning devices.
+ * <p>
+ * Entry is stored for device address and primary service UUID, it has endpoint name to characteristic UUID map,
+ * version info read from "proto-ver" endpoint and firmware version ("ver") of the device.
+ * It allows BLE transport to skip reading user description descriptor of every characteristic and version info
+ * when it connects to the same device again.
+ */
+public class GattEndpointCache {
+
+    private static final String TAG = "Espressif::" + GattEndpointCache.class.getSimpleName();
+
+    private static final String PREF_NAME = "esp_gatt_endpoint_cache";
+    private static final String KEY_ENDPOINTS = "endpoints";
+    private static final String KEY_VERSION_INFO = "version_info";
+    private static final String KEY_VERSION = "ver";
+
+    private static GattEndpointCache cache;
+
+    private final SharedPreferences preferences;
+
+    public static synchronized GattEndpointCache getInstance(Context context) {
+
+        if (cache == null) {
+            cache = new GattEndpointCache(context.getApplicationContext());
+        }
+        return cache;
+    }
+
+    private GattEndpointCache(Context context) {
+        preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * This method is used to get cached endpoints of the device.
+     *
+     * @param address     Bluetooth address of the device.
+     * @param serviceUuid Primary service UUID.
+     * @return Cached entry or null if device is not available in cache.
+     */
+    public Entry get(String address, String serviceUuid) {
+
+        String value = preferences.getString(getKey(address, serviceUuid), null);
+
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            JSONObject jsonObject = new JSONObject(value);
+            JSONObject endpointsJson = jsonObject.getJSONObject(KEY_ENDPOINTS);
+            HashMap<String, String> endpoints = new HashMap<>();
+            Iterator<String> names = endpointsJson.keys();
+
+            while (names.hasNext()) {
+                String name = names.next();
+                endpoints.put(name, endpointsJson.getString(name));
+            }
+            return new Entry(endpoints, jsonObject.getString(KEY_VERSION_INFO), jsonObject.optString(KEY_VERSION, null));
+
+        } catch (JSONException e) {
+            Log.e(TAG, "Invalid cache entry for " + address);
+            remove(address, serviceUuid);
+            return null;
+        }
+    }
+
+    /**
+     * This method is used to store endpoints of the device.
+     *
+     * @param address     Bluetooth address of the device.
+     * @param serviceUuid Primary service UUID.
+     * @param endpoints   Endpoint name to characteristic UUID map.
+     * @param versionInfo Version info of the device.
+     * @param version     Firmware version of the device, it can be null.
+     */
+    public void put(String address, String serviceUuid, Map<String, String> endpoints, String versionInfo, String version) {
+
+        try {
+            JSONObject jsonObject = new JSONObject();
+            jsonObject.put(KEY_ENDPOINTS, new JSONObject(endpoints));
+            jsonObject.put(KEY_VERSION_INFO, versionInfo);
+            jsonObject.put(KEY_VERSION, version);
+            preferences.edit().putString(getKey(address, serviceUuid), jsonObject.toString()).apply();
+
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * This method is used to remove cached endpoints of the device.
+     * Call this method when GATT database of the device is changed. e.g. after firmware update.
+     *
+     * @param address     Bluetooth address of the device.
+     * @param serviceUuid Primary service UUID.
+     */
+    public void remove(String address, String serviceUuid) {
+        preferences.edit().remove(getKey(address, serviceUuid)).apply();
+    }
+
+    /**
+     * This method is used to remove cached endpoints of all devices.
+     */
+    public void clear() {
+        preferences.edit().clear().apply();
+    }
+
+    private static String getKey(String address, String serviceUuid) {
+        return address.toUpperCase() + "/" + serviceUuid.toLowerCase();
+    }
+
+    /**
+     * Cached endpoints of a device.
+     */
+    public static class Entry {
+
+        private final HashMap<String, String> endpoints;
+        private final String versionInfo;
+        private final String version;
+
+        Entry(HashMap<String, String> endpoints, String versionInfo, String version) {
+            this.endpoints = endpoints;
+            this.versionInfo = versionInfo;
+            this.version = version;
+        }
+
+        public Map<String, String> getEndpoints() {
+            return endpoints;
+        }
+
+        public String getVersionInfo() {
+            return versionInfo;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+}
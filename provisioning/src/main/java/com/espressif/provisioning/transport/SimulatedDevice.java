@@ -0,0 +1,533 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.transport;
+
+import com.espressif.provisioning.ESPConstants;
+import com.espressif.provisioning.srp6a.BigIntegerUtils;
+import com.espressif.provisioning.srp6a.ClientSRP6Routines;
+import com.espressif.provisioning.srp6a.SRP6CryptoParams;
+import com.espressif.provisioning.srp6a.SRP6Exception;
+import com.espressif.provisioning.srp6a.SRP6ServerSession;
+import com.espressif.provisioning.srp6a.SRP6VerifierGenerator;
+import com.espressif.provisioning.srp6a.XRoutineWithUserIdentity;
+import com.espressif.provisioning.utils.HexEncoder;
+import com.google.crypto.tink.subtle.X25519;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import espressif.Constants;
+import espressif.NetworkConfig;
+import espressif.NetworkConstants;
+import espressif.NetworkCtrl;
+import espressif.NetworkScan;
+import espressif.Sec0;
+import espressif.Sec1;
+import espressif.Sec2;
+import espressif.Session;
+
+/**
+ * Device side of the provisioning protocol, used by {@link SimulatedTransport}.
+ * It handles the same endpoints and protobuf messages as the ESP-IDF provisioning manager.
+ * All methods are called from the single device thread of the transport.
+ */
+class SimulatedDevice {
+
+    private static final String DEVICE_IP = "192.168.1.100";
+    private static final int GCM_TAG_LENGTH = 128;
+
+    private final SimulatedTransport.Builder config;
+    private final SecureRandom random = new SecureRandom();
+    private final HashMap<String, SimulatedTransport.EndpointHandler> customEndpoints;
+
+    // Session
+    private boolean isSessionEstablished;
+    private byte[] devicePublicKey;
+    private byte[] clientPublicKey;
+    private Cipher ctrCipher;
+    private SRP6ServerSession srpSession;
+    private BigInteger srpClientPublicKey;
+    private SecretKeySpec gcmKey;
+    private byte[] deviceNonce;
+    private int counter;
+
+    // Network config
+    private boolean isConfigApplied;
+    private int statusPollCount;
+    private byte[] configuredSsid;
+
+    SimulatedDevice(SimulatedTransport.Builder config) {
+        this.config = config;
+        this.customEndpoints = new HashMap<>(config.customEndpoints);
+    }
+
+    /**
+     * Handle data received on given endpoint.
+     *
+     * @param path Endpoint name.
+     * @param data Received data.
+     * @return Response data.
+     * @throws RuntimeException If request can not be handled, device does not respond in that case.
+     */
+    byte[] handleRequest(String path, byte[] data) throws RuntimeException {
+
+        if (ESPConstants.HANDLER_PROTO_VER.equals(path)) {
+            return config.versionInfo.getBytes(StandardCharsets.UTF_8);
+        }
+
+        if (ESPConstants.HANDLER_PROV_SESSION.equals(path)) {
+            try {
+                return handleSessionRequest(data);
+            } catch (InvalidProtocolBufferException | GeneralSecurityException e) {
+                throw new RuntimeException("Invalid session request", e);
+            }
+        }
+
+        if (!isSessionEstablished) {
+            throw new RuntimeException("Session is not established");
+        }
+
+        byte[] request = decrypt(data);
+        byte[] response;
+
+        try {
+            if (ESPConstants.HANDLER_PROV_SCAN.equals(path)) {
+                response = handleScanRequest(request);
+            } else if (ESPConstants.HANDLER_PROV_CONFIG.equals(path)) {
+                response = handleConfigRequest(request);
+            } else if (ESPConstants.HANDLER_PROV_CTRL.equals(path)) {
+                response = handleCtrlRequest(request);
+            } else if (customEndpoints.containsKey(path)) {
+                response = customEndpoints.get(path).handleRequest(request);
+            } else {
+                throw new RuntimeException("Unknown endpoint : " + path);
+            }
+        } catch (InvalidProtocolBufferException e) {
+            throw new RuntimeException("Invalid request for endpoint : " + path, e);
+        }
+        return encrypt(response);
+    }
+
+    /**
+     * Reset session, as done by the device when transport connection is closed.
+     */
+    void resetSession() {
+        isSessionEstablished = false;
+        ctrCipher = null;
+        srpSession = null;
+        gcmKey = null;
+    }
+
+    private byte[] handleSessionRequest(byte[] data) throws InvalidProtocolBufferException, GeneralSecurityException {
+
+        Session.SessionData request = Session.SessionData.parseFrom(data);
+
+        if (request.getSecVerValue() != config.securityVersion) {
+            throw new RuntimeException("Security version mismatch");
+        }
+
+        switch (config.securityVersion) {
+            case 0:
+                return handleSec0Request();
+            case 1:
+                return handleSec1Request(request.getSec1());
+            case 2:
+                return handleSec2Request(request.getSec2());
+            default:
+                throw new RuntimeException("Unsupported security version");
+        }
+    }
+
+    private byte[] handleSec0Request() {
+
+        isSessionEstablished = true;
+        Sec0.Sec0Payload payload = Sec0.Sec0Payload.newBuilder()
+                .setMsg(Sec0.Sec0MsgType.S0_Session_Response)
+                .setSr(Sec0.S0SessionResp.newBuilder().setStatus(Constants.Status.Success))
+                .build();
+        return Session.SessionData.newBuilder()
+                .setSecVer(Session.SecSchemeVersion.SecScheme0)
+                .setSec0(payload)
+                .build()
+                .toByteArray();
+    }
+
+    private byte[] handleSec1Request(Sec1.Sec1Payload request) throws GeneralSecurityException {
+
+        Sec1.Sec1Payload.Builder payload = Sec1.Sec1Payload.newBuilder();
+
+        if (request.getMsg() == Sec1.Sec1MsgType.Session_Command0) {
+
+            resetSession();
+            clientPublicKey = request.getSc0().getClientPubkey().toByteArray();
+            byte[] privateKey = X25519.generatePrivateKey();
+            devicePublicKey = X25519.publicFromPrivate(privateKey);
+            byte[] sharedKey = X25519.computeSharedSecret(privateKey, clientPublicKey);
+
+            if (config.proofOfPossession != null && config.proofOfPossession.length() > 0) {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                sharedKey = HexEncoder.xor(sharedKey, md.digest(config.proofOfPossession.getBytes()));
+            }
+
+            byte[] deviceRandom = new byte[16];
+            random.nextBytes(deviceRandom);
+            ctrCipher = Cipher.getInstance("AES/CTR/NoPadding");
+            ctrCipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(sharedKey, "AES"), new IvParameterSpec(deviceRandom));
+
+            payload.setMsg(Sec1.Sec1MsgType.Session_Response0)
+                    .setSr0(Sec1.SessionResp0.newBuilder()
+                            .setStatus(Constants.Status.Success)
+                            .setDevicePubkey(ByteString.copyFrom(devicePublicKey))
+                            .setDeviceRandom(ByteString.copyFrom(deviceRandom)));
+
+        } else if (request.getMsg() == Sec1.Sec1MsgType.Session_Command1 && ctrCipher != null) {
+
+            byte[] clientVerify = ctrCipher.update(request.getSc1().getClientVerifyData().toByteArray());
+            Sec1.SessionResp1.Builder resp = Sec1.SessionResp1.newBuilder();
+
+            if (Arrays.equals(clientVerify, devicePublicKey)) {
+                resp.setStatus(Constants.Status.Success)
+                        .setDeviceVerifyData(ByteString.copyFrom(ctrCipher.update(clientPublicKey)));
+                isSessionEstablished = true;
+            } else {
+                resp.setStatus(Constants.Status.CryptoError);
+            }
+            payload.setMsg(Sec1.Sec1MsgType.Session_Response1).setSr1(resp);
+
+        } else {
+            throw new RuntimeException("Invalid security 1 message");
+        }
+
+        return Session.SessionData.newBuilder()
+                .setSecVer(Session.SecSchemeVersion.SecScheme1)
+                .setSec1(payload)
+                .build()
+                .toByteArray();
+    }
+
+    private byte[] handleSec2Request(Sec2.Sec2Payload request) throws GeneralSecurityException {
+
+        Sec2.Sec2Payload.Builder payload = Sec2.Sec2Payload.newBuilder();
+
+        if (request.getMsg() == Sec2.Sec2MsgType.S2Session_Command0) {
+
+            resetSession();
+            String userName = request.getSc0().getClientUsername().toStringUtf8();
+            srpClientPublicKey = BigIntegerUtils.bigIntegerFromBytes(request.getSc0().getClientPubkey().toByteArray());
+
+            SRP6CryptoParams params = SRP6CryptoParams.getInstance(3072, "SHA-512");
+            SRP6VerifierGenerator verifierGenerator = new SRP6VerifierGenerator(params);
+            verifierGenerator.setXRoutine(new XRoutineWithUserIdentity());
+            BigInteger salt = BigIntegerUtils.bigIntegerFromBytes(verifierGenerator.generateRandomSalt(16));
+            BigInteger verifier = verifierGenerator.generateVerifier(salt, config.userName, config.password);
+
+            srpSession = new SRP6ServerSession(params);
+            srpSession.setClientEvidenceRoutine(new ClientSRP6Routines(params.getMessageDigestInstance()));
+            BigInteger devicePubKey;
+
+            if (config.userName.equals(userName)) {
+                devicePubKey = srpSession.step1(userName, salt, verifier);
+            } else {
+                devicePubKey = srpSession.mockStep1(userName, salt, verifier);
+            }
+
+            payload.setMsg(Sec2.Sec2MsgType.S2Session_Response0)
+                    .setSr0(Sec2.S2SessionResp0.newBuilder()
+                            .setStatus(Constants.Status.Success)
+                            .setDevicePubkey(ByteString.copyFrom(BigIntegerUtils.bigIntegerToBytes(devicePubKey)))
+                            .setDeviceSalt(ByteString.copyFrom(BigIntegerUtils.bigIntegerToBytes(salt))));
+
+        } else if (request.getMsg() == Sec2.Sec2MsgType.S2Session_Command1 && srpSession != null) {
+
+            BigInteger clientProof = BigIntegerUtils.bigIntegerFromBytes(request.getSc1().getClientProof().toByteArray());
+            Sec2.S2SessionResp1.Builder resp = Sec2.S2SessionResp1.newBuilder();
+
+            try {
+                BigInteger deviceProof = srpSession.step2(srpClientPublicKey, clientProof);
+                byte[] sharedKey = BigIntegerUtils.bigIntegerToBytes(srpSession.K);
+
+                deviceNonce = new byte[12];
+                random.nextBytes(deviceNonce);
+                counter = (deviceNonce[8] & 0xFF) << 24 | (deviceNonce[9] & 0xFF) << 16 | (deviceNonce[10] & 0xFF) << 8 | (deviceNonce[11] & 0xFF);
+                gcmKey = new SecretKeySpec(Arrays.copyOfRange(sharedKey, 0, 32), "AES");
+
+                resp.setStatus(Constants.Status.Success)
+                        .setDeviceProof(ByteString.copyFrom(BigIntegerUtils.bigIntegerToBytes(deviceProof)))
+                        .setDeviceNonce(ByteString.copyFrom(deviceNonce));
+                isSessionEstablished = true;
+            } catch (SRP6Exception e) {
+                resp.setStatus(Constants.Status.CryptoError);
+            }
+            payload.setMsg(Sec2.Sec2MsgType.S2Session_Response1).setSr1(resp);
+
+        } else {
+            throw new RuntimeException("Invalid security 2 message");
+        }
+
+        return Session.SessionData.newBuilder()
+                .setSecVer(Session.SecSchemeVersion.SecScheme2)
+                .setSec2(payload)
+                .build()
+                .toByteArray();
+    }
+
+    private byte[] encrypt(byte[] data) {
+        return crypt(Cipher.ENCRYPT_MODE, data);
+    }
+
+    private byte[] decrypt(byte[] data) {
+        return crypt(Cipher.DECRYPT_MODE, data);
+    }
+
+    private byte[] crypt(int mode, byte[] data) {
+
+        switch (config.securityVersion) {
+            case 1:
+                // Same CTR stream is used for both directions, as done by the client.
+                return ctrCipher.update(data);
+
+            case 2:
+                byte[] nonce = deviceNonce;
+                if (config.sec2PatchVersion == 1) {
+                    nonce = Arrays.copyOf(deviceNonce, 12);
+                    nonce[8] = (byte) (counter >> 24);
+                    nonce[9] = (byte) (counter >> 16);
+                    nonce[10] = (byte) (counter >> 8);
+                    nonce[11] = (byte) counter;
+                    counter++;
+                }
+                try {
+                    // New cipher for every message, as patch version 0 uses same nonce for all messages
+                    // and JCE does not allow to reuse nonce for encryption with the same cipher.
+                    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                    cipher.init(mode, gcmKey, new GCMParameterSpec(GCM_TAG_LENGTH, nonce));
+                    return cipher.doFinal(data);
+                } catch (GeneralSecurityException e) {
+                    throw new RuntimeException("Failed to decrypt request", e);
+                }
+
+            default:
+                return data;
+        }
+    }
+
+    private byte[] handleScanRequest(byte[] data) throws InvalidProtocolBufferException {
+
+        NetworkScan.NetworkScanPayload request = NetworkScan.NetworkScanPayload.parseFrom(data);
+        NetworkScan.NetworkScanPayload.Builder response = NetworkScan.NetworkScanPayload.newBuilder()
+                .setStatus(Constants.Status.Success);
+
+        switch (request.getMsg()) {
+            case TypeCmdScanWifiStart:
+                response.setMsg(NetworkScan.NetworkScanMsgType.TypeRespScanWifiStart)
+                        .setRespScanWifiStart(NetworkScan.RespScanWifiStart.newBuilder());
+                break;
+
+            case TypeCmdScanWifiStatus:
+                response.setMsg(NetworkScan.NetworkScanMsgType.TypeRespScanWifiStatus)
+                        .setRespScanWifiStatus(NetworkScan.RespScanWifiStatus.newBuilder()
+                                .setScanFinished(true)
+                                .setResultCount(config.wifiNetworks.size()));
+                break;
+
+            case TypeCmdScanWifiResult: {
+                NetworkScan.CmdScanWifiResult cmd = request.getCmdScanWifiResult();
+                NetworkScan.RespScanWifiResult.Builder result = NetworkScan.RespScanWifiResult.newBuilder();
+                response.setMsg(NetworkScan.NetworkScanMsgType.TypeRespScanWifiResult);
+
+                if (cmd.getStartIndex() + cmd.getCount() > config.wifiNetworks.size()) {
+                    response.setStatus(Constants.Status.InvalidArgument);
+                } else {
+                    result.addAllEntries(config.wifiNetworks.subList(cmd.getStartIndex(), cmd.getStartIndex() + cmd.getCount()));
+                }
+                response.setRespScanWifiResult(result);
+                break;
+            }
+
+            case TypeCmdScanThreadStart:
+                response.setMsg(NetworkScan.NetworkScanMsgType.TypeRespScanThreadStart)
+                        .setRespScanThreadStart(NetworkScan.RespScanThreadStart.newBuilder());
+                break;
+
+            case TypeCmdScanThreadStatus:
+                response.setMsg(NetworkScan.NetworkScanMsgType.TypeRespScanThreadStatus)
+                        .setRespScanThreadStatus(NetworkScan.RespScanThreadStatus.newBuilder()
+                                .setScanFinished(true)
+                                .setResultCount(config.threadNetworks.size()));
+                break;
+
+            case TypeCmdScanThreadResult: {
+                NetworkScan.CmdScanThreadResult cmd = request.getCmdScanThreadResult();
+                NetworkScan.RespScanThreadResult.Builder result = NetworkScan.RespScanThreadResult.newBuilder();
+                response.setMsg(NetworkScan.NetworkScanMsgType.TypeRespScanThreadResult);
+
+                if (cmd.getStartIndex() + cmd.getCount() > config.threadNetworks.size()) {
+                    response.setStatus(Constants.Status.InvalidArgument);
+                } else {
+                    result.addAllEntries(config.threadNetworks.subList(cmd.getStartIndex(), cmd.getStartIndex() + cmd.getCount()));
+                }
+                response.setRespScanThreadResult(result);
+                break;
+            }
+
+            default:
+                response.setStatus(Constants.Status.InvalidArgument);
+                break;
+        }
+        return response.build().toByteArray();
+    }
+
+    private byte[] handleConfigRequest(byte[] data) throws InvalidProtocolBufferException {
+
+        NetworkConfig.NetworkConfigPayload request = NetworkConfig.NetworkConfigPayload.parseFrom(data);
+        NetworkConfig.NetworkConfigPayload.Builder response = NetworkConfig.NetworkConfigPayload.newBuilder();
+
+        switch (request.getMsg()) {
+            case TypeCmdSetWifiConfig:
+                configuredSsid = request.getCmdSetWifiConfig().getSsid().toByteArray();
+                isConfigApplied = false;
+                response.setMsg(NetworkConfig.NetworkConfigMsgType.TypeRespSetWifiConfig)
+                        .setRespSetWifiConfig(NetworkConfig.RespSetWifiConfig.newBuilder()
+                                .setStatus(Constants.Status.Success));
+                break;
+
+            case TypeCmdSetThreadConfig:
+                isConfigApplied = false;
+                response.setMsg(NetworkConfig.NetworkConfigMsgType.TypeRespSetThreadConfig)
+                        .setRespSetThreadConfig(NetworkConfig.RespSetThreadConfig.newBuilder()
+                                .setStatus(Constants.Status.Success));
+                break;
+
+            case TypeCmdApplyWifiConfig:
+                isConfigApplied = true;
+                statusPollCount = 0;
+                response.setMsg(NetworkConfig.NetworkConfigMsgType.TypeRespApplyWifiConfig)
+                        .setRespApplyWifiConfig(NetworkConfig.RespApplyWifiConfig.newBuilder()
+                                .setStatus(Constants.Status.Success));
+                break;
+
+            case TypeCmdApplyThreadConfig:
+                isConfigApplied = true;
+                statusPollCount = 0;
+                response.setMsg(NetworkConfig.NetworkConfigMsgType.TypeRespApplyThreadConfig)
+                        .setRespApplyThreadConfig(NetworkConfig.RespApplyThreadConfig.newBuilder()
+                                .setStatus(Constants.Status.Success));
+                break;
+
+            case TypeCmdGetWifiStatus:
+                response.setMsg(NetworkConfig.NetworkConfigMsgType.TypeRespGetWifiStatus)
+                        .setRespGetWifiStatus(getWifiStatus());
+                break;
+
+            case TypeCmdGetThreadStatus:
+                response.setMsg(NetworkConfig.NetworkConfigMsgType.TypeRespGetThreadStatus)
+                        .setRespGetThreadStatus(getThreadStatus());
+                break;
+
+            default:
+                throw new RuntimeException("Invalid config message");
+        }
+        return response.build().toByteArray();
+    }
+
+    private NetworkConfig.RespGetWifiStatus.Builder getWifiStatus() {
+
+        NetworkConfig.RespGetWifiStatus.Builder status = NetworkConfig.RespGetWifiStatus.newBuilder()
+                .setStatus(Constants.Status.Success);
+
+        if (!isConfigApplied) {
+            return status.setWifiStaState(NetworkConstants.WifiStationState.Disconnected);
+        }
+
+        if (statusPollCount++ < config.connectingPollCount) {
+            return status.setWifiStaState(NetworkConstants.WifiStationState.Connecting);
+        }
+
+        if (config.wifiFailReason != null) {
+            return status.setWifiStaState(NetworkConstants.WifiStationState.ConnectionFailed)
+                    .setWifiFailReason(config.wifiFailReason);
+        }
+
+        return status.setWifiStaState(NetworkConstants.WifiStationState.Connected)
+                .setWifiConnected(NetworkConstants.WifiConnectedState.newBuilder()
+                        .setIp4Addr(DEVICE_IP)
+                        .setSsid(ByteString.copyFrom(configuredSsid != null ? configuredSsid : new byte[0])));
+    }
+
+    private NetworkConfig.RespGetThreadStatus.Builder getThreadStatus() {
+
+        NetworkConfig.RespGetThreadStatus.Builder status = NetworkConfig.RespGetThreadStatus.newBuilder()
+                .setStatus(Constants.Status.Success);
+
+        if (!isConfigApplied) {
+            return status.setThreadState(NetworkConstants.ThreadNetworkState.Dettached);
+        }
+
+        if (statusPollCount++ < config.connectingPollCount) {
+            return status.setThreadState(NetworkConstants.ThreadNetworkState.Attaching);
+        }
+
+        if (config.threadFailReason != null) {
+            return status.setThreadState(NetworkConstants.ThreadNetworkState.AttachingFailed)
+                    .setThreadFailReason(config.threadFailReason);
+        }
+
+        return status.setThreadState(NetworkConstants.ThreadNetworkState.Attached)
+                .setThreadAttached(NetworkConstants.ThreadAttachState.newBuilder());
+    }
+
+    private byte[] handleCtrlRequest(byte[] data) throws InvalidProtocolBufferException {
+
+        NetworkCtrl.NetworkCtrlPayload request = NetworkCtrl.NetworkCtrlPayload.parseFrom(data);
+        NetworkCtrl.NetworkCtrlPayload.Builder response = NetworkCtrl.NetworkCtrlPayload.newBuilder()
+                .setStatus(Constants.Status.Success);
+
+        switch (request.getMsg()) {
+            case TypeCmdCtrlWifiReset:
+            case TypeCmdCtrlThreadReset:
+                isConfigApplied = false;
+                configuredSsid = null;
+                response.setMsg(request.getMsg() == NetworkCtrl.NetworkCtrlMsgType.TypeCmdCtrlWifiReset
+                        ? NetworkCtrl.NetworkCtrlMsgType.TypeRespCtrlWifiReset
+                        : NetworkCtrl.NetworkCtrlMsgType.TypeRespCtrlThreadReset);
+                break;
+
+            case TypeCmdCtrlWifiReprov:
+            case TypeCmdCtrlThreadReprov:
+                isConfigApplied = false;
+                response.setMsg(request.getMsg() == NetworkCtrl.NetworkCtrlMsgType.TypeCmdCtrlWifiReprov
+                        ? NetworkCtrl.NetworkCtrlMsgType.TypeRespCtrlWifiReprov
+                        : NetworkCtrl.NetworkCtrlMsgType.TypeRespCtrlThreadReprov);
+                break;
+
+            default:
+                response.setStatus(Constants.Status.InvalidArgument);
+                break;
+        }
+        return response.build().toByteArray();
+    }
+}
@@ -0,0 +1,425 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.transport;
+
+import com.espressif.provisioning.ESPConstants;
+import com.espressif.provisioning.listeners.ResponseListener;
+import com.google.protobuf.ByteString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import espressif.NetworkConstants;
+import espressif.NetworkScan;
+
+/**
+ * Transport implementation backed by an in-process simulated ESP device.
+ * Simulated device speaks the same protobuf protocol as ESP-IDF provisioning manager
+ * (proto-ver, prov-session with Security 0 / 1 / 2, prov-scan, prov-config, prov-ctrl and custom endpoints).
+ * It does not use any Android API, so it can be used to test and measure Session, ESPDevice
+ * and security implementations on the JVM.
+ *
+ * <p>Requests are handled one at a time, in the order they are sent, as done by the device.
+ * Link characteristics can be configured with {@link Builder} :
+ * <ul>
+ * <li>Latency : Time taken by one request / response exchange.</li>
+ * <li>MTU and fragment latency : Data is split in fragments of (MTU - 3) bytes, like BLE characteristic writes / reads,
+ * and every fragment adds given latency.</li>
+ * <li>Failure rate : Probability of a request to get lost.</li>
+ * </ul>
+ */
+public class SimulatedTransport implements Transport {
+
+    private static final int ATT_HEADER_SIZE = 3;
+
+    private final SimulatedDevice device;
+    private final ScheduledExecutorService deviceThread;
+    private final long latencyNanos;
+    private final long fragmentLatencyNanos;
+    private final int mtu;
+    private final double failureRate;
+    private final Random random;
+
+    private final AtomicInteger requestsToFail = new AtomicInteger();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong fragmentCount = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    private volatile boolean isConnected = true;
+    private long deviceBusyUntil;
+
+    private SimulatedTransport(Builder builder) {
+        this.device = new SimulatedDevice(builder);
+        this.latencyNanos = builder.latencyNanos;
+        this.fragmentLatencyNanos = builder.fragmentLatencyNanos;
+        this.mtu = builder.mtu;
+        this.failureRate = builder.failureRate;
+        this.random = builder.randomSeed != null ? new Random(builder.randomSeed) : new Random();
+        this.deviceThread = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "SimulatedDevice");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /***
+     * Send data to simulated device.
+     * Listener is called from the device thread.
+     * @param path path of the config endpoint.
+     * @param data config data to be sent
+     * @param listener listener implementation which receives events when response is received.
+     */
+    @Override
+    public void sendConfigData(final String path, final byte[] data, final ResponseListener listener) {
+
+        if (!isConnected) {
+            listener.onFailure(new RuntimeException("Device disconnected"));
+            return;
+        }
+
+        requestCount.incrementAndGet();
+        bytesSent.addAndGet(data.length);
+        long delay = schedule(latencyNanos + getTransferTime(data.length));
+
+        deviceThread.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+
+                if (!isConnected) {
+                    listener.onFailure(new RuntimeException("Device disconnected"));
+                    return;
+                }
+
+                if (requestsToFail.get() > 0 && requestsToFail.getAndDecrement() > 0
+                        || failureRate > 0 && random.nextDouble() < failureRate) {
+                    listener.onFailure(new RuntimeException("Simulated failure"));
+                    return;
+                }
+
+                final byte[] response;
+                try {
+                    response = device.handleRequest(path, data);
+                } catch (RuntimeException e) {
+                    listener.onFailure(e);
+                    return;
+                }
+
+                bytesReceived.addAndGet(response.length);
+                long responseTime = getTransferTime(response.length);
+
+                if (responseTime > 0) {
+                    deviceThread.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            listener.onSuccess(response);
+                        }
+                    }, schedule(responseTime), TimeUnit.NANOSECONDS);
+                } else {
+                    listener.onSuccess(response);
+                }
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Reserve device for given time after already scheduled exchanges.
+     *
+     * @return Delay from now after which reserved time ends.
+     */
+    private synchronized long schedule(long time) {
+        long now = System.nanoTime();
+        deviceBusyUntil = Math.max(now, deviceBusyUntil) + time;
+        return deviceBusyUntil - now;
+    }
+
+    private long getTransferTime(int length) {
+
+        int fragments = 1;
+        if (mtu > ATT_HEADER_SIZE) {
+            int payloadSize = mtu - ATT_HEADER_SIZE;
+            fragments = Math.max(1, (length + payloadSize - 1) / payloadSize);
+        }
+        fragmentCount.addAndGet(fragments);
+        return fragments * fragmentLatencyNanos;
+    }
+
+    /**
+     * This method is used to make next requests fail, as if they were lost.
+     *
+     * @param count Number of requests to fail.
+     */
+    public void failNextRequests(int count) {
+        requestsToFail.set(count);
+    }
+
+    /**
+     * This method is used to simulate connection loss.
+     * Pending and new requests will fail and device will drop the session.
+     */
+    public void disconnect() {
+        isConnected = false;
+        deviceThread.execute(new Runnable() {
+            @Override
+            public void run() {
+                device.resetSession();
+            }
+        });
+    }
+
+    /**
+     * This method is used to connect again with simulated device after {@link #disconnect()}.
+     * New session needs to be established with the device.
+     */
+    public void connect() {
+        isConnected = true;
+    }
+
+    /**
+     * This method is used to stop device thread. Transport can not be used after this.
+     */
+    public void close() {
+        isConnected = false;
+        deviceThread.shutdownNow();
+    }
+
+    public int getMtu() {
+        return mtu;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Get number of fragments transferred in both directions, as per configured MTU.
+     */
+    public long getFragmentCount() {
+        return fragmentCount.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * Handler for custom endpoint of simulated device.
+     */
+    public interface EndpointHandler {
+
+        /**
+         * Called on device thread with decrypted request data.
+         *
+         * @param data Request data.
+         * @return Response data, which will be encrypted by the device.
+         */
+        byte[] handleRequest(byte[] data);
+    }
+
+    /**
+     * Builder for {@link SimulatedTransport}.
+     */
+    public static class Builder {
+
+        // Device configuration, used by SimulatedDevice.
+        int securityVersion = 2;
+        int sec2PatchVersion = 1;
+        String proofOfPossession = "abcd1234";
+        String userName = "wifiprov";
+        String password = "abcd1234";
+        String versionInfo;
+        String[] capabilities = new String[]{"wifi_scan"};
+        final List<NetworkScan.WiFiScanResult> wifiNetworks = new ArrayList<>();
+        final List<NetworkScan.ThreadScanResult> threadNetworks = new ArrayList<>();
+        int connectingPollCount = 1;
+        NetworkConstants.WifiConnectFailedReason wifiFailReason;
+        NetworkConstants.ThreadAttachFailedReason threadFailReason;
+        final HashMap<String, EndpointHandler> customEndpoints = new HashMap<>();
+
+        // Link configuration
+        private long latencyNanos;
+        private long fragmentLatencyNanos;
+        private int mtu;
+        private double failureRate;
+        private Long randomSeed;
+
+        public Builder setSecurityType(ESPConstants.SecurityType securityType) {
+            this.securityVersion = securityType.ordinal();
+            return this;
+        }
+
+        /**
+         * Set security 2 patch version advertised by the device.
+         * Patch version 1 uses counter based nonce for every message.
+         */
+        public Builder setSec2PatchVersion(int patchVersion) {
+            this.sec2PatchVersion = patchVersion;
+            return this;
+        }
+
+        public Builder setProofOfPossession(String proofOfPossession) {
+            this.proofOfPossession = proofOfPossession;
+            return this;
+        }
+
+        public Builder setSec2Credentials(String userName, String password) {
+            this.userName = userName;
+            this.password = password;
+            return this;
+        }
+
+        public Builder setCapabilities(String... capabilities) {
+            this.capabilities = capabilities;
+            return this;
+        }
+
+        /**
+         * Set response of proto-ver endpoint. By default, it is created from security type and capabilities.
+         */
+        public Builder setVersionInfo(String versionInfo) {
+            this.versionInfo = versionInfo;
+            return this;
+        }
+
+        public Builder addWiFiNetwork(String ssid, int channel, int rssi, int authMode) {
+            byte[] bssid = new byte[]{0x24, 0x0a, (byte) 0xc4, 0, (byte) (wifiNetworks.size() >> 8), (byte) wifiNetworks.size()};
+            wifiNetworks.add(NetworkScan.WiFiScanResult.newBuilder()
+                    .setSsid(ByteString.copyFrom(ssid, StandardCharsets.UTF_8))
+                    .setChannel(channel)
+                    .setRssi(rssi)
+                    .setBssid(ByteString.copyFrom(bssid))
+                    .setAuthValue(authMode)
+                    .build());
+            return this;
+        }
+
+        public Builder addThreadNetwork(String networkName, int panId, int channel, int rssi) {
+            byte[] extPanId = new byte[]{(byte) 0xde, (byte) 0xad, 0, (byte) 0xbe, (byte) 0xef, 0, (byte) (panId >> 8), (byte) panId};
+            threadNetworks.add(NetworkScan.ThreadScanResult.newBuilder()
+                    .setNetworkName(networkName)
+                    .setPanId(panId)
+                    .setChannel(channel)
+                    .setRssi(rssi)
+                    .setLqi(255)
+                    .setExtAddr(ByteString.copyFrom(extPanId))
+                    .setExtPanId(ByteString.copyFrom(extPanId))
+                    .build());
+            return this;
+        }
+
+        /**
+         * Set number of status requests for which device reports "Connecting" after applying config.
+         */
+        public Builder setConnectingPollCount(int count) {
+            this.connectingPollCount = count;
+            return this;
+        }
+
+        /**
+         * Make Wi-Fi connection fail with given reason. Null (default) for successful connection.
+         */
+        public Builder setWiFiFailReason(NetworkConstants.WifiConnectFailedReason reason) {
+            this.wifiFailReason = reason;
+            return this;
+        }
+
+        /**
+         * Make Thread attach fail with given reason. Null (default) for successful attach.
+         */
+        public Builder setThreadFailReason(NetworkConstants.ThreadAttachFailedReason reason) {
+            this.threadFailReason = reason;
+            return this;
+        }
+
+        public Builder addCustomEndpoint(String path, EndpointHandler handler) {
+            this.customEndpoints.put(path, handler);
+            return this;
+        }
+
+        /**
+         * Set time taken by one request / response exchange, excluding fragments.
+         */
+        public Builder setLatency(long latency, TimeUnit unit) {
+            this.latencyNanos = unit.toNanos(latency);
+            return this;
+        }
+
+        /**
+         * Set MTU used to split request and response data in fragments. 0 (default) to disable fragmentation.
+         */
+        public Builder setMtu(int mtu) {
+            this.mtu = mtu;
+            return this;
+        }
+
+        /**
+         * Set time taken by one fragment of data.
+         */
+        public Builder setFragmentLatency(long latency, TimeUnit unit) {
+            this.fragmentLatencyNanos = unit.toNanos(latency);
+            return this;
+        }
+
+        /**
+         * Set probability (0 to 1) of a request to get lost.
+         */
+        public Builder setFailureRate(double failureRate) {
+            this.failureRate = failureRate;
+            return this;
+        }
+
+        /**
+         * Set seed for failure injection so that failures are reproducible.
+         */
+        public Builder setRandomSeed(long seed) {
+            this.randomSeed = seed;
+            return this;
+        }
+
+        public SimulatedTransport build() {
+
+            if (versionInfo == null) {
+                StringBuilder cap = new StringBuilder();
+                for (int i = 0; i < capabilities.length; i++) {
+                    if (i > 0) {
+                        cap.append(",");
+                    }
+                    cap.append("\"").append(capabilities[i]).append("\"");
+                }
+                versionInfo = "{\"prov\":{\"ver\":\"v1.1\",\"sec_ver\":" + securityVersion
+                        + ",\"sec_patch_ver\":" + sec2PatchVersion
+                        + ",\"cap\":[" + cap + "]}}";
+            }
+            return new SimulatedTransport(this);
+        }
+    }
+}
@@ -29,7 +29,9 @@ import java.net.CookieManager;
 import java.net.HttpCookie;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -45,10 +47,19 @@ public class SoftAPTransport implements Transport {
     private static final String TAG = "Espressif::" + SoftAPTransport.class.getSimpleName();
     private static final String SET_COOKIE_HEADER = "Set-Cookie";
     private static final String COOKIE_HEADER = "Cookie";
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final int READ_TIMEOUT = 10000;
+    private static final int BUFFER_SIZE = 4096;
 
     private String baseUrl = ESPConstants.DEFAULT_WIFI_BASE_URL;
     private ExecutorService workerThreadPool;
     private static CookieManager cookieManager;
+    private boolean isKeepAliveEnabled = true;
+
+    // Used only from worker thread.
+    private final HashMap<String, URL> urls = new HashMap<>();
+    private final byte[] readBuffer = new byte[BUFFER_SIZE];
+    private final ByteArrayOutputStream responseBuffer = new ByteArrayOutputStream(BUFFER_SIZE);
 
     /**
      * Initialise HTTP transport with baseUrl which
@@ -61,17 +72,50 @@ public class SoftAPTransport implements Transport {
         }
     }
 
-    private byte[] sendPostRequest(String path, byte[] data, final ResponseListener listener) {
+    /**
+     * Enable / disable persistent HTTP connection with the device.
+     * When enabled (default), the TCP connection with the device is kept open and reused for all requests.
+     * It is re-established if the device closes it.
+     *
+     * @param enable True to keep connection alive between requests.
+     */
+    public void setKeepAliveEnabled(boolean enable) {
+        this.isKeepAliveEnabled = enable;
+    }
+
+    private byte[] sendPostRequest(String path, byte[] data) throws IOException {
+
+        try {
+            return sendPostRequest(path, data, isKeepAliveEnabled);
+        } catch (RequestNotSentException e) {
+
+            if (!isKeepAliveEnabled) {
+                throw e.ioException;
+            }
+            // Device may have closed the persistent connection. Retry once on a new connection.
+            Log.d(TAG, "No response on existing connection, retrying : " + e.ioException.getMessage());
+            try {
+                return sendPostRequest(path, data, false);
+            } catch (RequestNotSentException ex) {
+                throw ex.ioException;
+            }
+        }
+    }
+
+    private byte[] sendPostRequest(String path, byte[] data, boolean keepAlive) throws IOException, RequestNotSentException {
+
         byte[] responseBytes = null;
+        HttpURLConnection urlConnection = (HttpURLConnection) getUrl(path).openConnection();
+
         try {
-            URL url = new URL("http://" + baseUrl + "/" + path);
-            HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
             urlConnection.setDoOutput(true);
-
             urlConnection.setRequestMethod("POST");
             urlConnection.setRequestProperty("Accept", "text/plain");
             urlConnection.setRequestProperty("Content-type", "application/x-www-form-urlencoded");
-            urlConnection.setConnectTimeout(5000);
+            urlConnection.setRequestProperty("Connection", keepAlive ? "keep-alive" : "close");
+            urlConnection.setFixedLengthStreamingMode(data.length);
+            urlConnection.setConnectTimeout(CONNECT_TIMEOUT);
+            urlConnection.setReadTimeout(READ_TIMEOUT);
 
             if (cookieManager.getCookieStore().getCookies().size() > 0) {
 
@@ -82,11 +126,25 @@ public class SoftAPTransport implements Transport {
                         TextUtils.join(";", cookieManager.getCookieStore().getCookies()));
             }
 
-            OutputStream os = urlConnection.getOutputStream();
-            os.write(data);
-            os.close();
+            try {
+                OutputStream os = urlConnection.getOutputStream();
+                os.write(data);
+                os.close();
+            } catch (IOException e) {
+                throw new RequestNotSentException(e);
+            }
 
-            int responseCode = urlConnection.getResponseCode();
+            int responseCode;
+            try {
+                responseCode = urlConnection.getResponseCode();
+            } catch (SocketTimeoutException e) {
+                // Device may be still processing the request, so it is not sent again.
+                throw e;
+            } catch (IOException e) {
+                // Write to a connection closed by the device usually succeeds into the socket buffer and
+                // the failure is seen here (e.g. connection reset or end of stream), before any response byte.
+                throw new RequestNotSentException(e);
+            }
             Map<String, List<String>> headerFields = urlConnection.getHeaderFields();
             List<String> cookiesHeader = headerFields.get(SET_COOKIE_HEADER);
 
@@ -101,32 +159,52 @@ public class SoftAPTransport implements Transport {
             }
 
             if (responseCode == HttpURLConnection.HTTP_OK) {
-                int n;
-                byte[] byteChunk = new byte[4096];
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                InputStream is = urlConnection.getInputStream();
-                while ((n = is.read(byteChunk)) > 0) {
-                    outputStream.write(byteChunk, 0, n);
-                }
-                responseBytes = outputStream.toByteArray();
+                responseBytes = readFully(urlConnection.getInputStream());
+            } else {
+                Log.e(TAG, "Error response code : " + responseCode + " for " + path);
+                // Response body must be consumed so that the connection can be reused.
+                readFully(urlConnection.getErrorStream());
+            }
+        } catch (RequestNotSentException e) {
+            // Connection is not returned to the pool, so that retry uses a new one.
+            urlConnection.disconnect();
+            throw e;
+        } finally {
+            if (!keepAlive) {
+                urlConnection.disconnect();
             }
-        } catch (MalformedURLException e) {
-            Log.e(TAG, e.getMessage());
-            e.printStackTrace();
-            listener.onFailure(new RuntimeException("Error ! Connection Lost"));
-        } catch (IOException e) {
-            Log.e(TAG, e.getMessage());
-            e.printStackTrace();
-            listener.onFailure(new RuntimeException("Error ! Connection Lost"));
-        } catch (Exception e) {
-            Log.e(TAG, e.getMessage());
-            e.printStackTrace();
-            listener.onFailure(new RuntimeException("Error ! Connection Lost"));
         }
-
         return responseBytes;
     }
 
+    private byte[] readFully(InputStream is) throws IOException {
+
+        if (is == null) {
+            return null;
+        }
+
+        int n;
+        responseBuffer.reset();
+        try {
+            while ((n = is.read(readBuffer)) > 0) {
+                responseBuffer.write(readBuffer, 0, n);
+            }
+        } finally {
+            is.close();
+        }
+        return responseBuffer.toByteArray();
+    }
+
+    private URL getUrl(String path) throws MalformedURLException {
+
+        URL url = urls.get(path);
+        if (url == null) {
+            url = new URL("http://" + baseUrl + "/" + path);
+            urls.put(path, url);
+        }
+        return url;
+    }
+
     /***
      * HTTP implementation of the Transport protocol
      * @param path path of the config endpoint.
@@ -139,13 +217,31 @@ public class SoftAPTransport implements Transport {
                 .submit(new Runnable() {
                     @Override
                     public void run() {
+                        byte[] returnData;
                         try {
-                            byte[] returnData = sendPostRequest(path, data, listener);
-                            listener.onSuccess(returnData);
+                            returnData = sendPostRequest(path, data);
                         } catch (Exception e) {
-                            listener.onFailure(e);
+                            Log.e(TAG, "Failed to send request : " + e.getMessage());
+                            e.printStackTrace();
+                            listener.onFailure(new RuntimeException("Error ! Connection Lost"));
+                            return;
                         }
+                        listener.onSuccess(returnData);
                     }
                 });
     }
+
+    /**
+     * Thrown when request could not be written to the connection or connection failed before any response byte
+     * is received, e.g. device has closed the persistent connection. Request can be sent again on a new connection.
+     */
+    private static class RequestNotSentException extends Exception {
+
+        private final IOException ioException;
+
+        RequestNotSentException(IOException e) {
+            super(e);
+            this.ioException = e;
+        }
+    }
 }
@@ -0,0 +1,247 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.transport;
+
+import android.net.LinkAddress;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.util.Log;
+
+import com.espressif.provisioning.utils.PollScheduler;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Detects when HTTP server of SoftAP device is reachable, after phone is connected to the device network.
+ * <p>
+ * A TCP connection to the device address is probed with exponential backoff till the deadline.
+ * Network callback signals ({@link #onNetworkAvailable}, {@link #onLinkPropertiesChanged}) run the probe
+ * immediately, so device is detected as soon as the network is usable, without waiting for fixed delays.
+ * Probes run on a background thread, never on the main thread.
+ */
+public class SoftApReadinessDetector {
+
+    private static final String TAG = "Espressif::" + SoftApReadinessDetector.class.getSimpleName();
+
+    public static final long DEFAULT_DEADLINE = 20000; // 20 seconds
+
+    private static final long INITIAL_PROBE_DELAY = 100;
+    private static final long MAX_PROBE_DELAY = 2000;
+    private static final double PROBE_BACKOFF_FACTOR = 2;
+    private static final int PROBE_CONNECT_TIMEOUT = 1000;
+    private static final int DEFAULT_PORT = 80;
+
+    private static ExecutorService probeExecutor;
+
+    private final ScheduledExecutorService executor;
+    private final String host;
+    private final int port;
+    private long deadline = DEFAULT_DEADLINE;
+    private volatile Network network;
+    private PollScheduler poller;
+
+    /**
+     * Callback interface for readiness of the device.
+     */
+    public interface ReadinessListener {
+
+        /**
+         * Called when HTTP server of the device accepts connection.
+         *
+         * @return Returns false if reachable server does not belong to the device (e.g. phone is still connected
+         * to other network), so that device is probed again with backoff till the deadline.
+         */
+        boolean onDeviceReady();
+
+        /**
+         * Called when device is not reachable till the deadline.
+         */
+        void onDeviceNotReachable();
+    }
+
+    /**
+     * @param executor Executor on which probes are scheduled.
+     * @param baseUrl  Address of the device as "host:port", e.g. ESPConstants.DEFAULT_WIFI_BASE_URL.
+     */
+    public SoftApReadinessDetector(ScheduledExecutorService executor, String baseUrl) {
+
+        this.executor = executor;
+        int index = baseUrl.lastIndexOf(':');
+
+        if (index > 0) {
+            this.host = baseUrl.substring(0, index);
+            this.port = Integer.parseInt(baseUrl.substring(index + 1));
+        } else {
+            this.host = baseUrl;
+            this.port = DEFAULT_PORT;
+        }
+    }
+
+    /**
+     * This method is used to set time till which device is probed.
+     *
+     * @param deadlineMs Time in milliseconds from start of the detection.
+     */
+    public synchronized void setDeadline(long deadlineMs) {
+        this.deadline = deadlineMs;
+    }
+
+    /**
+     * This method is used to start detection. Detection which is already running is cancelled.
+     *
+     * @param network  Device network, used to open probe connection. It can be null if it is not available yet.
+     * @param listener Listener to receive readiness of the device. It is called on background thread.
+     */
+    public synchronized void start(Network network, final ReadinessListener listener) {
+
+        cancel();
+
+        if (network != null) {
+            this.network = network;
+        }
+
+        final PollScheduler[] pollerRef = new PollScheduler[1];
+        final PollScheduler newPoller = new PollScheduler(executor, new Runnable() {
+
+            @Override
+            public void run() {
+                getProbeExecutor().execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        PollScheduler scheduler = pollerRef[0];
+                        if (scheduler.isCancelled()) {
+                            return;
+                        }
+                        // Only one probe runs at a time, so listener is not called again till next poll.
+                        if (probe() && !scheduler.isCancelled() && listener.onDeviceReady()) {
+                            scheduler.cancel();
+                        } else {
+                            scheduler.pollAgain();
+                        }
+                    }
+                });
+            }
+        }, new Runnable() {
+
+            @Override
+            public void run() {
+                Log.e(TAG, "Device is not reachable at " + host + ":" + port);
+                listener.onDeviceNotReachable();
+            }
+        });
+        pollerRef[0] = newPoller;
+
+        newPoller.setInitialDelay(INITIAL_PROBE_DELAY);
+        newPoller.setMaxDelay(MAX_PROBE_DELAY);
+        newPoller.setBackoffFactor(PROBE_BACKOFF_FACTOR);
+        newPoller.setTimeout(deadline);
+        poller = newPoller;
+        newPoller.start();
+    }
+
+    /**
+     * This method is used to probe device immediately when its network becomes available.
+     *
+     * @param network Available network.
+     */
+    public void onNetworkAvailable(Network network) {
+
+        this.network = network;
+        probeNow();
+    }
+
+    /**
+     * This method is used to probe device immediately when IPv4 address is assigned to the device network.
+     *
+     * @param network        Network whose link properties are changed.
+     * @param linkProperties Link properties of the network.
+     */
+    public void onLinkPropertiesChanged(Network network, LinkProperties linkProperties) {
+
+        for (LinkAddress linkAddress : linkProperties.getLinkAddresses()) {
+            if (linkAddress.getAddress() instanceof Inet4Address) {
+                this.network = network;
+                probeNow();
+                return;
+            }
+        }
+    }
+
+    /**
+     * This method is used to stop detection. Listener is not called after this.
+     */
+    public synchronized void cancel() {
+
+        if (poller != null) {
+            poller.cancel();
+            poller = null;
+        }
+    }
+
+    private synchronized void probeNow() {
+
+        if (poller != null) {
+            poller.pollNow();
+        }
+    }
+
+    private boolean probe() {
+
+        Network currentNetwork = network;
+        Socket socket = null;
+
+        try {
+            socket = currentNetwork != null ? currentNetwork.getSocketFactory().createSocket() : new Socket();
+            socket.connect(new InetSocketAddress(host, port), PROBE_CONNECT_TIMEOUT);
+            Log.d(TAG, "Device is reachable at " + host + ":" + port);
+            return true;
+        } catch (IOException e) {
+            Log.d(TAG, "Device is not reachable yet : " + e.getMessage());
+            return false;
+        } finally {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    private static synchronized ExecutorService getProbeExecutor() {
+
+        if (probeExecutor == null) {
+            probeExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "SoftApProbe");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return probeExecutor;
+    }
+}
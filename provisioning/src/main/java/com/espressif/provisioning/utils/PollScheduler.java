@@ -0,0 +1,219 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.utils;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules repeated polling of a device status without blocking any thread.
+ * <p>
+ * Poll task is run on the executor. When the status is still pending, the task calls {@link #pollAgain()} and
+ * next poll is scheduled with increasing delay (starting with initial delay, multiplied by backoff factor, up to max delay).
+ * If the deadline is reached, timeout task is run instead. {@link #pollNow()} runs the poll immediately,
+ * e.g. when device notifies about status change.
+ */
+public class PollScheduler {
+
+    public static final long DEFAULT_INITIAL_DELAY = 500;
+    public static final long DEFAULT_MAX_DELAY = 5000;
+    public static final double DEFAULT_BACKOFF_FACTOR = 1.5;
+    public static final long DEFAULT_TIMEOUT = 120000; // 2 minutes
+
+    private final ScheduledExecutorService executor;
+    private final Runnable pollTask;
+    private final Runnable timeoutTask;
+
+    private long initialDelay = DEFAULT_INITIAL_DELAY;
+    private long maxDelay = DEFAULT_MAX_DELAY;
+    private double backoffFactor = DEFAULT_BACKOFF_FACTOR;
+    private long timeout = DEFAULT_TIMEOUT;
+
+    private ScheduledFuture<?> pendingPoll;
+    private long nextDelay;
+    private long deadline;
+    private int pollCount;
+    private boolean isStarted;
+    private boolean isCancelled;
+    private boolean isPollInProgress;
+    private boolean isPollRequested;
+
+    /**
+     * Create PollScheduler.
+     *
+     * @param executor    Executor to run poll and timeout tasks.
+     * @param pollTask    Task which requests the status. It must call {@link #pollAgain()} if status is still pending.
+     * @param timeoutTask Task to be run if the deadline is reached while status is still pending.
+     */
+    public PollScheduler(ScheduledExecutorService executor, Runnable pollTask, Runnable timeoutTask) {
+        this.executor = executor;
+        this.pollTask = pollTask;
+        this.timeoutTask = timeoutTask;
+    }
+
+    /**
+     * This method is used to set delay before first poll.
+     *
+     * @param delayMs Delay in milliseconds.
+     */
+    public synchronized void setInitialDelay(long delayMs) {
+        this.initialDelay = delayMs;
+    }
+
+    /**
+     * This method is used to set maximum delay between two polls.
+     *
+     * @param delayMs Delay in milliseconds.
+     */
+    public synchronized void setMaxDelay(long delayMs) {
+        this.maxDelay = delayMs;
+    }
+
+    /**
+     * This method is used to set factor by which delay is increased after each poll.
+     *
+     * @param factor Backoff factor, 1 for fixed delay.
+     */
+    public synchronized void setBackoffFactor(double factor) {
+        if (factor < 1) {
+            throw new IllegalArgumentException("Backoff factor must not be less than 1.");
+        }
+        this.backoffFactor = factor;
+    }
+
+    /**
+     * This method is used to set total time to poll, counted from {@link #start()}.
+     *
+     * @param timeoutMs Timeout in milliseconds.
+     */
+    public synchronized void setTimeout(long timeoutMs) {
+        this.timeout = timeoutMs;
+    }
+
+    /**
+     * This method is used to start polling. First poll is run after initial delay.
+     */
+    public synchronized void start() {
+
+        if (isStarted) {
+            throw new IllegalStateException("Polling is already started.");
+        }
+        isStarted = true;
+        deadline = SystemClock.elapsedRealtime() + timeout;
+        nextDelay = initialDelay;
+        schedulePoll(nextDelay());
+    }
+
+    /**
+     * This method is used to schedule next poll, when status is still pending.
+     * Runs timeout task if the deadline is reached.
+     */
+    public synchronized void pollAgain() {
+
+        if (isCancelled) {
+            return;
+        }
+        isPollInProgress = false;
+
+        long remaining = deadline - SystemClock.elapsedRealtime();
+
+        if (remaining <= 0) {
+            isCancelled = true;
+            executor.execute(timeoutTask);
+            return;
+        }
+
+        if (isPollRequested) {
+            isPollRequested = false;
+            schedulePoll(0);
+        } else {
+            schedulePoll(Math.min(nextDelay(), remaining));
+        }
+    }
+
+    /**
+     * This method is used to run poll immediately instead of waiting for the scheduled one.
+     */
+    public synchronized void pollNow() {
+
+        if (isCancelled || !isStarted) {
+            return;
+        }
+        if (isPollInProgress) {
+            // Response of current poll is awaited, poll again as soon as it is received.
+            isPollRequested = true;
+            return;
+        }
+        if (pendingPoll != null) {
+            pendingPoll.cancel(false);
+        }
+        schedulePoll(0);
+    }
+
+    /**
+     * This method is used to stop polling. Pending poll and timeout tasks are not run after this.
+     * It should be called once the final status is received.
+     */
+    public synchronized void cancel() {
+
+        isCancelled = true;
+        if (pendingPoll != null) {
+            pendingPoll.cancel(false);
+            pendingPoll = null;
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * This method is used to get number of polls run so far.
+     *
+     * @return Number of polls.
+     */
+    public synchronized int getPollCount() {
+        return pollCount;
+    }
+
+    private long nextDelay() {
+        long delay = nextDelay;
+        nextDelay = Math.min(maxDelay, (long) (nextDelay * backoffFactor));
+        return delay;
+    }
+
+    private void schedulePoll(long delayMs) {
+
+        pendingPoll = executor.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+
+                synchronized (PollScheduler.this) {
+                    if (isCancelled || isPollInProgress) {
+                        return;
+                    }
+                    pendingPoll = null;
+                    isPollInProgress = true;
+                    pollCount++;
+                }
+                pollTask.run();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+}
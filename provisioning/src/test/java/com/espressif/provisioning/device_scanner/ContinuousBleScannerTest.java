@@ -0,0 +1,414 @@
+// Copyright 2025 Espressif Systems (Shanghai) PTE LTD
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.espressif.provisioning.device_scanner;
+
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanSettings;
+
+import com.espressif.provisioning.listeners.ContinuousBleScanListener;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit test for scan scheduling of {@link ContinuousBleScanner}.
+ * Scan is run with fake backend, clock and scheduler, so time is advanced by the test.
+ */
+public class ContinuousBleScannerTest {
+
+    private FakeScheduler scheduler;
+    private FakeBackend backend;
+    private BleDiscoveryIndex index;
+    private ContinuousBleScanner scanner;
+    private final List<BleDiscoveredDevice> addedDevices = new ArrayList<>();
+    private final List<Exception> scanFailures = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+
+        scheduler = new FakeScheduler();
+        backend = new FakeBackend(scheduler);
+        index = new BleDiscoveryIndex(scheduler, scheduler);
+        scanner = new ContinuousBleScanner(backend, index, scheduler, scheduler);
+        scanner.setListener(new ContinuousBleScanListener() {
+
+            @Override
+            public void onDevicesChanged(List<BleDiscoveredDevice> added, List<BleDiscoveredDevice> updated,
+                                         List<BleDiscoveredDevice> lost) {
+                addedDevices.addAll(added);
+            }
+
+            @Override
+            public void onScanFailed(Exception e) {
+                scanFailures.add(e);
+            }
+        }, null);
+    }
+
+    @Test
+    public void scanRunsInDutyCycle() {
+
+        scanner.setDutyCycle(2000, 5000);
+        scanner.setIdleTimeout(60000);
+        scanner.start();
+
+        scheduler.advanceTo(1999);
+        assertTrue(backend.isScanning);
+
+        scheduler.advanceTo(2000);
+        assertFalse(backend.isScanning);
+
+        scheduler.advanceTo(4999);
+        assertFalse(backend.isScanning);
+
+        scheduler.advanceTo(5000);
+        assertTrue(backend.isScanning);
+
+        scheduler.advanceTo(15000);
+        assertEquals(listOf(0, 5000, 10000, 15000), backend.startTimes);
+        assertEquals(3, backend.stopCount);
+        for (int scanMode : backend.scanModes) {
+            assertEquals(ScanSettings.SCAN_MODE_BALANCED, scanMode);
+        }
+    }
+
+    @Test
+    public void scanStartsStayWithinLimit() {
+
+        scanner.setDutyCycle(1000, 2000);
+        scanner.setIdleTimeout(600000);
+        scanner.start();
+
+        scheduler.advanceTo(6000);
+        assertEquals(listOf(0, 2000, 4000, 6000), backend.startTimes);
+
+        // Next start is delayed till the first start is out of the limit window.
+        scheduler.advanceTo(8000);
+        assertEquals(ScanStartLimiter.LIMIT_WINDOW + 100 - 8000, scanner.getScanStartDelay(8000));
+        assertEquals(4, backend.startTimes.size());
+        assertFalse(backend.isScanning);
+
+        scheduler.advanceTo(ScanStartLimiter.LIMIT_WINDOW + 100);
+        assertEquals(5, backend.startTimes.size());
+        assertTrue(backend.isScanning);
+
+        scheduler.advanceTo(120000);
+        List<Long> starts = backend.startTimes;
+        for (int i = 0; i + ContinuousBleScanner.SCAN_START_LIMIT < starts.size(); i++) {
+            long window = starts.get(i + ContinuousBleScanner.SCAN_START_LIMIT) - starts.get(i);
+            assertTrue("Too many scan starts at " + starts.get(i), window >= ScanStartLimiter.LIMIT_WINDOW);
+        }
+    }
+
+    @Test
+    public void scannerSwitchesToIdleModeWithoutNewDevices() {
+
+        scanner.setDutyCycle(2000, 5000);
+        scanner.setIdleTimeout(20000);
+        scanner.start();
+
+        scheduler.advanceTo(19000);
+        assertFalse(scanner.isIdle());
+
+        scheduler.advanceTo(60000);
+        assertTrue(scanner.isIdle());
+        assertTrue(backend.isScanning);
+        assertEquals(ScanSettings.SCAN_MODE_LOW_POWER, backend.getLastScanMode());
+
+        // Idle scan is a single long scan.
+        int startCount = backend.startTimes.size();
+        scheduler.advanceTo(120000);
+        assertEquals(startCount, backend.startTimes.size());
+    }
+
+    @Test
+    public void newDeviceReturnsScannerToDutyCycle() {
+
+        scanner.setDutyCycle(2000, 5000);
+        scanner.setIdleTimeout(20000);
+        scanner.start();
+
+        scheduler.advanceTo(60000);
+        assertTrue(scanner.isIdle());
+
+        index.onAdvertisement("24:0A:C4:00:00:01", "PROV_000001", null, null, -60, scheduler.now);
+        scheduler.advanceTo(60000 + index.getReportInterval());
+
+        assertEquals(1, addedDevices.size());
+        assertEquals("24:0A:C4:00:00:01", addedDevices.get(0).getAddress());
+        assertFalse(scanner.isIdle());
+        assertTrue(backend.isScanning);
+        assertEquals(ScanSettings.SCAN_MODE_BALANCED, backend.getLastScanMode());
+
+        // Device which is already in the index does not restart the scan.
+        int startCount = backend.startTimes.size();
+        index.onAdvertisement("24:0A:C4:00:00:01", "PROV_000001", null, null, -60, scheduler.now);
+        scheduler.advanceTo(scheduler.now + index.getReportInterval());
+        assertEquals(startCount, backend.startTimes.size());
+    }
+
+    @Test
+    public void failureOfPreviousScanIsIgnored() {
+
+        scanner.setDutyCycle(2000, 5000);
+        scanner.setIdleTimeout(60000);
+        scanner.start();
+
+        BleScanBackend.Callback firstScanCallback = backend.callbacks.get(0);
+        scheduler.advanceTo(5000);
+        assertEquals(2, backend.startTimes.size());
+
+        firstScanCallback.onScanFailed(ScanCallback.SCAN_FAILED_INTERNAL_ERROR);
+        assertTrue(scanFailures.isEmpty());
+        assertTrue(backend.isScanning);
+
+        // Failure of current scan is reported and scan is started again after the scan interval.
+        backend.callbacks.get(1).onScanFailed(ScanCallback.SCAN_FAILED_INTERNAL_ERROR);
+        assertEquals(1, scanFailures.size());
+
+        scheduler.advanceTo(9999);
+        assertEquals(2, backend.startTimes.size());
+        scheduler.advanceTo(10000);
+        assertEquals(3, backend.startTimes.size());
+    }
+
+    @Test
+    public void stopCancelsScheduledScan() {
+
+        scanner.setDutyCycle(2000, 5000);
+        scanner.start();
+
+        scheduler.advanceTo(3000);
+        scanner.stop();
+        assertFalse(scanner.isRunning());
+
+        scheduler.advanceTo(60000);
+        assertEquals(1, backend.startTimes.size());
+        assertFalse(backend.isScanning);
+    }
+
+    private static List<Long> listOf(long... values) {
+
+        List<Long> list = new ArrayList<>();
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    /**
+     * Backend which records scan starts and stops.
+     */
+    private static class FakeBackend implements BleScanBackend {
+
+        private final ScanClock clock;
+        private final List<Long> startTimes = new ArrayList<>();
+        private final List<Integer> scanModes = new ArrayList<>();
+        private final List<Callback> callbacks = new ArrayList<>();
+        private boolean isScanning;
+        private int stopCount;
+
+        FakeBackend(ScanClock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public boolean startScan(int scanMode, long reportDelayMs, Callback callback) {
+
+            startTimes.add(clock.elapsedRealtime());
+            scanModes.add(scanMode);
+            callbacks.add(callback);
+            isScanning = true;
+            return true;
+        }
+
+        @Override
+        public void stopScan() {
+            isScanning = false;
+            stopCount++;
+        }
+
+        @Override
+        public boolean isBatchScanSupported() {
+            return false;
+        }
+
+        int getLastScanMode() {
+            return scanModes.get(scanModes.size() - 1);
+        }
+    }
+
+    /**
+     * Scheduler and clock, tasks are run on the test thread when time is advanced.
+     */
+    private static class FakeScheduler extends AbstractExecutorService implements ScheduledExecutorService, ScanClock {
+
+        private final List<FakeTask> tasks = new ArrayList<>();
+        private long now;
+
+        @Override
+        public long elapsedRealtime() {
+            return now;
+        }
+
+        /**
+         * Runs all tasks due till given time, in order of their time.
+         */
+        void advanceTo(long time) {
+
+            while (true) {
+
+                FakeTask next = null;
+                for (FakeTask task : tasks) {
+                    if (!task.isCancelled && task.time <= time && (next == null || task.time < next.time)) {
+                        next = task;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+
+                now = next.time;
+                if (next.period > 0) {
+                    next.time += next.period;
+                } else {
+                    tasks.remove(next);
+                }
+                next.runnable.run();
+            }
+            now = time;
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            return addTask(command, unit.toMillis(delay), 0);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+            return addTask(command, unit.toMillis(initialDelay), unit.toMillis(delay));
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+            return addTask(command, unit.toMillis(initialDelay), unit.toMillis(period));
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            addTask(command, 0, 0);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+
+        private FakeTask addTask(Runnable runnable, long delay, long period) {
+
+            FakeTask task = new FakeTask(runnable, now + delay, period);
+            tasks.add(task);
+            return task;
+        }
+
+        private class FakeTask implements ScheduledFuture<Object> {
+
+            private final Runnable runnable;
+            private final long period;
+            private long time;
+            private boolean isCancelled;
+
+            FakeTask(Runnable runnable, long time, long period) {
+                this.runnable = runnable;
+                this.time = time;
+                this.period = period;
+            }
+
+            @Override
+            public long getDelay(TimeUnit unit) {
+                return unit.convert(time - now, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public int compareTo(Delayed other) {
+                return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+            }
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                isCancelled = true;
+                tasks.remove(this);
+                return true;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return isCancelled;
+            }
+
+            @Override
+            public boolean isDone() {
+                return isCancelled || (period == 0 && !tasks.contains(this));
+            }
+
+            @Override
+            public Object get() {
+                return null;
+            }
+
+            @Override
+            public Object get(long timeout, TimeUnit unit) {
+                return null;
+            }
+        }
+    }
+}